@@ -0,0 +1,53 @@
+package com.encenape.controller;
+
+import com.encenape.dto.CacheMetricasResponse;
+import com.encenape.dto.EmailMetricasResponse;
+import com.encenape.model.Usuario;
+import com.encenape.service.CatalogoCacheService;
+import com.encenape.service.email.FilaEmailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administração", description = "Métricas operacionais (apenas para administradores)")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminController {
+    
+    private final FilaEmailService filaEmailService;
+    private final CatalogoCacheService catalogoCacheService;
+    
+    @GetMapping("/email/metricas")
+    @Operation(summary = "Métricas de email", description = "Profundidade da fila de envio, conexões SMTP abertas e contadores de envio")
+    public ResponseEntity<EmailMetricasResponse> getMetricasEmail(@AuthenticationPrincipal Usuario usuario) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        EmailMetricasResponse response = new EmailMetricasResponse();
+        response.setTamanhoFila(filaEmailService.getTamanhoFila());
+        response.setCapacidadeFila(filaEmailService.getCapacidadeFila());
+        response.setAguardandoRetentativa(filaEmailService.getAguardandoRetentativa());
+        response.setConexoesAbertas(filaEmailService.getConexoesAbertas());
+        response.setEnviados(filaEmailService.getEnviados());
+        response.setFalhas(filaEmailService.getFalhas());
+        response.setRetentativas(filaEmailService.getRetentativas());
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/cache/metricas")
+    @Operation(summary = "Métricas de cache", description = "Acertos e falhas dos caches do catálogo e das regiões do cache de segundo nível")
+    public ResponseEntity<CacheMetricasResponse> getMetricasCache(@AuthenticationPrincipal Usuario usuario) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(new CacheMetricasResponse(catalogoCacheService.getMetricas()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.encenape.controller;
+
+import com.encenape.dto.CheckInRequest;
+import com.encenape.dto.CheckInResponse;
+import com.encenape.dto.PortariaResponse;
+import com.encenape.model.Usuario;
+import com.encenape.service.CheckInService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/checkin/eventos/{eventoId}")
+@RequiredArgsConstructor
+@Tag(name = "Check-in", description = "Entrada dos ingressos na portaria dos eventos")
+@SecurityRequirement(name = "bearerAuth")
+public class CheckInController {
+    
+    private final CheckInService checkInService;
+    
+    @PostMapping("/abrir")
+    @Operation(summary = "Abrir portaria", description = "Carrega os ingressos ativos do evento em memória para o check-in (apenas para administradores)")
+    public ResponseEntity<PortariaResponse> abrirPortaria(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(checkInService.abrirPortaria(eventoId));
+    }
+    
+    @PostMapping("/fechar")
+    @Operation(summary = "Fechar portaria", description = "Grava as entradas pendentes e libera o índice do evento (apenas para administradores)")
+    public ResponseEntity<PortariaResponse> fecharPortaria(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(checkInService.fecharPortaria(eventoId));
+    }
+    
+    @GetMapping
+    @Operation(summary = "Status da portaria", description = "Ingressos carregados, pessoas esperadas e entradas registradas (apenas para administradores)")
+    public ResponseEntity<PortariaResponse> getPortariaStatus(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(checkInService.getPortariaStatus(eventoId));
+    }
+    
+    @PostMapping("/entradas")
+    @Operation(summary = "Registrar entrada", description = "Valida o QR Code (ou o código) e libera a entrada de uma ou mais " +
+            "pessoas do ingresso. Sem quantidade, libera todas as restantes (apenas para administradores)")
+    public ResponseEntity<CheckInResponse> registrarEntrada(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId,
+            @Valid @RequestBody CheckInRequest request) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(checkInService.registrarEntrada(eventoId, request));
+    }
+}
@@ -1,10 +1,14 @@
 package com.encenape.controller;
 
+import com.encenape.dto.CancelamentoEventoResponse;
 import com.encenape.dto.EventoResponse;
+import com.encenape.dto.PaginaCursorResponse;
 import com.encenape.dto.CreateEventoRequest;
 import com.encenape.dto.UpdateEventoRequest;
 import com.encenape.model.Usuario;
+import com.encenape.service.CancelamentoEventoService;
 import com.encenape.service.EventoService;
+import com.encenape.service.ExportacaoIngressosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -14,9 +18,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,6 +35,8 @@ import java.util.List;
 public class EventoController {
     
     private final EventoService eventoService;
+    private final CancelamentoEventoService cancelamentoEventoService;
+    private final ExportacaoIngressosService exportacaoIngressosService;
     
     @GetMapping
     @Operation(summary = "Listar eventos", description = "Lista eventos com filtros opcionais")
@@ -45,6 +54,27 @@ public class EventoController {
         return ResponseEntity.ok(eventos);
     }
     
+    @GetMapping("/cursor")
+    @Operation(summary = "Listar eventos por cursor", description = "Lista eventos com filtros opcionais, paginando pelo cursor devolvido na página anterior")
+    public ResponseEntity<PaginaCursorResponse<EventoResponse>> getEventosPorCursor(
+            @Parameter(description = "Categoria do evento") @RequestParam(required = false) String categoria,
+            @Parameter(description = "Cidade do evento") @RequestParam(required = false) String cidade,
+            @Parameter(description = "Data de início (formato: yyyy-MM-ddTHH:mm:ss)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataInicio,
+            @Parameter(description = "Data de fim (formato: yyyy-MM-ddTHH:mm:ss)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dataFim,
+            @Parameter(description = "Termo de busca") @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor da página anterior (proximoCursor); vazio para a primeira página") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamanho da página (1 a 100)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Incluir o total de eventos (custa uma contagem)") 
+            @RequestParam(defaultValue = "false") boolean total) {
+        
+        PaginaCursorResponse<EventoResponse> eventos = eventoService.getEventosComFiltrosPorCursor(
+                categoria, cidade, dataInicio, dataFim, search, cursor, size, total);
+        return ResponseEntity.ok(eventos);
+    }
+    
     @GetMapping("/proximos")
     @Operation(summary = "Listar próximos eventos", description = "Lista os próximos eventos disponíveis")
     public ResponseEntity<List<EventoResponse>> getProximosEventos() {
@@ -59,6 +89,18 @@ public class EventoController {
         return ResponseEntity.ok(eventos);
     }
     
+    @GetMapping("/proximos/cursor")
+    @Operation(summary = "Listar próximos eventos por cursor", description = "Lista os próximos eventos, paginando pelo cursor devolvido na página anterior")
+    public ResponseEntity<PaginaCursorResponse<EventoResponse>> getProximosEventosPorCursor(
+            @Parameter(description = "Cursor da página anterior (proximoCursor); vazio para a primeira página") 
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamanho da página (1 a 100)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Incluir o total de eventos (custa uma contagem)") 
+            @RequestParam(defaultValue = "false") boolean total) {
+        PaginaCursorResponse<EventoResponse> eventos = eventoService.getProximosEventosPorCursor(cursor, size, total);
+        return ResponseEntity.ok(eventos);
+    }
+    
     @GetMapping("/disponiveis")
     @Operation(summary = "Listar eventos disponíveis", description = "Lista eventos com ingressos disponíveis")
     public ResponseEntity<List<EventoResponse>> getEventosDisponiveis() {
@@ -128,6 +170,51 @@ public class EventoController {
         return ResponseEntity.ok("Evento excluído com sucesso");
     }
     
+    @PostMapping("/admin/{id}/cancelar")
+    @Operation(summary = "Cancelar evento", description = "Encerra as vendas, cancela todos os ingressos ativos e enfileira " +
+            "reembolsos e avisos aos compradores. Roda em segundo plano (apenas para administradores)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CancelamentoEventoResponse> cancelarEvento(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long id,
+            @Parameter(description = "Motivo do cancelamento") @RequestParam(required = false) String motivo) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        CancelamentoEventoResponse response = cancelamentoEventoService.cancelarEvento(id, motivo);
+        return ResponseEntity.status(202).body(response);
+    }
+    
+    @GetMapping("/admin/{id}/cancelamento")
+    @Operation(summary = "Progresso do cancelamento", description = "Consulta o andamento do cancelamento de um evento (apenas para administradores)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<CancelamentoEventoResponse> getProgressoCancelamento(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long id) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(cancelamentoEventoService.getProgresso(id));
+    }
+    
+    @GetMapping("/admin/{id}/ingressos/qrcodes.zip")
+    @Operation(summary = "Exportar QR Codes do evento", description = "Baixa um ZIP com o PNG do QR Code de cada ingresso " +
+            "ativo do evento, gerado e enviado aos poucos (apenas para administradores)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<StreamingResponseBody> exportarQRCodes(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long id) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        exportacaoIngressosService.validarEvento(id);
+        StreamingResponseBody corpo = saida -> exportacaoIngressosService.escreverZip(id, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ingressos-evento-" + id + ".zip\"")
+                .body(corpo);
+    }
+    
     @GetMapping("/admin")
     @Operation(summary = "Listar todos os eventos (admin)", description = "Lista todos os eventos incluindo inativos (apenas para administradores)")
     @SecurityRequirement(name = "bearerAuth")
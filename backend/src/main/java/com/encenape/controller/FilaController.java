@@ -0,0 +1,67 @@
+package com.encenape.controller;
+
+import com.encenape.dto.FilaStatusResponse;
+import com.encenape.model.Usuario;
+import com.encenape.service.FilaEsperaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/fila")
+@RequiredArgsConstructor
+@Tag(name = "Fila virtual", description = "Fila de espera para eventos com alta demanda")
+public class FilaController {
+    
+    private final FilaEsperaService filaEsperaService;
+    
+    @PostMapping("/{eventoId}")
+    @Operation(summary = "Entrar na fila", description = "Retorna a posição do usuário na fila virtual do evento")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<FilaStatusResponse> entrarNaFila(
+            @PathVariable Long eventoId,
+            @AuthenticationPrincipal Usuario usuario) {
+        return ResponseEntity.ok(filaEsperaService.entrarNaFila(eventoId, usuario));
+    }
+    
+    @GetMapping("/{eventoId}/status")
+    @Operation(summary = "Consultar fila", description = "Consulta em memória se a posição já foi admitida (sem autenticação)")
+    public ResponseEntity<FilaStatusResponse> getStatus(
+            @PathVariable Long eventoId,
+            @Parameter(description = "Posição recebida ao entrar na fila") @RequestParam Long posicao) {
+        return ResponseEntity.ok(filaEsperaService.getStatus(eventoId, posicao));
+    }
+    
+    @PutMapping("/admin/{eventoId}")
+    @Operation(summary = "Ativar fila", description = "Ativa a fila virtual de um evento (apenas para administradores)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<String> ativarFila(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId,
+            @Parameter(description = "Admissões por segundo") @RequestParam(required = false) Double taxaPorSegundo,
+            @Parameter(description = "Máximo de admissões acumuladas") @RequestParam(required = false) Integer rajada) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        filaEsperaService.ativarFila(eventoId, taxaPorSegundo, rajada);
+        return ResponseEntity.ok("Fila virtual ativada");
+    }
+    
+    @DeleteMapping("/admin/{eventoId}")
+    @Operation(summary = "Desativar fila", description = "Desativa a fila virtual de um evento (apenas para administradores)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<String> desativarFila(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        filaEsperaService.desativarFila(eventoId);
+        return ResponseEntity.ok("Fila virtual desativada");
+    }
+}
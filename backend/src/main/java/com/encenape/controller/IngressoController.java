@@ -1,9 +1,15 @@
 package com.encenape.controller;
 
 import com.encenape.dto.CompraIngressoRequest;
+import com.encenape.dto.CompraStatusResponse;
 import com.encenape.dto.IngressoResponse;
 import com.encenape.model.Usuario;
+import com.encenape.service.CompraAssincronaService;
+import com.encenape.service.FilaEsperaService;
+import com.encenape.service.IdempotenciaService;
 import com.encenape.service.IngressoService;
+import com.encenape.service.QRCodeService;
+import com.encenape.service.VerificacaoIngressoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -12,11 +18,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/ingressos")
@@ -26,16 +36,54 @@ import java.util.List;
 public class IngressoController {
     
     private final IngressoService ingressoService;
+    private final CompraAssincronaService compraAssincronaService;
+    private final FilaEsperaService filaEsperaService;
+    private final IdempotenciaService idempotenciaService;
+    private final QRCodeService qrCodeService;
+    private final VerificacaoIngressoService verificacaoIngressoService;
+    
+    // A validade no token muda se o evento for remarcado: o navegador guarda a imagem, mas revalida pelo ETag
+    private static final String CACHE_QR_CODE = "public, no-cache";
     
     @PostMapping
-    @Operation(summary = "Comprar ingresso", description = "Realiza a compra de ingressos para um evento")
-    public ResponseEntity<IngressoResponse> comprarIngresso(
+    @Operation(summary = "Comprar ingresso", description = "Realiza a compra de ingressos para um evento. " +
+            "No modo assíncrono responde 202 com o ID da compra, que pode ser consultado em /ingressos/compras/{compraId}. " +
+            "Com o header Idempotency-Key, retries da mesma compra devolvem a resposta original")
+    public ResponseEntity<?> comprarIngresso(
             @AuthenticationPrincipal Usuario usuario,
+            @Parameter(description = "Chave única da tentativa de compra, repetida nos retries")
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia,
             @Valid @RequestBody CompraIngressoRequest request) {
-        IngressoResponse response = ingressoService.comprarIngresso(usuario, request);
+        if (chaveIdempotencia == null || chaveIdempotencia.isBlank()) {
+            return comprar(usuario, request, null);
+        }
+        
+        String assinatura = request.getEventoId() + ":" + request.getQuantidade() + ":" + request.getPaymentMethod();
+        return idempotenciaService.executar(usuario.getId(), chaveIdempotencia, assinatura,
+                () -> comprar(usuario, request, chaveIdempotencia),
+                () -> ingressoService.getIngressoPorChaveIdempotencia(usuario, chaveIdempotencia)
+                        .<ResponseEntity<?>>map(ingresso -> ResponseEntity.status(201).body(ingresso)));
+    }
+    
+    private ResponseEntity<?> comprar(Usuario usuario, CompraIngressoRequest request, String chaveIdempotencia) {
+        if (compraAssincronaService.isHabilitada()) {
+            CompraStatusResponse compra = compraAssincronaService.enfileirar(usuario, request, chaveIdempotencia);
+            return ResponseEntity.status(202).body(compra);
+        }
+        
+        IngressoResponse response = ingressoService.comprarIngresso(usuario, request, chaveIdempotencia);
+        filaEsperaService.concluir(request.getEventoId(), usuario);
         return ResponseEntity.status(201).body(response);
     }
     
+    @GetMapping("/compras/{compraId}")
+    @Operation(summary = "Consultar compra", description = "Retorna o andamento de uma compra feita no modo assíncrono")
+    public ResponseEntity<CompraStatusResponse> getCompra(
+            @PathVariable String compraId,
+            @AuthenticationPrincipal Usuario usuario) {
+        return ResponseEntity.ok(compraAssincronaService.getStatus(compraId, usuario));
+    }
+    
     @GetMapping("/me")
     @Operation(summary = "Listar meus ingressos", description = "Lista todos os ingressos do usuário autenticado")
     public ResponseEntity<List<IngressoResponse>> getMeusIngressos(@AuthenticationPrincipal Usuario usuario) {
@@ -66,6 +114,56 @@ public class IngressoController {
         return ResponseEntity.ok(ingresso);
     }
     
+    @GetMapping("/codigo/{codigo}/qr.png")
+    @Operation(summary = "QR Code do ingresso", description = "Retorna o PNG do QR Code de um ingresso, com o token assinado " +
+            "validado pelos leitores da portaria. O cliente revalida a cópia em cache pelo ETag")
+    public ResponseEntity<byte[]> getQRCode(
+            @PathVariable String codigo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Só renderiza códigos de ingressos existentes, para que o cache não seja poluído com códigos inventados
+        Optional<QRCodeService.QrCodeIngresso> qrCode = qrCodeService.getQRCode(codigo);
+        if (qrCode.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        String etag = qrCode.get().getEtag();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(304).eTag(etag).header(HttpHeaders.CACHE_CONTROL, CACHE_QR_CODE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_QR_CODE)
+                .body(qrCode.get().getPng());
+    }
+    
+    @GetMapping("/admin/verificacao/chave")
+    @Operation(summary = "Chave dos leitores", description = "Chave HMAC para os leitores da portaria validarem " +
+            "o token dos QR Codes sem consultar o servidor (apenas para administradores)")
+    public ResponseEntity<Map<String, Object>> getChaveVerificacao(@AuthenticationPrincipal Usuario usuario) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(verificacaoIngressoService.getChaveVerificacao());
+    }
+    
+    @GetMapping("/admin/verificacao/eventos/{eventoId}/revogados")
+    @Operation(summary = "Ingressos revogados", description = "Lista binária e ordenada das impressões dos ingressos " +
+            "cancelados do evento, sincronizada periodicamente pelos leitores. Com 'desde', só os cancelados depois " +
+            "do instante informado (apenas para administradores)")
+    public ResponseEntity<byte[]> getRevogados(
+            @AuthenticationPrincipal Usuario usuario,
+            @PathVariable Long eventoId,
+            @Parameter(description = "geradoEm da última lista recebida, em ms epoch") @RequestParam(required = false) Long desde) {
+        if (!usuario.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(verificacaoIngressoService.exportarRevogados(eventoId, desde));
+    }
+    
     @PostMapping("/{id}/cancel")
     @Operation(summary = "Cancelar ingresso", description = "Cancela um ingresso do usuário autenticado")
     public ResponseEntity<String> cancelarIngresso(
@@ -0,0 +1,66 @@
+package com.encenape.controller;
+
+import com.encenape.dto.ConfirmarReservaRequest;
+import com.encenape.dto.IngressoResponse;
+import com.encenape.dto.ReservaIngressoRequest;
+import com.encenape.dto.ReservaResponse;
+import com.encenape.model.Usuario;
+import com.encenape.service.FilaEsperaService;
+import com.encenape.service.ReservaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/ingressos/reservas")
+@RequiredArgsConstructor
+@Tag(name = "Reservas", description = "Reserva temporária de ingressos antes do pagamento")
+@SecurityRequirement(name = "bearerAuth")
+public class ReservaController {
+    
+    private final ReservaService reservaService;
+    private final FilaEsperaService filaEsperaService;
+    
+    @PostMapping
+    @Operation(summary = "Reservar ingressos", description = "Reserva ingressos por alguns minutos enquanto o pagamento é concluído")
+    public ResponseEntity<ReservaResponse> criarReserva(
+            @AuthenticationPrincipal Usuario usuario,
+            @Valid @RequestBody ReservaIngressoRequest request) {
+        ReservaResponse response = reservaService.criarReserva(usuario, request);
+        return ResponseEntity.status(201).body(response);
+    }
+    
+    @GetMapping("/{codigo}")
+    @Operation(summary = "Obter reserva", description = "Retorna o estado de uma reserva do usuário")
+    public ResponseEntity<ReservaResponse> getReserva(
+            @PathVariable String codigo,
+            @AuthenticationPrincipal Usuario usuario) {
+        return ResponseEntity.ok(reservaService.getReserva(codigo, usuario));
+    }
+    
+    @PostMapping("/{codigo}/confirmar")
+    @Operation(summary = "Confirmar reserva", description = "Conclui o pagamento e converte a reserva em ingresso")
+    public ResponseEntity<IngressoResponse> confirmarReserva(
+            @PathVariable String codigo,
+            @AuthenticationPrincipal Usuario usuario,
+            @RequestBody(required = false) ConfirmarReservaRequest request) {
+        String paymentMethod = request != null ? request.getPaymentMethod() : "mock";
+        IngressoResponse response = reservaService.confirmarReserva(codigo, usuario, paymentMethod);
+        filaEsperaService.concluir(response.getEventoId(), usuario);
+        return ResponseEntity.status(201).body(response);
+    }
+    
+    @PostMapping("/{codigo}/cancel")
+    @Operation(summary = "Cancelar reserva", description = "Libera os ingressos de uma reserva ainda não confirmada")
+    public ResponseEntity<String> cancelarReserva(
+            @PathVariable String codigo,
+            @AuthenticationPrincipal Usuario usuario) {
+        reservaService.cancelarReserva(codigo, usuario);
+        return ResponseEntity.ok("Reserva cancelada com sucesso");
+    }
+}
@@ -0,0 +1,29 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheMetricasResponse {
+    
+    private List<RegiaoCache> regioes;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegiaoCache {
+        private String nome;
+        // "servico" para as listas do catálogo, "hibernate" para as regiões do cache de segundo nível
+        private String tipo;
+        private Long acertos;
+        private Long falhas;
+        private Double taxaAcerto;
+        private Long tamanho;
+        private Long remocoes;
+    }
+}
@@ -0,0 +1,21 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelamentoEventoResponse {
+    
+    private Long eventoId;
+    private String status;
+    private Long totalIngressos;
+    private Long ingressosCancelados;
+    private String mensagem;
+    private LocalDateTime iniciadoEm;
+    private LocalDateTime concluidoEm;
+}
@@ -0,0 +1,21 @@
+package com.encenape.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInRequest {
+    
+    // Token assinado lido do QR Code; na falta dele, o código digitado
+    private String token;
+    
+    private String codigo;
+    
+    // Pessoas entrando agora; sem valor, todas as restantes do ingresso
+    @Min(value = 1, message = "Quantidade deve ser pelo menos 1")
+    private Integer quantidade;
+}
@@ -0,0 +1,18 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInResponse {
+    
+    private String status;
+    private String codigo;
+    private Integer quantidade;
+    private Integer quantidadeUtilizada;
+    private Integer quantidadeLiberada;
+    private String mensagem;
+}
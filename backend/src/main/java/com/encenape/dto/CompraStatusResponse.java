@@ -0,0 +1,17 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompraStatusResponse {
+    
+    private String compraId;
+    private Long eventoId;
+    private String status;
+    private String mensagem;
+    private IngressoResponse ingresso;
+}
@@ -0,0 +1,13 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmarReservaRequest {
+    
+    private String paymentMethod = "mock";
+}
@@ -0,0 +1,19 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailMetricasResponse {
+    
+    private Integer tamanhoFila;
+    private Integer capacidadeFila;
+    private Integer aguardandoRetentativa;
+    private Integer conexoesAbertas;
+    private Long enviados;
+    private Long falhas;
+    private Long retentativas;
+}
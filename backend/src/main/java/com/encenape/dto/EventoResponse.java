@@ -15,6 +15,8 @@ public class EventoResponse {
     private Long id;
     private String titulo;
     private String descricao;
+    // Início da descrição, nas listagens; 'descricao' só vem no detalhe do evento e no painel
+    private String trechoDescricao;
     private String categoria;
     private String cidade;
     private String local;
@@ -0,0 +1,51 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Linha das listagens de eventos, montada direto pela consulta (SELECT new) com o espaço no mesmo JOIN:
+// sem entidade gerenciada, sem snapshot para dirty checking e sem um SELECT extra por espaço. Da descrição
+// vem o trecho inicial que os cards mostram; o texto completo só vem na listagem do painel de administração.
+// A ordem dos campos é a dos construtores usados nas consultas do EventoRepository.
+@Data
+@AllArgsConstructor
+public class EventoResumo {
+    
+    private Long id;
+    private String titulo;
+    private String trechoDescricao;
+    private String categoria;
+    private String cidade;
+    private String local;
+    private String endereco;
+    private LocalDateTime dataHora;
+    private Integer duracaoMin;
+    private BigDecimal preco;
+    private Integer totalTickets;
+    private Integer ticketsAvailable;
+    private String imagemUrl;
+    private Boolean ativo;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long espacoId;
+    private String espacoNome;
+    private String espacoEndereco;
+    private String espacoCidade;
+    private Integer espacoCapacidade;
+    private Boolean espacoDisponivel;
+    private String descricao;
+    
+    // Listagens públicas: sem a descrição completa
+    public EventoResumo(Long id, String titulo, String trechoDescricao, String categoria, String cidade, String local,
+                        String endereco, LocalDateTime dataHora, Integer duracaoMin, BigDecimal preco, Integer totalTickets,
+                        Integer ticketsAvailable, String imagemUrl, Boolean ativo, LocalDateTime createdAt,
+                        LocalDateTime updatedAt, Long espacoId, String espacoNome, String espacoEndereco,
+                        String espacoCidade, Integer espacoCapacidade, Boolean espacoDisponivel) {
+        this(id, titulo, trechoDescricao, categoria, cidade, local, endereco, dataHora, duracaoMin, preco, totalTickets,
+                ticketsAvailable, imagemUrl, ativo, createdAt, updatedAt, espacoId, espacoNome, espacoEndereco,
+                espacoCidade, espacoCapacidade, espacoDisponivel, null);
+    }
+}
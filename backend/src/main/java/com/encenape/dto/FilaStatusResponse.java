@@ -0,0 +1,16 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilaStatusResponse {
+    
+    private Long eventoId;
+    private Long posicao;
+    private Long posicoesAFrente;
+    private Boolean admitido;
+}
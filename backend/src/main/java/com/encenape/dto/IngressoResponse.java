@@ -16,14 +16,15 @@ public class IngressoResponse {
     private Long usuarioId;
     private Long eventoId;
     private Integer quantidade;
+    private Integer quantidadeUtilizada;
     private String codigo;
-    private String qrCodeUrl;
     private String status;
     private BigDecimal valorTotal;
     private String metodoPagamento;
     private String cancelReason;
     private LocalDateTime createdAt;
     private LocalDateTime canceledAt;
+    private LocalDateTime utilizadoEm;
     private EventoResponse evento;
     private UserResponse usuario;
     
@@ -0,0 +1,19 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Página de uma listagem por cursor. 'proximoCursor' é nulo na última página; 'total' só vem quando pedido.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorResponse<T> {
+    
+    private List<T> conteudo;
+    private String proximoCursor;
+    private Boolean temMais;
+    private Long total;
+}
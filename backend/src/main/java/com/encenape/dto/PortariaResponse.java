@@ -0,0 +1,19 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortariaResponse {
+    
+    private Long eventoId;
+    private Integer ingressos;
+    private Long pessoas;
+    private Long entradas;
+    private LocalDateTime abertaEm;
+}
@@ -0,0 +1,22 @@
+package com.encenape.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaResponse {
+    
+    private String codigo;
+    private Long eventoId;
+    private Integer quantidade;
+    private BigDecimal valorTotal;
+    private String status;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+}
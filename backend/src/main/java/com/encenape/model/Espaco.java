@@ -8,11 +8,14 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "espacos")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "espacos")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -5,12 +5,18 @@ import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// No cache de segundo nível: mudanças de estoque removem só a entrada do evento (ver CatalogoCacheService).
+// O evict não protege contra um leitor que recoloca a linha antiga, então ticketsAvailable de uma entidade
+// vinda do cache pode estar defasado; o estoque exibido é lido da tabela (EventoService.getEstoque).
 @Entity
 @Table(name = "eventos")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "eventos")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -60,7 +66,8 @@ public class Evento {
     private Integer totalTickets = 0;
     
     @Min(value = 0, message = "Tickets disponíveis não pode ser negativo")
-    @Column(name = "tickets_available")
+    // Alterado apenas por UPDATEs atômicos (InventarioService), nunca pelo save da entidade
+    @Column(name = "tickets_available", updatable = false)
     private Integer ticketsAvailable = 0;
     
     @Size(max = 1024, message = "URL da imagem deve ter no máximo 1024 caracteres")
@@ -86,7 +93,11 @@ public class Evento {
     }
     
     public boolean isDisponivel() {
-        return ativo && ticketsAvailable > 0 && dataHora.isAfter(LocalDateTime.now());
+        return isVendaAberta() && ticketsAvailable > 0;
+    }
+    
+    public boolean isVendaAberta() {
+        return ativo && dataHora.isAfter(LocalDateTime.now());
     }
     
     public boolean podeCancelar() {
@@ -11,14 +11,16 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "ingressos")
+@Table(name = "ingressos", uniqueConstraints = @UniqueConstraint(name = "uk_ingressos_usuario_chave", columnNames = {"usuario_id", "chave_idempotencia"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Ingresso {
     
+    // IDs alocados em blocos (pooled-lo) para que os inserts possam ser agrupados em batch pelo Hibernate
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingressos_seq")
+    @SequenceGenerator(name = "ingressos_seq", sequenceName = "ingressos_seq", allocationSize = 100)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -39,10 +41,6 @@ public class Ingresso {
     @Column(unique = true, nullable = false)
     private String codigo;
     
-    @Size(max = 1024, message = "URL do QR Code deve ter no máximo 1024 caracteres")
-    @Column(name = "qr_code_url")
-    private String qrCodeUrl;
-    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private StatusIngresso status = StatusIngresso.ACTIVE;
@@ -57,6 +55,15 @@ public class Ingresso {
     @Column(name = "metodo_pagamento")
     private String metodoPagamento;
     
+    @Size(max = 100, message = "Transação de pagamento deve ter no máximo 100 caracteres")
+    @Column(name = "transacao_pagamento", length = 100)
+    private String transacaoPagamento;
+    
+    // Idempotency-Key enviada na compra; única por usuário para que retries concorrentes não comprem em dobro
+    @Size(max = 100, message = "Chave de idempotência deve ter no máximo 100 caracteres")
+    @Column(name = "chave_idempotencia", length = 100)
+    private String chaveIdempotencia;
+    
     @Column(name = "cancel_reason", columnDefinition = "TEXT")
     private String cancelReason;
     
@@ -66,6 +73,13 @@ public class Ingresso {
     @Column(name = "canceled_at")
     private LocalDateTime canceledAt;
     
+    // Pessoas que já entraram com este ingresso (check-in parcial quando quantidade > 1)
+    @Column(name = "quantidade_utilizada", nullable = false)
+    private Integer quantidadeUtilizada = 0;
+    
+    @Column(name = "utilizado_em")
+    private LocalDateTime utilizadoEm;
+    
     @PrePersist
     public void prePersist() {
         if (codigo == null) {
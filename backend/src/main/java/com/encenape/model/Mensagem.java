@@ -16,8 +16,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Mensagem {
     
+    // IDs alocados em blocos (pooled-lo) para que os inserts possam ser agrupados em batch pelo Hibernate
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mensagens_seq")
+    @SequenceGenerator(name = "mensagens_seq", sequenceName = "mensagens_seq", allocationSize = 100)
     private Long id;
     
     @Size(max = 255, message = "Remetente deve ter no máximo 255 caracteres")
@@ -0,0 +1,79 @@
+package com.encenape.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Envio em massa para os compradores de um evento. 'ultimoUsuarioId' é o checkpoint: o envio avança
+// por usuário em ordem de id e, se cair no meio, é retomado a partir dele.
+@Entity
+@Table(name = "notificacoes_evento", uniqueConstraints = @UniqueConstraint(name = "uk_notificacoes_evento_tipo_chave", columnNames = {"evento_id", "tipo", "chave"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacaoEvento {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Evento é obrigatório")
+    @Column(name = "evento_id", nullable = false)
+    private Long eventoId;
+    
+    @NotNull(message = "Tipo é obrigatório")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoNotificacao tipo;
+    
+    // Identifica envios que só podem acontecer uma vez (no lembrete, a data do evento); única por evento e tipo
+    @Column(length = 100)
+    private String chave;
+    
+    // Conteúdo específico do tipo (as alterações feitas no evento, uma por linha)
+    @Column(columnDefinition = "TEXT")
+    private String dados;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusNotificacao status = StatusNotificacao.PENDING;
+    
+    @Column(name = "ultimo_usuario_id", nullable = false)
+    private Long ultimoUsuarioId = 0L;
+    
+    @Column(nullable = false)
+    private Integer enviados = 0;
+    
+    @Column(nullable = false)
+    private Integer falhas = 0;
+    
+    // Retomadas sem progresso (falha no worker ou posse vencida); zera a cada página concluída
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+    
+    @Column(name = "ultimo_erro", columnDefinition = "TEXT")
+    private String ultimoErro;
+    
+    // Quando PENDING, a partir de quando pode começar; quando PROCESSING, prazo de posse renovado a cada página
+    @Column(nullable = false)
+    private LocalDateTime prazo = LocalDateTime.now();
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "concluido_at")
+    private LocalDateTime concluidoAt;
+    
+    public enum TipoNotificacao {
+        ALTERACAO_EVENTO,
+        LEMBRETE_EVENTO
+    }
+    
+    public enum StatusNotificacao {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
+}
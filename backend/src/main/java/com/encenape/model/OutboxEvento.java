@@ -0,0 +1,69 @@
+package com.encenape.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_eventos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvento {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_eventos_seq")
+    @SequenceGenerator(name = "outbox_eventos_seq", sequenceName = "outbox_eventos_seq", allocationSize = 100)
+    private Long id;
+    
+    @NotNull(message = "Tipo é obrigatório")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoOutbox tipo;
+    
+    // Id do ingresso; vazio nos reembolsos de compras que não chegaram a ser gravadas
+    @Column(name = "referencia_id")
+    private Long referenciaId;
+    
+    // Só nos reembolsos: a cobrança a estornar e o valor
+    @Column(name = "transacao_pagamento", length = 100)
+    private String transacaoPagamento;
+    
+    @Column(precision = 10, scale = 2)
+    private BigDecimal valor;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusOutbox status = StatusOutbox.PENDING;
+    
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+    
+    // Também serve de prazo de posse enquanto o evento está PROCESSING
+    @Column(name = "proxima_tentativa", nullable = false)
+    private LocalDateTime proximaTentativa = LocalDateTime.now();
+    
+    @Column(name = "ultimo_erro", columnDefinition = "TEXT")
+    private String ultimoErro;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "processado_at")
+    private LocalDateTime processadoAt;
+    
+    public enum TipoOutbox {
+        CONFIRMACAO_COMPRA,
+        CANCELAMENTO_EVENTO,
+        REEMBOLSO
+    }
+    
+    public enum StatusOutbox {
+        PENDING, PROCESSING, SENT, FAILED
+    }
+}
@@ -0,0 +1,69 @@
+package com.encenape.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "reservas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reserva {
+    
+    // IDs alocados em blocos (pooled-lo) para que os inserts possam ser agrupados em batch pelo Hibernate
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_seq")
+    @SequenceGenerator(name = "reservas_seq", sequenceName = "reservas_seq", allocationSize = 100)
+    private Long id;
+    
+    @Size(max = 200, message = "Código deve ter no máximo 200 caracteres")
+    @Column(unique = true, nullable = false)
+    private String codigo;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "evento_id", nullable = false)
+    private Evento evento;
+    
+    @NotNull(message = "Quantidade é obrigatória")
+    @Min(value = 1, message = "Quantidade deve ser pelo menos 1")
+    @Column(nullable = false)
+    private Integer quantidade = 1;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusReserva status = StatusReserva.ACTIVE;
+    
+    @NotNull(message = "Data de expiração é obrigatória")
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @PrePersist
+    public void prePersist() {
+        if (codigo == null) {
+            this.codigo = UUID.randomUUID().toString();
+        }
+    }
+    
+    public boolean isAtiva() {
+        return status == StatusReserva.ACTIVE && expiresAt.isAfter(LocalDateTime.now());
+    }
+    
+    public enum StatusReserva {
+        ACTIVE, CONFIRMED, EXPIRED, CANCELED
+    }
+}
@@ -1,46 +1,194 @@
 package com.encenape.repository;
 
+import com.encenape.dto.EventoResumo;
 import com.encenape.model.Evento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface EventoRepository extends JpaRepository<Evento, Long> {
     
-    @Query("SELECT e FROM Evento e WHERE e.ativo = true AND e.dataHora > :now ORDER BY e.dataHora ASC")
-    List<Evento> findProximosEventos(@Param("now") LocalDateTime now);
+    String ESPACO_ESTOQUE = "eventos_estoque";
     
-    @Query("SELECT e FROM Evento e WHERE e.ativo = true AND e.dataHora > :now ORDER BY e.dataHora ASC")
-    Page<Evento> findProximosEventosPaginados(@Param("now") LocalDateTime now, Pageable pageable);
+    // Caracteres da descrição que vão nas listagens (os cards mostram os 100 primeiros)
+    int TAMANHO_TRECHO_DESCRICAO = 200;
     
-    @Query("SELECT e FROM Evento e WHERE e.ativo = true AND " +
+    // Projeção das listagens: colunas do evento e do espaço num só SELECT, na ordem do construtor de EventoResumo
+    String COLUNAS_RESUMO = "e.id, e.titulo, " +
+            "SUBSTRING(e.descricao, 1, " + TAMANHO_TRECHO_DESCRICAO + "), e.categoria, e.cidade, e.local, e.endereco, " +
+            "e.dataHora, e.duracaoMin, e.preco, e.totalTickets, e.ticketsAvailable, e.imagemUrl, e.ativo, " +
+            "e.createdAt, e.updatedAt, s.id, s.nome, s.endereco, s.cidade, s.capacidade, s.disponivel";
+    
+    String SELECT_RESUMO = "SELECT new com.encenape.dto.EventoResumo(" + COLUNAS_RESUMO + ") FROM Evento e LEFT JOIN e.espaco s ";
+    
+    // No painel de administração a descrição vem inteira, como no formulário de edição
+    String SELECT_RESUMO_COMPLETO = "SELECT new com.encenape.dto.EventoResumo(" + COLUNAS_RESUMO + ", e.descricao) " +
+            "FROM Evento e LEFT JOIN e.espaco s ";
+    
+    List<Evento> findByAtivoTrue();
+    
+    // Só id e data, para a agenda de lembretes em memória
+    @Query("SELECT e.id, e.dataHora FROM Evento e WHERE e.ativo = true AND e.dataHora > :now")
+    List<Object[]> findAgendaProximosEventos(@Param("now") LocalDateTime now);
+    
+    @Query(value = SELECT_RESUMO + "WHERE e.ativo = true AND e.dataHora > :now ORDER BY e.dataHora ASC",
+           countQuery = "SELECT COUNT(e) FROM Evento e WHERE e.ativo = true AND e.dataHora > :now")
+    Page<EventoResumo> findProximosEventosPaginados(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query(value = SELECT_RESUMO + "WHERE e.ativo = true AND " +
            "(:categoria IS NULL OR e.categoria = :categoria) AND " +
            "(:cidade IS NULL OR e.cidade = :cidade) AND " +
            "(:dataInicio IS NULL OR e.dataHora >= :dataInicio) AND " +
            "(:dataFim IS NULL OR e.dataHora <= :dataFim) AND " +
            "(:search IS NULL OR LOWER(e.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(e.descricao) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-           "ORDER BY e.dataHora ASC")
-    Page<Evento> findEventosComFiltros(@Param("categoria") String categoria,
+           "ORDER BY e.dataHora ASC",
+           countQuery = "SELECT COUNT(e) FROM Evento e WHERE e.ativo = true AND " +
+           "(:categoria IS NULL OR e.categoria = :categoria) AND " +
+           "(:cidade IS NULL OR e.cidade = :cidade) AND " +
+           "(:dataInicio IS NULL OR e.dataHora >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR e.dataHora <= :dataFim) AND " +
+           "(:search IS NULL OR LOWER(e.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.descricao) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<EventoResumo> findEventosComFiltros(@Param("categoria") String categoria,
+                                             @Param("cidade") String cidade,
+                                             @Param("dataInicio") LocalDateTime dataInicio,
+                                             @Param("dataFim") LocalDateTime dataFim,
+                                             @Param("search") String search,
+                                             Pageable pageable);
+    
+    // Paginação por keyset em (dataHora, id): a página começa logo depois do cursor, sem OFFSET, e o Slice
+    // busca um evento a mais para saber se há próxima página, sem COUNT
+    @Query(SELECT_RESUMO + "WHERE e.ativo = true AND e.dataHora > :now AND " +
+           "(e.dataHora > :cursorData OR (e.dataHora = :cursorData AND e.id > :cursorId)) " +
+           "ORDER BY e.dataHora ASC, e.id ASC")
+    Slice<EventoResumo> findProximosEventosAposCursor(@Param("now") LocalDateTime now,
+                                                      @Param("cursorData") LocalDateTime cursorData,
+                                                      @Param("cursorId") Long cursorId,
+                                                      Pageable pageable);
+    
+    @Query("SELECT COUNT(e) FROM Evento e WHERE e.ativo = true AND e.dataHora > :now")
+    long countProximosEventos(@Param("now") LocalDateTime now);
+    
+    @Query(SELECT_RESUMO + "WHERE e.ativo = true AND " +
+           "(:categoria IS NULL OR e.categoria = :categoria) AND " +
+           "(:cidade IS NULL OR e.cidade = :cidade) AND " +
+           "(:dataInicio IS NULL OR e.dataHora >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR e.dataHora <= :dataFim) AND " +
+           "(:search IS NULL OR LOWER(e.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.descricao) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(e.dataHora > :cursorData OR (e.dataHora = :cursorData AND e.id > :cursorId)) " +
+           "ORDER BY e.dataHora ASC, e.id ASC")
+    Slice<EventoResumo> findEventosComFiltrosAposCursor(@Param("categoria") String categoria,
+                                                        @Param("cidade") String cidade,
+                                                        @Param("dataInicio") LocalDateTime dataInicio,
+                                                        @Param("dataFim") LocalDateTime dataFim,
+                                                        @Param("search") String search,
+                                                        @Param("cursorData") LocalDateTime cursorData,
+                                                        @Param("cursorId") Long cursorId,
+                                                        Pageable pageable);
+    
+    @Query("SELECT COUNT(e) FROM Evento e WHERE e.ativo = true AND " +
+           "(:categoria IS NULL OR e.categoria = :categoria) AND " +
+           "(:cidade IS NULL OR e.cidade = :cidade) AND " +
+           "(:dataInicio IS NULL OR e.dataHora >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR e.dataHora <= :dataFim) AND " +
+           "(:search IS NULL OR LOWER(e.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.descricao) LIKE LOWER(CONCAT('%', :search, '%')))")
+    long countEventosComFiltros(@Param("categoria") String categoria,
+                                @Param("cidade") String cidade,
+                                @Param("dataInicio") LocalDateTime dataInicio,
+                                @Param("dataFim") LocalDateTime dataFim,
+                                @Param("search") String search);
+    
+    // Busca pelo índice FULLTEXT, mais relevantes primeiro; 'termos' vem de AnalisadorTexto.consultaBooleana.
+    // O Pageable não pode ter ordenação: a ordem é a da relevância. Só os ids; a página vem de findResumosPorIds.
+    @Query(value = "SELECT e.id FROM eventos e WHERE e.ativo = true AND " +
+           "MATCH(e.titulo, e.descricao) AGAINST (:termos IN BOOLEAN MODE) AND " +
+           "(:categoria IS NULL OR e.categoria = :categoria) AND " +
+           "(:cidade IS NULL OR e.cidade = :cidade) AND " +
+           "(:dataInicio IS NULL OR e.data_hora >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR e.data_hora <= :dataFim) " +
+           "ORDER BY MATCH(e.titulo, e.descricao) AGAINST (:termos IN BOOLEAN MODE) DESC, e.data_hora ASC",
+           countQuery = "SELECT COUNT(*) FROM eventos e WHERE e.ativo = true AND " +
+           "MATCH(e.titulo, e.descricao) AGAINST (:termos IN BOOLEAN MODE) AND " +
+           "(:categoria IS NULL OR e.categoria = :categoria) AND " +
+           "(:cidade IS NULL OR e.cidade = :cidade) AND " +
+           "(:dataInicio IS NULL OR e.data_hora >= :dataInicio) AND " +
+           "(:dataFim IS NULL OR e.data_hora <= :dataFim)",
+           nativeQuery = true)
+    Page<Long> findIdsEventosFullText(@Param("categoria") String categoria,
                                       @Param("cidade") String cidade,
                                       @Param("dataInicio") LocalDateTime dataInicio,
                                       @Param("dataFim") LocalDateTime dataFim,
-                                      @Param("search") String search,
+                                      @Param("termos") String termos,
                                       Pageable pageable);
     
+    // Sem ordem definida: quem chama reordena pela lista de ids
+    @Query(SELECT_RESUMO + "WHERE e.id IN :ids")
+    List<EventoResumo> findResumosPorIds(@Param("ids") List<Long> ids);
+    
+    // Listagem do painel de administração, ativos e inativos
+    @Query(value = SELECT_RESUMO_COMPLETO, countQuery = "SELECT COUNT(e) FROM Evento e")
+    Page<EventoResumo> findResumosCompletos(Pageable pageable);
+    
     @Query("SELECT DISTINCT e.categoria FROM Evento e WHERE e.ativo = true AND e.categoria IS NOT NULL ORDER BY e.categoria")
     List<String> findCategoriasDistintas();
     
     @Query("SELECT DISTINCT e.cidade FROM Evento e WHERE e.ativo = true AND e.cidade IS NOT NULL ORDER BY e.cidade")
     List<String> findCidadesDistintas();
     
-    @Query("SELECT e FROM Evento e WHERE e.ativo = true AND e.ticketsAvailable > 0 AND e.dataHora > :now ORDER BY e.dataHora ASC")
-    List<Evento> findEventosDisponiveis(@Param("now") LocalDateTime now);
+    // Só os ids, para as listas em cache; os eventos vêm do cache de segundo nível
+    @Query("SELECT e.id FROM Evento e WHERE e.ativo = true AND e.dataHora > :now ORDER BY e.dataHora ASC")
+    List<Long> findIdsProximosEventos(@Param("now") LocalDateTime now);
+    
+    @Query("SELECT e.id FROM Evento e WHERE e.ativo = true AND e.ticketsAvailable > 0 AND e.dataHora > :now ORDER BY e.dataHora ASC")
+    List<Long> findIdsEventosDisponiveis(@Param("now") LocalDateTime now);
+    
+    // Estoque direto da tabela, para quem leu os eventos do cache de segundo nível (ver EventoService)
+    @Query("SELECT e.id, e.ticketsAvailable FROM Evento e WHERE e.id IN :ids")
+    List<Object[]> findTicketsAvailablePorIds(@Param("ids") Collection<Long> ids);
+    
+    // As alterações de estoque são SQL nativo com um espaço de consulta próprio: um UPDATE em JPQL faria o
+    // Hibernate esvaziar a região inteira de Evento no cache de segundo nível a cada venda. Quem altera o
+    // estoque remove a entrada do evento depois do commit (CatalogoCacheService.invalidarEvento).
+    
+    // Decremento atômico: só afeta a linha se houver estoque suficiente e o evento estiver ativo
+    @Modifying
+    @Query(value = "UPDATE eventos SET tickets_available = tickets_available - :quantidade " +
+           "WHERE id = :id AND tickets_available >= :quantidade AND ativo = true", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    int decrementarTicketsDisponiveis(@Param("id") Long id, @Param("quantidade") int quantidade);
+    
+    @Modifying
+    @Query(value = "UPDATE eventos SET tickets_available = tickets_available + :quantidade WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    int incrementarTicketsDisponiveis(@Param("id") Long id, @Param("quantidade") int quantidade);
+    
+    @Modifying
+    @Query(value = "UPDATE eventos SET tickets_available = GREATEST(tickets_available + :delta, 0) WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    int ajustarTicketsDisponiveis(@Param("id") Long id, @Param("delta") int delta);
+    
+    @Modifying
+    @Query(value = "UPDATE eventos SET tickets_available = :valor WHERE id = :id", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    int atualizarTicketsDisponiveis(@Param("id") Long id, @Param("valor") int valor);
+    
+    @Modifying
+    @Query("UPDATE Evento e SET e.ativo = false WHERE e.id = :id")
+    int desativar(@Param("id") Long id);
 }
@@ -35,6 +35,21 @@ public interface FAQRepository extends JpaRepository<FAQ, Long> {
            "ORDER BY f.ordem ASC, f.id ASC")
     Page<FAQ> searchByQueryPaginado(@Param("query") String query, Pageable pageable);
     
+    // Variantes pelo índice FULLTEXT, mais relevantes primeiro; 'termos' vem de AnalisadorTexto.consultaBooleana
+    @Query(value = "SELECT * FROM faq f WHERE f.ativo = true AND " +
+           "MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE) " +
+           "ORDER BY MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE) DESC, f.ordem ASC, f.id ASC",
+           nativeQuery = true)
+    List<FAQ> searchFullText(@Param("termos") String termos);
+    
+    @Query(value = "SELECT * FROM faq f WHERE f.ativo = true AND " +
+           "MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE) " +
+           "ORDER BY MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE) DESC, f.ordem ASC, f.id ASC",
+           countQuery = "SELECT COUNT(*) FROM faq f WHERE f.ativo = true AND " +
+           "MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<FAQ> searchFullTextPaginado(@Param("termos") String termos, Pageable pageable);
+    
     @Query("SELECT DISTINCT f.categoria FROM FAQ f WHERE f.ativo = true AND f.categoria IS NOT NULL ORDER BY f.categoria")
     List<String> findCategoriasDistintas();
     
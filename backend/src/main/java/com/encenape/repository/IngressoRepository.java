@@ -2,15 +2,18 @@ package com.encenape.repository;
 
 import com.encenape.model.Ingresso;
 import com.encenape.model.Usuario;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,16 +32,80 @@ public interface IngressoRepository extends JpaRepository<Ingresso, Long> {
     
     Optional<Ingresso> findByCodigo(String codigo);
     
+    boolean existsByCodigo(String codigo);
+    
+    Optional<Ingresso> findByUsuarioIdAndChaveIdempotencia(Long usuarioId, String chaveIdempotencia);
+    
+    // Compras já gravadas com alguma das chaves (de qualquer usuário; quem chama confere o usuário), para o lote assíncrono
+    @Query("SELECT i FROM Ingresso i JOIN FETCH i.usuario JOIN FETCH i.evento WHERE i.chaveIdempotencia IN :chaves")
+    List<Ingresso> findByChaveIdempotenciaIn(@Param("chaves") Collection<String> chaves);
+    
+    @Query("SELECT i FROM Ingresso i JOIN FETCH i.usuario JOIN FETCH i.evento WHERE i.id = :id")
+    Optional<Ingresso> findByIdComDetalhes(@Param("id") Long id);
+    
+    @Query("SELECT i FROM Ingresso i JOIN FETCH i.evento WHERE i.codigo = :codigo")
+    Optional<Ingresso> findByCodigoComEvento(@Param("codigo") String codigo);
+    
     @Query("SELECT COUNT(i) FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE'")
     Long countIngressosAtivosByEvento(@Param("eventoId") Long eventoId);
     
+    @Query("SELECT COALESCE(SUM(i.quantidade), 0) FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE'")
+    long somarQuantidadeAtivaPorEvento(@Param("eventoId") Long eventoId);
+    
     @Query("SELECT i FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE'")
     List<Ingresso> findAtivosByEvento(@Param("eventoId") Long eventoId);
     
     @Modifying
-    @Query("UPDATE Ingresso i SET i.status = 'CANCELED', i.canceledAt = :now, i.cancelReason = :motivo WHERE i.id = :id")
+    @Query("UPDATE Ingresso i SET i.status = 'CANCELED', i.canceledAt = :now, i.cancelReason = :motivo " +
+           "WHERE i.id = :id AND i.status = 'ACTIVE'")
     int cancelarIngresso(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("motivo") String motivo);
     
+    // Página por keyset (id > ultimoId) com lock só nas linhas lidas, para o cancelamento em massa de um evento
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE' AND i.id > :ultimoId ORDER BY i.id")
+    List<Ingresso> findAtivosPorEventoAposId(@Param("eventoId") Long eventoId, @Param("ultimoId") Long ultimoId, Pageable pageable);
+    
+    // Só id, código, quantidade e quantidade utilizada, sem lock nem entidades no contexto de persistência,
+    // para exportar os QR Codes de um evento e carregar o índice do check-in
+    @Query("SELECT i.id, i.codigo, i.quantidade, i.quantidadeUtilizada FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE' AND i.id > :ultimoId ORDER BY i.id")
+    List<Object[]> findCodigosAtivosPorEventoAposId(@Param("eventoId") Long eventoId, @Param("ultimoId") Long ultimoId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Ingresso i SET i.status = 'CANCELED', i.canceledAt = :now, i.cancelReason = :motivo " +
+           "WHERE i.id IN :ids AND i.status = 'ACTIVE'")
+    int cancelarIngressos(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now, @Param("motivo") String motivo);
+    
+    // Write-behind do check-in: grava o total absoluto, então reenviar o mesmo valor é inofensivo
+    @Modifying
+    @Query("UPDATE Ingresso i SET i.quantidadeUtilizada = :quantidade, i.utilizadoEm = COALESCE(i.utilizadoEm, :agora) " +
+           "WHERE i.id IN :ids AND i.quantidadeUtilizada < :quantidade")
+    int registrarUtilizacao(@Param("ids") List<Long> ids, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+    
+    // Check-in direto no banco, para ingressos fora do índice em memória (comprados depois da abertura da portaria)
+    @Modifying
+    @Query("UPDATE Ingresso i SET i.quantidadeUtilizada = i.quantidadeUtilizada + :quantidade, " +
+           "i.utilizadoEm = COALESCE(i.utilizadoEm, :agora) " +
+           "WHERE i.id = :id AND i.status = 'ACTIVE' AND i.quantidadeUtilizada + :quantidade <= i.quantidade")
+    int utilizar(@Param("id") Long id, @Param("quantidade") int quantidade, @Param("agora") LocalDateTime agora);
+    
+    // Compradores distintos com ingresso ativo no evento (id, nome, email), em páginas por keyset no id do usuário
+    @Query("SELECT u.id, u.nome, u.email FROM Ingresso i JOIN i.usuario u " +
+           "WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE' AND u.id > :ultimoUsuarioId " +
+           "GROUP BY u.id, u.nome, u.email ORDER BY u.id")
+    List<Object[]> findDestinatariosAtivosPorEvento(@Param("eventoId") Long eventoId,
+                                                    @Param("ultimoUsuarioId") Long ultimoUsuarioId,
+                                                    Pageable pageable);
+    
+    // Ingressos ativos de uma página de compradores (usuário, código, quantidade), para o lembrete com QR Codes
+    @Query("SELECT i.usuario.id, i.codigo, i.quantidade FROM Ingresso i " +
+           "WHERE i.evento.id = :eventoId AND i.status = 'ACTIVE' AND i.usuario.id IN :usuarioIds ORDER BY i.id")
+    List<Object[]> findCodigosAtivosPorEventoEUsuarios(@Param("eventoId") Long eventoId, @Param("usuarioIds") List<Long> usuarioIds);
+    
+    // Códigos cancelados de um evento (todos, ou só os cancelados depois de 'desde'), para a lista de revogação dos leitores
+    @Query("SELECT i.codigo FROM Ingresso i WHERE i.evento.id = :eventoId AND i.status = 'CANCELED' " +
+           "AND (:desde IS NULL OR i.canceledAt > :desde)")
+    List<String> findCodigosCanceladosPorEventoDesde(@Param("eventoId") Long eventoId, @Param("desde") LocalDateTime desde);
+    
     @Query("SELECT i FROM Ingresso i WHERE i.usuario = :usuario AND i.evento.dataHora > :now ORDER BY i.createdAt DESC")
     List<Ingresso> findFuturosByUsuario(@Param("usuario") Usuario usuario, @Param("now") LocalDateTime now);
 }
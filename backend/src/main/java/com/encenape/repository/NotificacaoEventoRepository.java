@@ -0,0 +1,61 @@
+package com.encenape.repository;
+
+import com.encenape.model.NotificacaoEvento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificacaoEventoRepository extends JpaRepository<NotificacaoEvento, Long> {
+    
+    boolean existsByEventoIdAndTipoAndChave(Long eventoId, NotificacaoEvento.TipoNotificacao tipo, String chave);
+    
+    // Pendentes e também os PROCESSING cujo prazo de posse expirou (envio interrompido por queda)
+    @Query("SELECT n.id FROM NotificacaoEvento n WHERE n.status IN ('PENDING', 'PROCESSING') " +
+           "AND n.prazo <= :now ORDER BY n.id ASC")
+    List<Long> findIdsProntos(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Retomar um PROCESSING com prazo vencido conta como tentativa: o worker anterior caiu ou travou nele
+    @Modifying
+    // (tentativas vem primeiro no SET: o MySQL avalia as atribuições em ordem e já veria o status novo)
+    @Query("UPDATE NotificacaoEvento n SET " +
+           "n.tentativas = CASE WHEN n.status = 'PROCESSING' THEN n.tentativas + 1 ELSE n.tentativas END, " +
+           "n.status = 'PROCESSING', n.prazo = :prazo " +
+           "WHERE n.id = :id AND n.status IN ('PENDING', 'PROCESSING') AND n.prazo <= :now")
+    int reivindicar(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("prazo") LocalDateTime prazo);
+    
+    // Página concluída: avança o checkpoint e zera as tentativas, que contam só retomadas sem progresso
+    @Modifying
+    @Query("UPDATE NotificacaoEvento n SET n.ultimoUsuarioId = :ultimoUsuarioId, n.enviados = n.enviados + :enviados, " +
+           "n.falhas = n.falhas + :falhas, n.tentativas = 0, n.prazo = :prazo WHERE n.id = :id")
+    int registrarProgresso(@Param("id") Long id,
+                           @Param("ultimoUsuarioId") Long ultimoUsuarioId,
+                           @Param("enviados") int enviados,
+                           @Param("falhas") int falhas,
+                           @Param("prazo") LocalDateTime prazo);
+    
+    @Modifying
+    @Query("UPDATE NotificacaoEvento n SET n.status = 'COMPLETED', n.concluidoAt = :now WHERE n.id = :id")
+    int marcarConcluida(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // Falha no worker: volta a PENDING com backoff a partir do checkpoint, ou para como FAILED
+    @Modifying
+    @Query("UPDATE NotificacaoEvento n SET n.status = :status, n.tentativas = n.tentativas + 1, " +
+           "n.prazo = :prazo, n.ultimoErro = :erro WHERE n.id = :id")
+    int registrarFalha(@Param("id") Long id,
+                       @Param("status") NotificacaoEvento.StatusNotificacao status,
+                       @Param("prazo") LocalDateTime prazo,
+                       @Param("erro") String erro);
+    
+    // Retomada de novo depois de derrubar ou travar o worker até esgotar as tentativas
+    @Modifying
+    @Query("UPDATE NotificacaoEvento n SET n.status = 'FAILED', n.ultimoErro = :erro " +
+           "WHERE n.id = :id AND n.status = 'PROCESSING' AND n.tentativas >= :maxTentativas")
+    int abandonarEsgotada(@Param("id") Long id, @Param("maxTentativas") int maxTentativas, @Param("erro") String erro);
+}
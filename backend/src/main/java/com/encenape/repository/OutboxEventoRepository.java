@@ -0,0 +1,60 @@
+package com.encenape.repository;
+
+import com.encenape.model.OutboxEvento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+    
+    // Pendentes vencidos e também os PROCESSING cujo prazo de posse expirou (dispatcher que caiu no meio).
+    // Reembolsos ficam de fora: são enviados em lote pelo PagamentoService
+    @Query("SELECT o.id FROM OutboxEvento o WHERE o.tipo <> 'REEMBOLSO' AND o.status IN ('PENDING', 'PROCESSING') " +
+           "AND o.proximaTentativa <= :now ORDER BY o.proximaTentativa ASC")
+    List<Long> findIdsProntos(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query("SELECT o.id FROM OutboxEvento o WHERE o.tipo = 'REEMBOLSO' AND o.status IN ('PENDING', 'PROCESSING') " +
+           "AND o.proximaTentativa <= :now ORDER BY o.proximaTentativa ASC")
+    List<Long> findIdsReembolsosProntos(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Reivindicar um PROCESSING com prazo vencido conta como tentativa: o worker anterior caiu ou travou nele,
+    // e sem isso um evento que derruba o worker seria reivindicado para sempre sem chegar a FAILED
+    @Modifying
+    // (tentativas vem primeiro no SET: o MySQL avalia as atribuições em ordem e já veria o status novo)
+    @Query("UPDATE OutboxEvento o SET " +
+           "o.tentativas = CASE WHEN o.status = 'PROCESSING' THEN o.tentativas + 1 ELSE o.tentativas END, " +
+           "o.status = 'PROCESSING', o.proximaTentativa = :prazo " +
+           "WHERE o.id = :id AND o.status IN ('PENDING', 'PROCESSING') AND o.proximaTentativa <= :now")
+    int reivindicar(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("prazo") LocalDateTime prazo);
+    
+    // Eventos que esgotaram as tentativas na reivindicação (o worker nunca chegou a registrar a falha)
+    @Modifying
+    @Query("UPDATE OutboxEvento o SET o.status = 'FAILED', o.ultimoErro = :erro " +
+           "WHERE o.id = :id AND o.status = 'PROCESSING' AND o.tentativas >= :maxTentativas")
+    int abandonarEsgotado(@Param("id") Long id, @Param("maxTentativas") int maxTentativas, @Param("erro") String erro);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvento o SET o.status = 'SENT', o.processadoAt = :now WHERE o.id = :id")
+    int marcarEnviado(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvento o SET o.status = :status, o.tentativas = o.tentativas + 1, " +
+           "o.proximaTentativa = :proximaTentativa, o.ultimoErro = :erro WHERE o.id = :id")
+    int registrarFalha(@Param("id") Long id,
+                       @Param("status") OutboxEvento.StatusOutbox status,
+                       @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                       @Param("erro") String erro);
+    
+    @Query("SELECT COUNT(o) FROM OutboxEvento o WHERE o.status IN ('PENDING', 'PROCESSING')")
+    long countPendentes();
+    
+    @Query("SELECT COUNT(o) FROM OutboxEvento o WHERE o.tipo = 'REEMBOLSO' AND o.status IN ('PENDING', 'PROCESSING')")
+    long countReembolsosPendentes();
+}
@@ -0,0 +1,39 @@
+package com.encenape.repository;
+
+import com.encenape.model.Reserva;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+    
+    // O evento vem junto porque a confirmação usa o preço fora de qualquer transação
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.evento WHERE r.codigo = :codigo")
+    Optional<Reserva> findByCodigoComEvento(@Param("codigo") String codigo);
+    
+    @Query("SELECT r FROM Reserva r WHERE r.status = 'ACTIVE'")
+    List<Reserva> findAtivas();
+    
+    @Query("SELECT COALESCE(SUM(r.quantidade), 0) FROM Reserva r WHERE r.evento.id = :eventoId AND r.status = 'ACTIVE'")
+    long somarQuantidadeAtivaPorEvento(@Param("eventoId") Long eventoId);
+    
+    // Transições condicionais: confirmação e expiração concorrentes não podem ambas vencer
+    @Modifying
+    @Query("UPDATE Reserva r SET r.status = 'CONFIRMED' WHERE r.id = :id AND r.status = 'ACTIVE' AND r.expiresAt > :now")
+    int confirmar(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Reserva r SET r.status = :status WHERE r.id = :id AND r.status = 'ACTIVE'")
+    int encerrar(@Param("id") Long id, @Param("status") Reserva.StatusReserva status);
+    
+    @Modifying
+    @Query("UPDATE Reserva r SET r.status = 'CANCELED' WHERE r.evento.id = :eventoId AND r.status = 'ACTIVE'")
+    int cancelarAtivasPorEvento(@Param("eventoId") Long eventoId);
+}
@@ -0,0 +1,21 @@
+package com.encenape.security;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+// Dados de um ingresso lidos de um token assinado já verificado
+@Getter
+@RequiredArgsConstructor
+public class IngressoToken {
+
+    private final String codigo;
+    private final Long eventoId;
+    private final int quantidade;
+    private final Instant expiraEm;
+
+    public boolean isExpirado(Instant agora) {
+        return agora.isAfter(expiraEm);
+    }
+}
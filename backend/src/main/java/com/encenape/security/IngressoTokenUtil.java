@@ -0,0 +1,142 @@
+package com.encenape.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+// Token compacto e assinado gravado no QR Code, para que os leitores da portaria validem ingressos sem
+// consultar o banco. Formato binário em base64url sem padding:
+//   formato (1) | código (16 bytes do UUID, ou 1 byte de tamanho + UTF-8) | eventoId (8) | quantidade (2)
+//   | expiração em segundos epoch (4) | HMAC-SHA256 truncado (16)
+// A chave é derivada do segredo do JWT, então pode ser entregue aos leitores sem expor a de login.
+@Component
+@RequiredArgsConstructor
+public class IngressoTokenUtil {
+
+    private static final String FINALIDADE = "encenape-ingresso-qr-v1";
+    private static final byte FORMATO_UUID = 1;
+    private static final byte FORMATO_TEXTO = 2;
+    private static final int TAMANHO_ASSINATURA = 16;
+
+    private final JwtUtil jwtUtil;
+
+    private byte[] chave;
+    private ThreadLocal<Mac> mac;
+
+    @PostConstruct
+    public void iniciar() {
+        chave = jwtUtil.derivarChave(FINALIDADE);
+        SecretKeySpec spec = new SecretKeySpec(chave, "HmacSHA256");
+        // Mac não é thread-safe; uma instância por thread evita sincronizar a validação
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instancia = Mac.getInstance("HmacSHA256");
+                instancia.init(spec);
+                return instancia;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 indisponível", e);
+            }
+        });
+    }
+
+    public String gerarToken(String codigo, Long eventoId, int quantidade, Instant expiraEm) {
+        // Gravada em 2 bytes com putShort
+        if (quantidade < 1 || quantidade > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Quantidade fora do intervalo do token: " + quantidade);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 1 + 255 + 8 + 2 + 4 + TAMANHO_ASSINATURA);
+        UUID uuid = paraUuid(codigo);
+        if (uuid != null) {
+            buffer.put(FORMATO_UUID).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        } else {
+            byte[] texto = codigo.getBytes(StandardCharsets.UTF_8);
+            if (texto.length > 255) {
+                throw new IllegalArgumentException("Código de ingresso longo demais para o QR Code");
+            }
+            buffer.put(FORMATO_TEXTO).put((byte) texto.length).put(texto);
+        }
+        buffer.putLong(eventoId)
+                .putShort((short) quantidade)
+                .putInt((int) expiraEm.getEpochSecond());
+
+        int tamanhoDados = buffer.position();
+        buffer.put(assinar(buffer.array(), tamanhoDados));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    // Vazio se o token estiver malformado ou a assinatura não conferir; a expiração fica a cargo de quem chama
+    public Optional<IngressoToken> validarToken(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (bytes.length < 1 + 1 + 8 + 2 + 4 + TAMANHO_ASSINATURA) {
+            return Optional.empty();
+        }
+
+        int tamanhoDados = bytes.length - TAMANHO_ASSINATURA;
+        byte[] assinatura = Arrays.copyOfRange(bytes, tamanhoDados, bytes.length);
+        if (!MessageDigest.isEqual(assinatura, assinar(bytes, tamanhoDados))) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, tamanhoDados);
+        String codigo;
+        byte formato = buffer.get();
+        if (formato == FORMATO_UUID && buffer.remaining() >= 16) {
+            codigo = new UUID(buffer.getLong(), buffer.getLong()).toString();
+        } else if (formato == FORMATO_TEXTO) {
+            byte[] texto = new byte[buffer.get() & 0xFF];
+            if (buffer.remaining() < texto.length) {
+                return Optional.empty();
+            }
+            buffer.get(texto);
+            codigo = new String(texto, StandardCharsets.UTF_8);
+        } else {
+            return Optional.empty();
+        }
+        if (buffer.remaining() != 8 + 2 + 4) {
+            return Optional.empty();
+        }
+        Long eventoId = buffer.getLong();
+        int quantidade = buffer.getShort() & 0xFFFF;
+        Instant expiraEm = Instant.ofEpochSecond(buffer.getInt() & 0xFFFFFFFFL);
+        return Optional.of(new IngressoToken(codigo, eventoId, quantidade, expiraEm));
+    }
+
+    // Chave entregue aos leitores para validação local (HMAC-SHA256, assinatura truncada em 16 bytes)
+    public String getChaveVerificacao() {
+        return Base64.getEncoder().encodeToString(chave);
+    }
+
+    private byte[] assinar(byte[] dados, int tamanho) {
+        Mac instancia = mac.get();
+        instancia.update(dados, 0, tamanho);
+        return Arrays.copyOf(instancia.doFinal(), TAMANHO_ASSINATURA);
+    }
+
+    // Só aceita a forma canônica, para que o código reconstruído no leitor seja idêntico ao original
+    private static UUID paraUuid(String codigo) {
+        try {
+            UUID uuid = UUID.fromString(codigo);
+            return uuid.toString().equals(codigo) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -50,6 +50,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    // Status da fila e QR Codes são públicos e muito frequentes: não vale um SELECT de usuário por requisição
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getServletPath();
+        return (path.startsWith("/fila/") && path.endsWith("/status"))
+                || (path.startsWith("/ingressos/codigo/") && path.endsWith("/qr.png"));
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -66,6 +67,8 @@ public class SecurityConfig {
                 .requestMatchers("/faq/**").permitAll()
                 .requestMatchers("/eventos/**").permitAll()
                 .requestMatchers("/mensagens").permitAll()
+                .requestMatchers(HttpMethod.GET, "/fila/*/status").permitAll()
+                .requestMatchers(HttpMethod.GET, "/ingressos/codigo/*/qr.png").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/users/me/**").authenticated()
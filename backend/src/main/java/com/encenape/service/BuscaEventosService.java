@@ -0,0 +1,279 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.repository.EventoRepository;
+import com.encenape.util.AnalisadorTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Índice invertido em memória sobre título e descrição dos eventos ativos, para a busca da página de
+// eventos não varrer a tabela com LIKE. Cada evento ganha um número de documento; cada termo (sem acento
+// e reduzido ao radical, ver AnalisadorTexto) aponta para um BitSet com os documentos que o contêm, e
+// categoria e cidade têm BitSets próprios. Uma busca é a interseção dos BitSets dos termos (cada palavra
+// casa pelo radical ou como prefixo) com os dos filtros; a data é conferida só nos documentos que sobram.
+// O índice é atualizado após o commit pelo EventoService e recarregado por inteiro de tempos em tempos,
+// para absorver alterações feitas por outras instâncias. Só é montado com app.busca.modo = MEMORIA.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BuscaEventosService {
+
+    private final EventoRepository eventoRepository;
+
+    @Value("${app.busca.modo:MEMORIA}")
+    private ModoBusca modo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Nulo até a primeira carga; enquanto isso a busca vai para o banco
+    private Indice indice;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        recarregar();
+    }
+
+    @Scheduled(initialDelayString = "${app.busca.recarga-ms:600000}", fixedDelayString = "${app.busca.recarga-ms:600000}")
+    public void recarregar() {
+        if (modo != ModoBusca.MEMORIA) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        Indice novo = new Indice();
+        for (Evento evento : eventoRepository.findByAtivoTrue()) {
+            novo.adicionar(new Documento(evento));
+        }
+        lock.writeLock().lock();
+        try {
+            indice = novo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de busca de eventos carregado: {} eventos, {} termos em {} ms",
+                novo.porEvento.size(), novo.termos.size(), System.currentTimeMillis() - inicio);
+    }
+
+    // Dentro de uma transação, só após o commit. Eventos inativos saem do índice.
+    public void indexar(Evento evento) {
+        Documento documento = evento.getAtivo() ? new Documento(evento) : null;
+        Long eventoId = evento.getId();
+        aposCommit(() -> alterar(indice -> {
+            indice.remover(eventoId);
+            if (documento != null) {
+                indice.adicionar(documento);
+            }
+        }));
+    }
+
+    public void remover(Long eventoId) {
+        aposCommit(() -> alterar(indice -> indice.remover(eventoId)));
+    }
+
+    // Ids da página pedida, na ordem da data do evento; vazio se o índice não estiver pronto ou se a busca
+    // não tiver nenhum termo indexável (só palavras vazias), casos em que a consulta vai para o banco
+    public Optional<Page<Long>> buscar(String search, String categoria, String cidade,
+                                       LocalDateTime dataInicio, LocalDateTime dataFim, Pageable pageable) {
+        List<String> palavras = AnalisadorTexto.palavras(search);
+        if (palavras.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (indice == null) {
+                return Optional.empty();
+            }
+            BitSet resultado = indice.buscarTermos(palavras);
+            if (categoria != null) {
+                resultado.and(indice.categorias.getOrDefault(categoria.toLowerCase(Locale.ROOT), new BitSet()));
+            }
+            if (cidade != null) {
+                resultado.and(indice.cidades.getOrDefault(cidade.toLowerCase(Locale.ROOT), new BitSet()));
+            }
+
+            List<Documento> encontrados = new ArrayList<>(resultado.cardinality());
+            for (int doc = resultado.nextSetBit(0); doc >= 0; doc = resultado.nextSetBit(doc + 1)) {
+                Documento documento = indice.documentos.get(doc);
+                if ((dataInicio == null || !documento.dataHora.isBefore(dataInicio))
+                        && (dataFim == null || !documento.dataHora.isAfter(dataFim))) {
+                    encontrados.add(documento);
+                }
+            }
+            encontrados.sort(Comparator.comparing((Documento documento) -> documento.dataHora)
+                    .thenComparing(documento -> documento.eventoId));
+
+            int de = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), encontrados.size()) : 0;
+            int ate = pageable.isPaged() ? Math.min(de + pageable.getPageSize(), encontrados.size()) : encontrados.size();
+            List<Long> ids = new ArrayList<>(ate - de);
+            for (Documento documento : encontrados.subList(de, ate)) {
+                ids.add(documento.eventoId);
+            }
+            return Optional.of(new PageImpl<>(ids, pageable, encontrados.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ModoBusca getModo() {
+        return modo;
+    }
+
+    private void alterar(Consumer<Indice> alteracao) {
+        lock.writeLock().lock();
+        try {
+            if (indice != null) {
+                alteracao.accept(indice);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    // Como as buscas por texto de eventos e FAQ são resolvidas: índice em memória (só eventos; a FAQ usa LIKE),
+    // índice FULLTEXT do MySQL ordenado por relevância, ou LIKE
+    public enum ModoBusca {
+        MEMORIA,
+        FULLTEXT,
+        LIKE
+    }
+
+    private static final class Indice {
+
+        // Termo -> documentos; ordenado para que os termos com um prefixo formem um intervalo contíguo
+        private final TreeMap<String, BitSet> termos = new TreeMap<>();
+        private final Map<String, BitSet> categorias = new HashMap<>();
+        private final Map<String, BitSet> cidades = new HashMap<>();
+        private final Map<Long, Integer> porEvento = new HashMap<>();
+        // Número do documento -> documento; posições liberadas são reaproveitadas
+        private final List<Documento> documentos = new ArrayList<>();
+        private final ArrayDeque<Integer> livres = new ArrayDeque<>();
+
+        void adicionar(Documento documento) {
+            int doc = livres.isEmpty() ? documentos.size() : livres.pop();
+            if (doc == documentos.size()) {
+                documentos.add(documento);
+            } else {
+                documentos.set(doc, documento);
+            }
+            porEvento.put(documento.eventoId, doc);
+            for (String termo : documento.termos) {
+                termos.computeIfAbsent(termo, t -> new BitSet()).set(doc);
+            }
+            if (documento.categoria != null) {
+                categorias.computeIfAbsent(documento.categoria, c -> new BitSet()).set(doc);
+            }
+            if (documento.cidade != null) {
+                cidades.computeIfAbsent(documento.cidade, c -> new BitSet()).set(doc);
+            }
+        }
+
+        void remover(Long eventoId) {
+            Integer doc = porEvento.remove(eventoId);
+            if (doc == null) {
+                return;
+            }
+            Documento documento = documentos.get(doc);
+            for (String termo : documento.termos) {
+                limpar(termos, termo, doc);
+            }
+            if (documento.categoria != null) {
+                limpar(categorias, documento.categoria, doc);
+            }
+            if (documento.cidade != null) {
+                limpar(cidades, documento.cidade, doc);
+            }
+            documentos.set(doc, null);
+            livres.push(doc);
+        }
+
+        // Todas as palavras precisam casar; cada uma casa pelo radical ou como prefixo de um termo indexado
+        BitSet buscarTermos(List<String> palavras) {
+            BitSet resultado = null;
+            for (String palavra : palavras) {
+                BitSet casamentos = new BitSet();
+                BitSet exato = termos.get(AnalisadorTexto.radical(palavra));
+                if (exato != null) {
+                    casamentos.or(exato);
+                }
+                for (BitSet prefixo : termos.subMap(palavra, true, palavra + Character.MAX_VALUE, false).values()) {
+                    casamentos.or(prefixo);
+                }
+                if (resultado == null) {
+                    resultado = casamentos;
+                } else {
+                    resultado.and(casamentos);
+                }
+                if (resultado.isEmpty()) {
+                    break;
+                }
+            }
+            return resultado;
+        }
+
+        private static void limpar(Map<String, BitSet> postagens, String chave, int doc) {
+            BitSet documentos = postagens.get(chave);
+            if (documentos != null) {
+                documentos.clear(doc);
+                if (documentos.isEmpty()) {
+                    postagens.remove(chave);
+                }
+            }
+        }
+    }
+
+    // Só o que a busca precisa, copiado da entidade
+    private static final class Documento {
+
+        private final Long eventoId;
+        private final LocalDateTime dataHora;
+        private final String categoria;
+        private final String cidade;
+        private final Set<String> termos;
+
+        Documento(Evento evento) {
+            this.eventoId = evento.getId();
+            this.dataHora = evento.getDataHora();
+            this.categoria = evento.getCategoria() != null ? evento.getCategoria().toLowerCase(Locale.ROOT) : null;
+            this.cidade = evento.getCidade() != null ? evento.getCidade().toLowerCase(Locale.ROOT) : null;
+            this.termos = new LinkedHashSet<>(AnalisadorTexto.radicais(evento.getTitulo()));
+            this.termos.addAll(AnalisadorTexto.radicais(evento.getDescricao()));
+        }
+    }
+}
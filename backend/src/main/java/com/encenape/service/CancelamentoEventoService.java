@@ -0,0 +1,196 @@
+package com.encenape.service;
+
+import com.encenape.dto.CancelamentoEventoResponse;
+import com.encenape.model.Ingresso;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.ReservaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cancelamento de um evento inteiro pelo admin. Roda em segundo plano: desativa as vendas e percorre os
+// ingressos ativos em páginas por keyset, cada uma numa transação curta que trava só as linhas da página,
+// cancela todas com um UPDATE e grava no outbox os avisos e os reembolsos, na mesma transação.
+// Pode ser repetido com segurança: só ingressos ainda ativos são processados.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CancelamentoEventoService {
+
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final ReservaRepository reservaRepository;
+    private final OutboxService outboxService;
+    private final PagamentoService pagamentoService;
+    private final FilaEsperaService filaEsperaService;
+    private final InventarioService inventarioService;
+    private final CheckInService checkInService;
+    private final LembreteEventoService lembreteEventoService;
+    private final BuscaEventosService buscaEventosService;
+    private final CatalogoCacheService catalogoCacheService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cancelamento.tamanho-pagina:500}")
+    private int tamanhoPagina;
+
+    private final Map<Long, Progresso> progressos = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public CancelamentoEventoResponse cancelarEvento(Long eventoId, String motivo) {
+        if (!eventoRepository.existsById(eventoId)) {
+            throw new RuntimeException("Evento não encontrado");
+        }
+
+        Progresso progresso = new Progresso(eventoId);
+        Progresso atual = progressos.compute(eventoId, (id, anterior) ->
+                anterior != null && anterior.status == StatusCancelamento.RUNNING ? anterior : progresso);
+        if (atual != progresso) {
+            throw new RuntimeException("Cancelamento deste evento já está em andamento");
+        }
+
+        String motivoCancelamento = motivo != null && !motivo.isBlank() ? motivo : "Evento cancelado pelo organizador";
+
+        try {
+            // Fecha as vendas antes de começar, para que nenhum ingresso novo apareça atrás do cursor
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                eventoRepository.desativar(eventoId);
+                reservaRepository.cancelarAtivasPorEvento(eventoId);
+            });
+            filaEsperaService.desativarFila(eventoId);
+            inventarioService.remover(eventoId);
+            checkInService.fecharPortariaSeAberta(eventoId);
+            lembreteEventoService.remover(eventoId);
+            buscaEventosService.remover(eventoId);
+            catalogoCacheService.invalidarListas();
+            progresso.total = ingressoRepository.countIngressosAtivosByEvento(eventoId);
+
+            executor.execute(() -> processar(progresso, motivoCancelamento));
+        } catch (RuntimeException e) {
+            progresso.concluir(StatusCancelamento.FAILED, "Erro ao iniciar o cancelamento");
+            throw e;
+        }
+        return mapToResponse(progresso);
+    }
+
+    public CancelamentoEventoResponse getProgresso(Long eventoId) {
+        Progresso progresso = progressos.get(eventoId);
+        if (progresso == null) {
+            throw new RuntimeException("Nenhum cancelamento iniciado para este evento");
+        }
+        return mapToResponse(progresso);
+    }
+
+    private void processar(Progresso progresso, String motivo) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long inicio = System.currentTimeMillis();
+        try {
+            // Os ids vêm de blocos pré-alocados e não são estritamente crescentes no tempo: uma compra que já
+            // estava em andamento ao fechar as vendas pode gravar atrás do cursor. Repete a varredura até uma
+            // passada não encontrar mais nada (com as vendas fechadas, a segunda normalmente já vem vazia).
+            long canceladosNaPassada;
+            do {
+                long antes = progresso.cancelados.get();
+                Long ultimoId = 0L;
+                while (ultimoId != null) {
+                    Long cursor = ultimoId;
+                    ultimoId = transactionTemplate.execute(status -> cancelarPagina(progresso, cursor, motivo));
+                }
+                canceladosNaPassada = progresso.cancelados.get() - antes;
+            } while (canceladosNaPassada > 0);
+            progresso.concluir(StatusCancelamento.COMPLETED, null);
+            log.info("Evento {} cancelado: {} ingressos em {} ms", progresso.eventoId,
+                    progresso.cancelados.get(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Erro ao cancelar os ingressos do evento {}", progresso.eventoId, e);
+            progresso.concluir(StatusCancelamento.FAILED, "Cancelamento interrompido, execute novamente para continuar");
+        }
+    }
+
+    // Retorna o último id da página, ou null quando não há mais ingressos ativos
+    private Long cancelarPagina(Progresso progresso, Long ultimoId, String motivo) {
+        List<Ingresso> pagina = ingressoRepository.findAtivosPorEventoAposId(
+                progresso.eventoId, ultimoId, PageRequest.of(0, tamanhoPagina));
+        if (pagina.isEmpty()) {
+            return null;
+        }
+
+        List<Long> ids = new ArrayList<>(pagina.size());
+        for (Ingresso ingresso : pagina) {
+            ids.add(ingresso.getId());
+        }
+
+        // As linhas estão travadas pela leitura, então todas as da página são canceladas aqui
+        ingressoRepository.cancelarIngressos(ids, LocalDateTime.now(), motivo);
+        outboxService.registrarAvisosCancelamento(ids);
+        pagamentoService.reembolsar(pagina);
+
+        progresso.cancelados.addAndGet(ids.size());
+        return ids.get(ids.size() - 1);
+    }
+
+    private CancelamentoEventoResponse mapToResponse(Progresso progresso) {
+        CancelamentoEventoResponse response = new CancelamentoEventoResponse();
+        response.setEventoId(progresso.eventoId);
+        response.setStatus(progresso.status.name());
+        response.setTotalIngressos(progresso.total);
+        response.setIngressosCancelados(progresso.cancelados.get());
+        response.setMensagem(progresso.mensagem);
+        response.setIniciadoEm(progresso.iniciadoEm);
+        response.setConcluidoEm(progresso.concluidoEm);
+        return response;
+    }
+
+    private enum StatusCancelamento {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private static final class Progresso {
+
+        private final Long eventoId;
+        private final LocalDateTime iniciadoEm = LocalDateTime.now();
+        private final AtomicLong cancelados = new AtomicLong();
+        private volatile long total;
+        private volatile StatusCancelamento status = StatusCancelamento.RUNNING;
+        private volatile String mensagem;
+        private volatile LocalDateTime concluidoEm;
+
+        Progresso(Long eventoId) {
+            this.eventoId = eventoId;
+        }
+
+        void concluir(StatusCancelamento status, String mensagem) {
+            this.mensagem = mensagem;
+            this.concluidoEm = LocalDateTime.now();
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.encenape.service;
+
+import com.encenape.dto.CacheMetricasResponse;
+import com.encenape.model.Evento;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Caches das leituras do catálogo da home. As listas (ids dos próximos eventos e dos disponíveis,
+// categorias e cidades) ficam em caches com TTL e tamanho máximo; os eventos em si vêm do cache de
+// segundo nível do Hibernate (regiões "eventos" e "espacos"). Quem lê as listas de ids confere data,
+// status e estoque de cada evento na hora, então uma lista só precisa ser descartada quando um evento
+// pode entrar nela: alterações de eventos descartam todas, devoluções de estoque só a de disponíveis.
+// Vendas removem só a entrada do evento no segundo nível.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoCacheService {
+
+    public static final String PROXIMOS = "proximos";
+    public static final String DISPONIVEIS = "disponiveis";
+    public static final String CATEGORIAS = "categorias";
+    public static final String CIDADES = "cidades";
+
+    private static final String[] REGIOES = {"eventos", "espacos"};
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.cache.catalogo.ttl-segundos:60}")
+    private long ttlSegundos;
+
+    @Value("${app.cache.catalogo.tamanho-maximo:100}")
+    private long tamanhoMaximo;
+
+    private final Map<String, Cache<String, List<?>>> listas = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        for (String lista : new String[]{PROXIMOS, DISPONIVEIS, CATEGORIAS, CIDADES}) {
+            listas.put(lista, Caffeine.newBuilder()
+                    .maximumSize(tamanhoMaximo)
+                    .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                    .recordStats()
+                    .build());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> obter(String lista, Supplier<List<T>> carregar) {
+        return (List<T>) listas.get(lista).get(lista, chave -> List.copyOf(carregar.get()));
+    }
+
+    // Dentro de uma transação, só após o commit
+    public void invalidarListas() {
+        aposCommit(() -> listas.values().forEach(Cache::invalidateAll));
+    }
+
+    public void invalidar(String lista) {
+        aposCommit(() -> listas.get(lista).invalidateAll());
+    }
+
+    // Estoque alterado por SQL nativo: o Hibernate não sabe, então a entrada do evento sai do segundo nível
+    public void invalidarEvento(Long eventoId) {
+        aposCommit(() -> entityManagerFactory.getCache().evict(Evento.class, eventoId));
+    }
+
+    public List<CacheMetricasResponse.RegiaoCache> getMetricas() {
+        List<CacheMetricasResponse.RegiaoCache> metricas = new ArrayList<>();
+        listas.forEach((nome, cache) -> {
+            CacheStats stats = cache.stats();
+            metricas.add(new CacheMetricasResponse.RegiaoCache(nome, "servico", stats.hitCount(), stats.missCount(),
+                    stats.hitRate(), cache.estimatedSize(), stats.evictionCount()));
+        });
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        boolean estatisticas = sessionFactory.getStatistics().isStatisticsEnabled();
+        for (String regiao : REGIOES) {
+            CacheRegionStatistics stats = estatisticas ? sessionFactory.getStatistics().getDomainDataRegionStatistics(regiao) : null;
+            if (stats == null) {
+                continue;
+            }
+            long acessos = stats.getHitCount() + stats.getMissCount();
+            metricas.add(new CacheMetricasResponse.RegiaoCache(regiao, "hibernate", stats.getHitCount(), stats.getMissCount(),
+                    acessos > 0 ? (double) stats.getHitCount() / acessos : 1.0, stats.getElementCountInMemory(), null));
+        }
+        return metricas;
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.encenape.service;
+
+import com.encenape.dto.CheckInRequest;
+import com.encenape.dto.CheckInResponse;
+import com.encenape.dto.PortariaResponse;
+import com.encenape.model.Ingresso;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.security.IngressoToken;
+import com.encenape.security.IngressoTokenUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Check-in na portaria. Ao abrir as portas, os ingressos ativos do evento são carregados num índice em
+// memória (endereçamento aberto sobre o código); cada leitura é uma busca no índice e um CAS no contador
+// de pessoas do ingresso, sem ida ao banco. As entradas são gravadas em Ingresso.quantidadeUtilizada
+// periodicamente (write-behind). Ingressos comprados depois da abertura não estão no índice e fazem o
+// check-in direto no banco. Pressupõe uma única instância, como o estoque em memória.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckInService {
+
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final IngressoTokenUtil ingressoTokenUtil;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.checkin.tamanho-pagina:1000}")
+    private int tamanhoPagina;
+
+    private final Map<Long, Portaria> portarias = new ConcurrentHashMap<>();
+
+    public PortariaResponse abrirPortaria(Long eventoId) {
+        if (!eventoRepository.existsById(eventoId)) {
+            throw new RuntimeException("Evento não encontrado");
+        }
+        return mapToResponse(eventoId, portarias.computeIfAbsent(eventoId, this::carregar));
+    }
+
+    // Descarta o índice e grava as entradas pendentes
+    public PortariaResponse fecharPortaria(Long eventoId) {
+        Portaria portaria = getPortaria(eventoId);
+        portarias.remove(eventoId, portaria);
+        sincronizar(eventoId, portaria);
+        return mapToResponse(eventoId, portaria);
+    }
+
+    // Usado no cancelamento do evento: fecha a portaria se estiver aberta, para que os códigos passem pelo banco
+    public void fecharPortariaSeAberta(Long eventoId) {
+        Portaria portaria = portarias.remove(eventoId);
+        if (portaria != null) {
+            sincronizar(eventoId, portaria);
+        }
+    }
+
+    public PortariaResponse getPortariaStatus(Long eventoId) {
+        return mapToResponse(eventoId, getPortaria(eventoId));
+    }
+
+    public CheckInResponse registrarEntrada(Long eventoId, CheckInRequest request) {
+        String codigo;
+        if (request.getToken() != null && !request.getToken().isBlank()) {
+            Optional<IngressoToken> token = ingressoTokenUtil.validarToken(request.getToken());
+            if (token.isEmpty()) {
+                return resposta(ResultadoCheckIn.TOKEN_INVALIDO, null, null, null, 0);
+            }
+            codigo = token.get().getCodigo();
+            if (!token.get().getEventoId().equals(eventoId)) {
+                return resposta(ResultadoCheckIn.OUTRO_EVENTO, codigo, null, null, 0);
+            }
+            if (token.get().isExpirado(Instant.now())) {
+                return resposta(ResultadoCheckIn.EXPIRADO, codigo, null, null, 0);
+            }
+        } else if (request.getCodigo() != null && !request.getCodigo().isBlank()) {
+            codigo = request.getCodigo().trim();
+        } else {
+            throw new RuntimeException("Informe o token ou o código do ingresso");
+        }
+
+        Portaria portaria = getPortaria(eventoId);
+        int pedido = request.getQuantidade() != null ? request.getQuantidade() : 0;
+        int posicao = portaria.indice.localizar(chave(codigo));
+        if (posicao < 0) {
+            return registrarForaDoIndice(eventoId, codigo, pedido);
+        }
+
+        IndicePortaria indice = portaria.indice;
+        int liberados = indice.utilizar(posicao, pedido);
+        int quantidade = indice.quantidade(posicao);
+        int atual = indice.utilizados(posicao);
+        if (liberados == IndicePortaria.RECUSADO) {
+            ResultadoCheckIn resultado = atual == IndicePortaria.REVOGADO ? ResultadoCheckIn.CANCELADO : ResultadoCheckIn.JA_UTILIZADO;
+            return resposta(resultado, codigo, quantidade, Math.max(atual, 0), 0);
+        }
+        return resposta(ResultadoCheckIn.LIBERADO, codigo, quantidade, atual, liberados);
+    }
+
+    // Chamado na transação do cancelamento de um ingresso: com a portaria aberta, o índice passa a recusar o
+    // código, a menos que ele já tenha sido usado (retorna false). Se a transação falhar, a revogação é desfeita.
+    public boolean revogar(Long eventoId, String codigo) {
+        Portaria portaria = portarias.get(eventoId);
+        if (portaria == null) {
+            return true;
+        }
+        int posicao = portaria.indice.localizar(chave(codigo));
+        if (posicao < 0) {
+            return true;
+        }
+        if (!portaria.indice.revogar(posicao)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        portaria.indice.restaurar(posicao);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Write-behind: grava a quantidade utilizada absoluta de cada ingresso alterado desde a última sincronização
+    @Scheduled(fixedDelayString = "${app.checkin.flush-interval-ms:1000}")
+    public void sincronizar() {
+        portarias.forEach(this::sincronizar);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        sincronizar();
+    }
+
+    // Uma gravação por portaria de cada vez: o fechamento espera a rodada agendada em andamento, em vez de
+    // retornar antes dela ou de gravar em paralelo. Mesmo fora de ordem, o UPDATE nunca diminui a quantidade.
+    private void sincronizar(Long eventoId, Portaria portaria) {
+        synchronized (portaria) {
+            gravarAlterados(eventoId, portaria);
+        }
+    }
+
+    private void gravarAlterados(Long eventoId, Portaria portaria) {
+        List<Integer> posicoes = portaria.indice.coletarAlterados();
+        if (posicoes.isEmpty()) {
+            return;
+        }
+
+        // Agrupa por valor: quase todos os ingressos têm 1 ou 2 pessoas, então saem poucos UPDATEs por rodada
+        Map<Integer, List<Long>> porQuantidade = new HashMap<>();
+        for (int posicao : posicoes) {
+            int utilizados = portaria.indice.utilizados(posicao);
+            if (utilizados > 0) {
+                porQuantidade.computeIfAbsent(utilizados, q -> new ArrayList<>()).add(portaria.indice.id(posicao));
+            }
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    porQuantidade.forEach((quantidade, ids) -> {
+                        for (int inicio = 0; inicio < ids.size(); inicio += tamanhoPagina) {
+                            List<Long> lote = ids.subList(inicio, Math.min(ids.size(), inicio + tamanhoPagina));
+                            ingressoRepository.registrarUtilizacao(lote, quantidade, agora);
+                        }
+                    }));
+        } catch (Exception e) {
+            posicoes.forEach(portaria.indice::marcarAlterado);
+            log.error("Erro ao gravar check-ins do evento {}", eventoId, e);
+        }
+    }
+
+    private CheckInResponse registrarForaDoIndice(Long eventoId, String codigo, int pedido) {
+        Optional<Ingresso> encontrado = ingressoRepository.findByCodigoComEvento(codigo);
+        if (encontrado.isEmpty()) {
+            return resposta(ResultadoCheckIn.NAO_ENCONTRADO, codigo, null, null, 0);
+        }
+        Ingresso ingresso = encontrado.get();
+        if (!ingresso.getEvento().getId().equals(eventoId)) {
+            return resposta(ResultadoCheckIn.OUTRO_EVENTO, codigo, null, null, 0);
+        }
+        if (!ingresso.isAtivo()) {
+            return resposta(ResultadoCheckIn.CANCELADO, codigo, ingresso.getQuantidade(), ingresso.getQuantidadeUtilizada(), 0);
+        }
+
+        int liberados = pedido > 0 ? pedido : ingresso.getQuantidade() - ingresso.getQuantidadeUtilizada();
+        Integer atualizados = liberados <= 0 ? 0 : new TransactionTemplate(transactionManager).execute(status ->
+                ingressoRepository.utilizar(ingresso.getId(), liberados, LocalDateTime.now()));
+        if (atualizados == null || atualizados == 0) {
+            return resposta(ResultadoCheckIn.JA_UTILIZADO, codigo, ingresso.getQuantidade(), ingresso.getQuantidadeUtilizada(), 0);
+        }
+        return resposta(ResultadoCheckIn.LIBERADO, codigo, ingresso.getQuantidade(),
+                ingresso.getQuantidadeUtilizada() + liberados, liberados);
+    }
+
+    private Portaria getPortaria(Long eventoId) {
+        Portaria portaria = portarias.get(eventoId);
+        if (portaria == null) {
+            throw new RuntimeException("Portaria não está aberta para este evento");
+        }
+        return portaria;
+    }
+
+    private Portaria carregar(Long eventoId) {
+        long inicio = System.currentTimeMillis();
+        List<Object[]> linhas = new ArrayList<>();
+        Long ultimoId = 0L;
+        while (true) {
+            List<Object[]> pagina = ingressoRepository.findCodigosAtivosPorEventoAposId(
+                    eventoId, ultimoId, PageRequest.of(0, tamanhoPagina));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            linhas.addAll(pagina);
+            ultimoId = (Long) pagina.get(pagina.size() - 1)[0];
+        }
+
+        IndicePortaria indice = new IndicePortaria(linhas.size());
+        for (Object[] linha : linhas) {
+            indice.adicionar(chave((String) linha[1]), (Long) linha[0], (Integer) linha[2], (Integer) linha[3]);
+        }
+        log.info("Portaria do evento {} aberta: {} ingressos carregados em {} ms",
+                eventoId, linhas.size(), System.currentTimeMillis() - inicio);
+        return new Portaria(indice);
+    }
+
+    // Chave de 128 bits: os bits do UUID quando o código é um UUID canônico, senão o início do SHA-256
+    static long[] chave(String codigo) {
+        try {
+            UUID uuid = UUID.fromString(codigo);
+            if (uuid.toString().equals(codigo)) {
+                return new long[]{uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()};
+            }
+        } catch (IllegalArgumentException e) {
+            // código em outro formato
+        }
+        try {
+            ByteBuffer hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(codigo.getBytes(StandardCharsets.UTF_8)));
+            return new long[]{hash.getLong(), hash.getLong()};
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private PortariaResponse mapToResponse(Long eventoId, Portaria portaria) {
+        PortariaResponse response = new PortariaResponse();
+        response.setEventoId(eventoId);
+        response.setIngressos(portaria.indice.tamanho());
+        long pessoas = 0;
+        long entradas = 0;
+        for (int posicao = 0; posicao < portaria.indice.capacidade(); posicao++) {
+            int utilizados = portaria.indice.utilizados(posicao);
+            if (portaria.indice.ocupada(posicao) && utilizados != IndicePortaria.REVOGADO) {
+                pessoas += portaria.indice.quantidade(posicao);
+                entradas += utilizados;
+            }
+        }
+        response.setPessoas(pessoas);
+        response.setEntradas(entradas);
+        response.setAbertaEm(portaria.abertaEm);
+        return response;
+    }
+
+    private CheckInResponse resposta(ResultadoCheckIn resultado, String codigo, Integer quantidade, Integer utilizada, int liberada) {
+        CheckInResponse response = new CheckInResponse();
+        response.setStatus(resultado.name());
+        response.setCodigo(codigo);
+        response.setQuantidade(quantidade);
+        response.setQuantidadeUtilizada(utilizada);
+        response.setQuantidadeLiberada(liberada);
+        response.setMensagem(resultado.mensagem);
+        return response;
+    }
+
+    private enum ResultadoCheckIn {
+        LIBERADO("Entrada liberada"),
+        JA_UTILIZADO("Ingresso já utilizado ou quantidade maior que a restante"),
+        CANCELADO("Ingresso cancelado"),
+        NAO_ENCONTRADO("Ingresso não encontrado"),
+        OUTRO_EVENTO("Ingresso de outro evento"),
+        EXPIRADO("Ingresso expirado"),
+        TOKEN_INVALIDO("QR Code inválido");
+
+        private final String mensagem;
+
+        ResultadoCheckIn(String mensagem) {
+            this.mensagem = mensagem;
+        }
+    }
+
+    private static final class Portaria {
+
+        private final IndicePortaria indice;
+        private final LocalDateTime abertaEm = LocalDateTime.now();
+
+        Portaria(IndicePortaria indice) {
+            this.indice = indice;
+        }
+    }
+
+    // Tabela de endereçamento aberto (linear probing) com a chave de 128 bits do código em dois arrays de long.
+    // As chaves só são escritas na carga e depois apenas lidas; o estado que muda é o contador de pessoas de
+    // cada posição (CAS) e um bitset de posições alteradas desde a última gravação.
+    static final class IndicePortaria {
+
+        static final int REVOGADO = -1;
+        static final int RECUSADO = Integer.MIN_VALUE;
+
+        private final long[] chavesAlta;
+        private final long[] chavesBaixa;
+        private final long[] ids;
+        private final int[] quantidades;
+        private final AtomicIntegerArray utilizados;
+        private final AtomicLongArray alterados;
+        private final int mascara;
+        private int tamanho;
+
+        IndicePortaria(int esperados) {
+            // Fator de carga de no máximo 0,5 para sondagens curtas
+            int capacidade = Integer.highestOneBit(Math.max(16, esperados * 2) - 1) << 1;
+            chavesAlta = new long[capacidade];
+            chavesBaixa = new long[capacidade];
+            ids = new long[capacidade];
+            quantidades = new int[capacidade];
+            utilizados = new AtomicIntegerArray(capacidade);
+            alterados = new AtomicLongArray((capacidade + 63) >>> 6);
+            mascara = capacidade - 1;
+        }
+
+        void adicionar(long[] chave, long id, int quantidade, int jaUtilizados) {
+            int posicao = sondar(chave[0], chave[1]);
+            if (chavesAlta[posicao] == 0 && chavesBaixa[posicao] == 0) {
+                tamanho++;
+            }
+            chavesAlta[posicao] = chave[0];
+            chavesBaixa[posicao] = chave[1];
+            ids[posicao] = id;
+            quantidades[posicao] = quantidade;
+            utilizados.set(posicao, jaUtilizados);
+        }
+
+        int localizar(long[] chave) {
+            int posicao = sondar(chave[0], chave[1]);
+            return chavesAlta[posicao] == chave[0] && chavesBaixa[posicao] == chave[1]
+                    && (chave[0] != 0 || chave[1] != 0) ? posicao : -1;
+        }
+
+        // Soma 'pedido' pessoas (0 = todas as restantes) se couber na quantidade do ingresso.
+        // Retorna quantas pessoas foram liberadas, ou RECUSADO se não couber ou o ingresso estiver revogado.
+        int utilizar(int posicao, int pedido) {
+            int quantidade = quantidades[posicao];
+            while (true) {
+                int atual = utilizados.get(posicao);
+                int solicitados = pedido > 0 ? pedido : quantidade - atual;
+                if (atual == REVOGADO || solicitados <= 0 || atual + solicitados > quantidade) {
+                    return RECUSADO;
+                }
+                if (utilizados.compareAndSet(posicao, atual, atual + solicitados)) {
+                    marcarAlterado(posicao);
+                    return solicitados;
+                }
+            }
+        }
+
+        // Só revoga ingressos ainda não usados
+        boolean revogar(int posicao) {
+            return utilizados.compareAndSet(posicao, 0, REVOGADO) || utilizados.get(posicao) == REVOGADO;
+        }
+
+        void restaurar(int posicao) {
+            utilizados.compareAndSet(posicao, REVOGADO, 0);
+        }
+
+        void marcarAlterado(int posicao) {
+            long bit = 1L << posicao;
+            alterados.getAndAccumulate(posicao >>> 6, bit, (palavra, mascaraBit) -> palavra | mascaraBit);
+        }
+
+        // Limpa o bitset palavra a palavra e retorna as posições que estavam marcadas
+        List<Integer> coletarAlterados() {
+            List<Integer> posicoes = new ArrayList<>();
+            for (int i = 0; i < alterados.length(); i++) {
+                if (alterados.get(i) == 0) {
+                    continue;
+                }
+                long palavra = alterados.getAndSet(i, 0);
+                while (palavra != 0) {
+                    posicoes.add((i << 6) + Long.numberOfTrailingZeros(palavra));
+                    palavra &= palavra - 1;
+                }
+            }
+            return posicoes;
+        }
+
+        int utilizados(int posicao) {
+            return utilizados.get(posicao);
+        }
+
+        int quantidade(int posicao) {
+            return quantidades[posicao];
+        }
+
+        long id(int posicao) {
+            return ids[posicao];
+        }
+
+        boolean ocupada(int posicao) {
+            return chavesAlta[posicao] != 0 || chavesBaixa[posicao] != 0;
+        }
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        int capacidade() {
+            return mascara + 1;
+        }
+
+        private int sondar(long alta, long baixa) {
+            long h = (alta ^ Long.rotateLeft(baixa, 32)) * 0x9E3779B97F4A7C15L;
+            int posicao = (int) (h ^ (h >>> 32)) & mascara;
+            while ((chavesAlta[posicao] != 0 || chavesBaixa[posicao] != 0)
+                    && (chavesAlta[posicao] != alta || chavesBaixa[posicao] != baixa)) {
+                posicao = (posicao + 1) & mascara;
+            }
+            return posicao;
+        }
+    }
+}
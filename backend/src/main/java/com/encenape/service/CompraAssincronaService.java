@@ -0,0 +1,445 @@
+package com.encenape.service;
+
+import com.encenape.dto.CompraIngressoRequest;
+import com.encenape.dto.CompraStatusResponse;
+import com.encenape.dto.IngressoResponse;
+import com.encenape.model.Evento;
+import com.encenape.model.Ingresso;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.service.pagamento.ResultadoPagamento;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Modo assíncrono de compra: POST /ingressos enfileira o pedido e responde 202. Cada evento tem um
+// único consumidor ativo por vez, que drena a fila em lotes e grava cada lote numa só transação
+// (uma atualização de estoque e os inserts dos ingressos). Pedidos enfileirados vivem só em memória.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompraAssincronaService {
+
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final IngressoService ingressoService;
+    private final InventarioService inventarioService;
+    private final FilaEsperaService filaEsperaService;
+    private final PagamentoService pagamentoService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.compras.assincrona:false}")
+    private boolean habilitada;
+
+    @Value("${app.compras.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${app.compras.consumidores:4}")
+    private int consumidores;
+
+    @Value("${app.compras.max-pendentes:100000}")
+    private int maxPendentes;
+
+    @Value("${app.compras.retencao-minutos:30}")
+    private long retencaoMinutos;
+
+    private final Map<Long, FilaCompras> filasPorEvento = new ConcurrentHashMap<>();
+    private final Map<String, CompraPendente> compras = new ConcurrentHashMap<>();
+    private final AtomicInteger pendentes = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newFixedThreadPool(consumidores);
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public CompraStatusResponse enfileirar(Usuario usuario, CompraIngressoRequest request, String chaveIdempotencia) {
+        filaEsperaService.verificarAdmissao(request.getEventoId(), usuario);
+
+        if (pendentes.incrementAndGet() > maxPendentes) {
+            pendentes.decrementAndGet();
+            throw new RuntimeException("Muitas compras em processamento, tente novamente em instantes");
+        }
+
+        CompraPendente compra = new CompraPendente(UUID.randomUUID().toString(), usuario, request, chaveIdempotencia);
+        compras.put(compra.id, compra);
+
+        FilaCompras fila = filasPorEvento.computeIfAbsent(request.getEventoId(), FilaCompras::new);
+        fila.pedidos.add(compra);
+        agendarConsumo(fila);
+
+        return mapToCompraStatusResponse(compra);
+    }
+
+    int getPendentes() {
+        return pendentes.get();
+    }
+
+    public CompraStatusResponse getStatus(String compraId, Usuario usuario) {
+        CompraPendente compra = compras.get(compraId);
+        if (compra == null || !compra.usuario.getId().equals(usuario.getId())) {
+            throw new RuntimeException("Compra não encontrada");
+        }
+        return mapToCompraStatusResponse(compra);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void limparConcluidas() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencaoMinutos);
+        compras.values().removeIf(compra -> compra.status != StatusCompra.PENDING && compra.concluidaEm.isBefore(limite));
+    }
+
+    // Garante no máximo um consumidor por evento
+    private void agendarConsumo(FilaCompras fila) {
+        if (fila.consumindo.compareAndSet(false, true)) {
+            executor.execute(() -> consumir(fila));
+        }
+    }
+
+    private void consumir(FilaCompras fila) {
+        try {
+            List<CompraPendente> lote = new ArrayList<>(tamanhoLote);
+            CompraPendente compra;
+            while ((compra = fila.pedidos.poll()) != null) {
+                lote.add(compra);
+                if (lote.size() == tamanhoLote) {
+                    processarLote(fila.eventoId, lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                processarLote(fila.eventoId, lote);
+            }
+        } finally {
+            fila.consumindo.set(false);
+            // Um pedido pode ter chegado entre o último poll e a liberação do consumidor
+            if (!fila.pedidos.isEmpty()) {
+                agendarConsumo(fila);
+            }
+        }
+    }
+
+    // Três etapas: reserva o estoque do lote numa transação curta, cobra todos os pedidos em paralelo
+    // sem transação aberta e grava os ingressos pagos numa segunda transação. Se a gravação do lote
+    // falhar no commit (um insert do lote violou uma restrição), os pedidos pagos são gravados um a um,
+    // para que só o pedido com problema fique de fora. A compensação fica toda no finally, que roda
+    // qualquer que seja a etapa interrompida: devolve o estoque reservado que não virou ingresso, estorna
+    // as cobranças aprovadas sem ingresso gravado e encerra os pedidos ainda pendentes. Package-private
+    // para os testes.
+    void processarLote(Long eventoId, List<CompraPendente> recebidos) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Evento evento = null;
+        List<CompraPendente> lote = null;
+        int[] quantidades = null;
+        // Por pedido: estoque reservado ainda não gravado nem devolvido, cobrança disparada e ingresso gravado
+        int[] emAberto = null;
+        List<CompletableFuture<ResultadoPagamento>> cobrancas = new ArrayList<>();
+        boolean[] gravados = null;
+        try {
+            evento = eventoRepository.findById(eventoId).orElse(null);
+            if (evento == null || !evento.isVendaAberta()) {
+                recebidos.forEach(compra -> compra.falhar("Evento não está mais disponível"));
+                return;
+            }
+            lote = resolverJaRegistradas(eventoId, recebidos, transactionTemplate);
+            if (lote.isEmpty()) {
+                return;
+            }
+            int[] pedidas = new int[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                pedidas[i] = lote.get(i).request.getQuantidade();
+            }
+            quantidades = pedidas;
+            boolean[] aceitos = transactionTemplate.execute(status -> inventarioService.reservarLote(eventoId, pedidas));
+            emAberto = new int[lote.size()];
+            gravados = new boolean[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                if (aceitos[i]) {
+                    emAberto[i] = quantidades[i];
+                }
+            }
+
+            // Cobranças disparadas juntas: o lote espera pela mais lenta, não pela soma das latências
+            for (int i = 0; i < lote.size(); i++) {
+                CompraPendente compra = lote.get(i);
+                if (!aceitos[i]) {
+                    compra.falhar("Ingressos insuficientes para a quantidade solicitada");
+                    cobrancas.add(null);
+                    continue;
+                }
+                cobrancas.add(pagamentoService.cobrarAsync(compra.request.getPaymentMethod(), valorDaCompra(evento, quantidades[i]), compra.id)
+                        .exceptionally(erro -> ResultadoPagamento.recusado(pagamentoService.falhaTecnica(erro).getMessage())));
+            }
+            CompletableFuture.allOf(cobrancas.stream().filter(Objects::nonNull).toArray(CompletableFuture[]::new)).join();
+
+            int naoPagos = 0;
+            ResultadoPagamento[] pagamentos = new ResultadoPagamento[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                if (cobrancas.get(i) == null) {
+                    continue;
+                }
+                ResultadoPagamento pagamento = cobrancas.get(i).join();
+                if (pagamento.isAprovado()) {
+                    pagamentos[i] = pagamento;
+                } else {
+                    lote.get(i).falhar(pagamento.getMensagem());
+                    naoPagos += quantidades[i];
+                }
+            }
+
+            int devolver = naoPagos;
+            List<CompraPendente> pedidos = lote;
+            Evento eventoDoLote = evento;
+            int[] quantidadesDoLote = quantidades;
+            try {
+                // Sem try/catch por pedido: os inserts só rodam no flush do commit, e uma exceção de save já
+                // marcaria a transação compartilhada como rollback-only
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < pedidos.size(); i++) {
+                        if (pagamentos[i] == null) {
+                            continue;
+                        }
+                        CompraPendente compra = pedidos.get(i);
+                        Ingresso ingresso = ingressoService.criarIngresso(compra.usuario, eventoDoLote,
+                                quantidadesDoLote[i], compra.request.getPaymentMethod(), pagamentos[i].getTransacaoId(), compra.chaveIdempotencia);
+                        compra.ingresso = ingressoService.mapToIngressoResponse(ingresso);
+                    }
+                    if (devolver > 0) {
+                        inventarioService.liberar(eventoId, devolver);
+                    }
+                });
+                // Commit: os pagos viraram ingresso e os recusados devolveram o estoque na mesma transação
+                Arrays.fill(emAberto, 0);
+                for (int i = 0; i < lote.size(); i++) {
+                    gravados[i] = pagamentos[i] != null;
+                }
+            } catch (Exception e) {
+                log.warn("Lote de {} compras do evento {} não gravado ({}); gravando um pedido por vez",
+                        lote.size(), eventoId, e.toString());
+                for (int i = 0; i < lote.size(); i++) {
+                    lote.get(i).ingresso = null;
+                    if (pagamentos[i] != null && gravarIndividualmente(lote.get(i), evento, quantidades[i], pagamentos[i], transactionTemplate)) {
+                        emAberto[i] = 0;
+                        gravados[i] = true;
+                    }
+                }
+            }
+
+            // Após o commit: publica o resultado (as confirmações por email saem pelo outbox)
+            for (int i = 0; i < lote.size(); i++) {
+                if (gravados[i]) {
+                    lote.get(i).concluir();
+                    filaEsperaService.concluir(eventoId, lote.get(i).usuario);
+                }
+            }
+            log.debug("Lote de {} compras do evento {} processado", lote.size(), eventoId);
+        } catch (Exception e) {
+            log.error("Erro ao processar lote de {} compras do evento {}", recebidos.size(), eventoId, e);
+        } finally {
+            // Os já resolvidos pela Idempotency-Key saíram da contagem de pendentes em resolverJaRegistradas
+            List<CompraPendente> encerrados = lote != null ? lote
+                    : recebidos.stream().filter(compra -> compra.status != StatusCompra.COMPLETED).toList();
+            compensar(eventoId, evento, encerrados, quantidades, emAberto, cobrancas, gravados);
+            pendentes.addAndGet(-encerrados.size());
+        }
+    }
+
+    // Desfaz o que o lote deixou pela metade. Não lança exceção: devolverEstoque e estornar só registram no log.
+    private void compensar(Long eventoId, Evento evento, List<CompraPendente> lote, int[] quantidades, int[] emAberto,
+                           List<CompletableFuture<ResultadoPagamento>> cobrancas, boolean[] gravados) {
+        for (int i = 0; i < cobrancas.size(); i++) {
+            if (cobrancas.get(i) == null || gravados[i]) {
+                continue;
+            }
+            // Uma cobrança disparada antes da falha ainda pode ser aprovada: espera por ela antes de estornar
+            ResultadoPagamento pagamento;
+            try {
+                pagamento = cobrancas.get(i).join();
+            } catch (Exception e) {
+                log.error("Cobrança da compra {} sem resultado; conciliar com o gateway", lote.get(i).id, e);
+                continue;
+            }
+            if (pagamento.isAprovado()) {
+                log.warn("Compra {} do evento {} paga e não gravada, estornando", lote.get(i).id, eventoId);
+                pagamentoService.estornar(pagamento.getTransacaoId(), valorDaCompra(evento, quantidades[i]));
+            }
+        }
+
+        int devolver = emAberto != null ? Arrays.stream(emAberto).sum() : 0;
+        if (devolver > 0) {
+            ingressoService.devolverEstoque(eventoId, devolver);
+        }
+
+        for (CompraPendente compra : lote) {
+            if (compra.status == StatusCompra.PENDING) {
+                compra.ingresso = null;
+                compra.falhar("Erro ao processar a compra, tente novamente");
+            }
+        }
+    }
+
+    // Pedidos cuja Idempotency-Key já tem compra gravada recebem o ingresso original, sem reservar nem cobrar
+    // de novo. Uma só consulta para as chaves do lote; retorna os pedidos que seguem para a reserva.
+    private List<CompraPendente> resolverJaRegistradas(Long eventoId, List<CompraPendente> recebidos,
+                                                       TransactionTemplate transactionTemplate) {
+        Set<String> chaves = new HashSet<>();
+        for (CompraPendente compra : recebidos) {
+            if (compra.chaveIdempotencia != null) {
+                chaves.add(compra.chaveIdempotencia);
+            }
+        }
+        if (chaves.isEmpty()) {
+            return new ArrayList<>(recebidos);
+        }
+
+        Map<String, IngressoResponse> registradas = transactionTemplate.execute(status -> {
+            Map<String, IngressoResponse> porUsuarioEChave = new HashMap<>();
+            for (Ingresso ingresso : ingressoRepository.findByChaveIdempotenciaIn(chaves)) {
+                porUsuarioEChave.put(ingresso.getUsuario().getId() + ":" + ingresso.getChaveIdempotencia(),
+                        ingressoService.mapToIngressoResponse(ingresso));
+            }
+            return porUsuarioEChave;
+        });
+
+        List<CompraPendente> novos = new ArrayList<>(recebidos.size());
+        for (CompraPendente compra : recebidos) {
+            IngressoResponse original = compra.chaveIdempotencia != null
+                    ? registradas.get(compra.usuario.getId() + ":" + compra.chaveIdempotencia)
+                    : null;
+            if (original == null) {
+                novos.add(compra);
+                continue;
+            }
+            compra.ingresso = original;
+            compra.concluir();
+            filaEsperaService.concluir(eventoId, compra.usuario);
+            pendentes.decrementAndGet();
+        }
+        return novos;
+    }
+
+    // Fallback do lote que falhou no commit: cada pedido pago na sua própria transação. O que falhar é
+    // marcado como FAILED e fica para o estorno e a devolução do estoque em compensar.
+    private boolean gravarIndividualmente(CompraPendente compra, Evento evento, int quantidade,
+                                          ResultadoPagamento pagamento, TransactionTemplate transactionTemplate) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Ingresso ingresso = ingressoService.criarIngresso(compra.usuario, evento, quantidade,
+                        compra.request.getPaymentMethod(), pagamento.getTransacaoId(), compra.chaveIdempotencia);
+                compra.ingresso = ingressoService.mapToIngressoResponse(ingresso);
+            });
+            return true;
+        } catch (Exception e) {
+            log.warn("Compra {} do evento {} não gravada: {}", compra.id, evento.getId(), e.toString());
+            compra.ingresso = null;
+            compra.falhar(mensagemDeFalha(e));
+            return false;
+        }
+    }
+
+    private static String mensagemDeFalha(Exception e) {
+        return e instanceof DataIntegrityViolationException
+                ? "Compra já registrada com esta Idempotency-Key"
+                : "Erro ao processar a compra, tente novamente";
+    }
+
+    private static BigDecimal valorDaCompra(Evento evento, int quantidade) {
+        return evento.getPreco().multiply(BigDecimal.valueOf(quantidade));
+    }
+
+    CompraStatusResponse mapToCompraStatusResponse(CompraPendente compra) {
+        CompraStatusResponse response = new CompraStatusResponse();
+        response.setCompraId(compra.id);
+        response.setEventoId(compra.request.getEventoId());
+        response.setStatus(compra.status.name());
+        response.setMensagem(compra.mensagem);
+        response.setIngresso(compra.status == StatusCompra.COMPLETED ? compra.ingresso : null);
+        return response;
+    }
+
+    private enum StatusCompra {
+        PENDING, COMPLETED, FAILED
+    }
+
+    private static final class FilaCompras {
+
+        private final Long eventoId;
+        private final Queue<CompraPendente> pedidos = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean consumindo = new AtomicBoolean();
+
+        FilaCompras(Long eventoId) {
+            this.eventoId = eventoId;
+        }
+    }
+
+    static final class CompraPendente {
+
+        private final String id;
+        private final Usuario usuario;
+        private final CompraIngressoRequest request;
+        private final String chaveIdempotencia;
+        private volatile StatusCompra status = StatusCompra.PENDING;
+        private volatile String mensagem;
+        private volatile IngressoResponse ingresso;
+        private volatile LocalDateTime concluidaEm;
+
+        CompraPendente(String id, Usuario usuario, CompraIngressoRequest request, String chaveIdempotencia) {
+            this.id = id;
+            this.usuario = usuario;
+            this.request = request;
+            this.chaveIdempotencia = chaveIdempotencia;
+        }
+
+        void concluir() {
+            concluidaEm = LocalDateTime.now();
+            status = StatusCompra.COMPLETED;
+        }
+
+        void falhar(String motivo) {
+            mensagem = motivo;
+            concluidaEm = LocalDateTime.now();
+            status = StatusCompra.FAILED;
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.encenape.service;
 
+import com.encenape.service.email.FilaEmailService;
+import com.encenape.service.email.TemplateCompilado;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Monta as mensagens e as entrega à FilaEmailService, que envia em segundo plano. Os métodos retornam
+// na hora; quem precisa saber se o envio deu certo (o outbox, por exemplo) espera o future retornado.
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,6 +32,7 @@ public class EmailService {
     
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final FilaEmailService filaEmailService;
     
     @Value("${app.frontend-url}")
     private String frontendUrl;
@@ -27,70 +40,130 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
     
-    public void sendPasswordResetEmail(String to, String nome, String token) {
+    private InternetAddress remetente;
+    private TemplateCompilado passwordReset;
+    private TemplateCompilado purchaseConfirmation;
+    
+    // Os templates mais enviados são processados pelo Thymeleaf uma vez só, na inicialização
+    @PostConstruct
+    public void compilarTemplates() throws AddressException {
+        // Sem SMTP configurado a aplicação sobe mesmo assim; os envios é que falham
+        remetente = fromEmail != null && !fromEmail.isBlank() ? new InternetAddress(fromEmail) : null;
+        passwordReset = compilar("password-reset", "nome", "resetUrl");
+        purchaseConfirmation = compilar("purchase-confirmation", "nome", "evento", "codigo");
+    }
+    
+    private TemplateCompilado compilar(String template, String... variaveis) {
+        Context context = new Context();
+        for (String variavel : variaveis) {
+            context.setVariable(variavel, TemplateCompilado.marcador(variavel));
+        }
+        return TemplateCompilado.compilar(templateEngine.process(template, context), variaveis);
+    }
+    
+    public CompletableFuture<Void> sendPasswordResetEmail(String to, String nome, String token) {
+        String html = passwordReset.renderizar(nome, frontendUrl + "/reset-password?token=" + token + "&email=" + to);
+        return filaEmailService.enfileirar(montarHtml(to, "Recuperação de Senha - EncenaPe", html),
+                "recuperação de senha para " + to);
+    }
+    
+    public CompletableFuture<Void> sendPurchaseConfirmationEmail(String to, String nome, String evento, String codigo) {
+        String html = purchaseConfirmation.renderizar(nome, evento, codigo);
+        return filaEmailService.enfileirar(montarHtml(to, "Confirmação de Compra - EncenaPe", html),
+                "confirmação de compra para " + to);
+    }
+    
+    public CompletableFuture<Void> sendEventCancellationEmail(String to, String nome, String evento, String codigo, String motivo) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
             
             helper.setFrom(fromEmail);
             helper.setTo(to);
-            helper.setSubject("Recuperação de Senha - EncenaPe");
+            helper.setSubject("Evento Cancelado - EncenaPe");
             
             Context context = new Context();
             context.setVariable("nome", nome);
-            context.setVariable("resetUrl", frontendUrl + "/reset-password?token=" + token + "&email=" + to);
+            context.setVariable("evento", evento);
+            context.setVariable("codigo", codigo);
+            context.setVariable("motivo", motivo);
             
-            String htmlContent = templateEngine.process("password-reset", context);
+            String htmlContent = templateEngine.process("event-cancellation", context);
             helper.setText(htmlContent, true);
             
-            mailSender.send(message);
-            log.info("Email de recuperação de senha enviado para: {}", to);
+            return filaEmailService.enfileirar(message, "cancelamento de evento para " + to);
             
         } catch (MessagingException e) {
-            log.error("Erro ao enviar email de recuperação de senha para: {}", to, e);
+            log.error("Erro ao montar email de cancelamento de evento para: {}", to, e);
             throw new RuntimeException("Erro ao enviar email", e);
         }
     }
     
-    public void sendPurchaseConfirmationEmail(String to, String nome, String evento, String codigo) {
+    // Para envios em massa: o template é processado uma vez e só os dados de cada destinatário mudam
+    public String renderizar(String template, Locale locale, Map<String, Object> variaveis) {
+        Context context = new Context(locale);
+        context.setVariables(variaveis);
+        return templateEngine.process(template, context);
+    }
+    
+    public CompletableFuture<Void> sendHtmlEmail(String to, String subject, String html) {
+        return filaEmailService.enfileirar(montarHtml(to, subject, html), "\"" + subject + "\" para " + to);
+    }
+    
+    // As imagens são anexadas inline e referenciadas no HTML por "cid:<chave>"
+    public CompletableFuture<Void> sendHtmlEmail(String to, String subject, String html, Map<String, byte[]> imagensPng) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
             
             helper.setFrom(fromEmail);
             helper.setTo(to);
-            helper.setSubject("Confirmação de Compra - EncenaPe");
-            
-            Context context = new Context();
-            context.setVariable("nome", nome);
-            context.setVariable("evento", evento);
-            context.setVariable("codigo", codigo);
+            helper.setSubject(subject);
+            helper.setText(html, true);
+            for (Map.Entry<String, byte[]> imagem : imagensPng.entrySet()) {
+                helper.addInline(imagem.getKey(), new ByteArrayResource(imagem.getValue()), "image/png");
+            }
             
-            String htmlContent = templateEngine.process("purchase-confirmation", context);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Email de confirmação de compra enviado para: {}", to);
+            return filaEmailService.enfileirar(message, "\"" + subject + "\" para " + to);
             
         } catch (MessagingException e) {
-            log.error("Erro ao enviar email de confirmação de compra para: {}", to, e);
+            log.error("Erro ao montar email para: {}", to, e);
+            throw new RuntimeException("Erro ao enviar email", e);
+        }
+    }
+    
+    // Mensagem de parte única só com o HTML: dispensa a árvore multipart do MimeMessageHelper, e o
+    // remetente e os cabeçalhos fixos vêm prontos. A codificação é declarada de antemão para que o
+    // JavaMail não precise varrer o corpo para escolhê-la.
+    private MimeMessage montarHtml(String to, String subject, String html) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(remetente != null ? remetente : new InternetAddress(fromEmail));
+            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+            message.setSubject(subject, "UTF-8");
+            message.setText(html, "UTF-8", "html");
+            message.setHeader("Content-Transfer-Encoding", "quoted-printable");
+            return message;
+        } catch (MessagingException e) {
+            log.error("Erro ao montar email para: {}", to, e);
             throw new RuntimeException("Erro ao enviar email", e);
         }
     }
     
-    public void sendSimpleEmail(String to, String subject, String text) {
+    public CompletableFuture<Void> sendSimpleEmail(String to, String subject, String text) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
             
-            mailSender.send(message);
-            log.info("Email simples enviado para: {}", to);
+            helper.setFrom(fromEmail);
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(text, false);
             
-        } catch (Exception e) {
-            log.error("Erro ao enviar email simples para: {}", to, e);
+            return filaEmailService.enfileirar(message, "\"" + subject + "\" para " + to);
+            
+        } catch (MessagingException e) {
+            log.error("Erro ao montar email simples para: {}", to, e);
             throw new RuntimeException("Erro ao enviar email", e);
         }
     }
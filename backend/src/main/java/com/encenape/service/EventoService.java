@@ -1,20 +1,34 @@
 package com.encenape.service;
 
 import com.encenape.dto.EventoResponse;
+import com.encenape.dto.EventoResumo;
+import com.encenape.dto.PaginaCursorResponse;
 import com.encenape.dto.CreateEventoRequest;
 import com.encenape.dto.UpdateEventoRequest;
 import com.encenape.model.Evento;
 import com.encenape.model.Espaco;
 import com.encenape.repository.EventoRepository;
 import com.encenape.repository.EspacoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.util.AnalisadorTexto;
+import com.encenape.util.CursorEventos;
+import com.encenape.util.Paginacao;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,52 +37,193 @@ public class EventoService {
     
     private final EventoRepository eventoRepository;
     private final EspacoRepository espacoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final InventarioService inventarioService;
+    private final QRCodeService qrCodeService;
+    private final NotificacaoEventoService notificacaoEventoService;
+    private final LembreteEventoService lembreteEventoService;
+    private final BuscaEventosService buscaEventosService;
+    private final CatalogoCacheService catalogoCacheService;
     
+    private static final int TAMANHO_PAGINA_CURSOR = 20;
+    private static final int TAMANHO_MAXIMO_PAGINA_CURSOR = 100;
+    
+    // As listas de ids vêm do cache do catálogo e os eventos do cache de segundo nível; data, status e
+    // estoque são conferidos aqui, então uma lista em cache nunca devolve evento que já saiu dela
+    @Transactional(readOnly = true)
     public List<EventoResponse> getProximosEventos() {
-        return eventoRepository.findProximosEventos(LocalDateTime.now())
-                .stream()
-                .map(this::mapToEventoResponse)
+        LocalDateTime agora = LocalDateTime.now();
+        List<Long> ids = catalogoCacheService.obter(CatalogoCacheService.PROXIMOS,
+                () -> eventoRepository.findIdsProximosEventos(agora));
+        List<Evento> eventos = carregarEventos(ids).stream()
+                .filter(Evento::isVendaAberta)
+                .collect(Collectors.toList());
+        Map<Long, Integer> estoque = getEstoque(eventos);
+        return eventos.stream()
+                .map(evento -> mapToEventoResponse(evento, getDisponivel(evento, estoque)))
                 .collect(Collectors.toList());
     }
     
+    // As listagens paginadas leem a projeção EventoResumo: evento e espaço num só SELECT, sem entidades
+    @Transactional(readOnly = true)
     public Page<EventoResponse> getProximosEventosPaginados(Pageable pageable) {
         return eventoRepository.findProximosEventosPaginados(LocalDateTime.now(), pageable)
-                .map(this::mapToEventoResponse);
+                .map(this::mapResumoToEventoResponse);
     }
     
+    @Transactional(readOnly = true)
     public Page<EventoResponse> getEventosComFiltros(String categoria, String cidade, 
                                                      LocalDateTime dataInicio, LocalDateTime dataFim, 
                                                      String search, Pageable pageable) {
+        if (buscaEventosService.getModo() == BuscaEventosService.ModoBusca.FULLTEXT) {
+            String termos = AnalisadorTexto.consultaBooleana(search);
+            if (termos != null) {
+                return carregarPagina(eventoRepository.findIdsEventosFullText(categoria, cidade, dataInicio, dataFim, termos,
+                        Paginacao.semOrdenacao(pageable)));
+            }
+        }
+        // Com termo de busca, o índice em memória resolve os filtros e o banco só carrega a página
+        Optional<Page<Long>> ids = buscaEventosService.buscar(search, categoria, cidade, dataInicio, dataFim, pageable);
+        if (ids.isPresent()) {
+            return carregarPagina(ids.get());
+        }
         return eventoRepository.findEventosComFiltros(categoria, cidade, dataInicio, dataFim, search, pageable)
-                .map(this::mapToEventoResponse);
+                .map(this::mapResumoToEventoResponse);
+    }
+    
+    // Página de ids já ordenada -> página de eventos, com uma consulta só, mantendo a ordem dos ids.
+    // Um evento excluído entre a busca e a carga simplesmente fica de fora da página.
+    private Page<EventoResponse> carregarPagina(Page<Long> ids) {
+        if (ids.getContent().isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, EventoResumo> eventos = eventoRepository.findResumosPorIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(EventoResumo::getId, evento -> evento));
+        List<EventoResponse> pagina = ids.getContent().stream()
+                .map(eventos::get)
+                .filter(Objects::nonNull)
+                .map(this::mapResumoToEventoResponse)
+                .collect(Collectors.toList());
+        return new PageImpl<>(pagina, ids.getPageable(), ids.getTotalElements());
+    }
+    
+    // Paginação por cursor: a página continua depois do último evento entregue, em (dataHora, id), e não
+    // depende de OFFSET nem de COUNT. O total só é contado quando pedido.
+    @Transactional(readOnly = true)
+    public PaginaCursorResponse<EventoResponse> getProximosEventosPorCursor(String cursor, Integer tamanho, boolean incluirTotal) {
+        LocalDateTime agora = LocalDateTime.now();
+        CursorEventos posicao = CursorEventos.decodificar(cursor);
+        Slice<EventoResumo> eventos = eventoRepository.findProximosEventosAposCursor(agora, posicao.getDataHora(), posicao.getId(),
+                PageRequest.of(0, tamanhoPagina(tamanho)));
+        return paginaCursor(eventos, incluirTotal ? eventoRepository.countProximosEventos(agora) : null);
+    }
+    
+    // Com cursor, a busca por texto usa LIKE: o índice em memória e o FULLTEXT ordenam de outro jeito
+    @Transactional(readOnly = true)
+    public PaginaCursorResponse<EventoResponse> getEventosComFiltrosPorCursor(String categoria, String cidade,
+                                                                              LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                                              String search, String cursor, Integer tamanho,
+                                                                              boolean incluirTotal) {
+        CursorEventos posicao = CursorEventos.decodificar(cursor);
+        Slice<EventoResumo> eventos = eventoRepository.findEventosComFiltrosAposCursor(categoria, cidade, dataInicio, dataFim, search,
+                posicao.getDataHora(), posicao.getId(), PageRequest.of(0, tamanhoPagina(tamanho)));
+        Long total = incluirTotal ? eventoRepository.countEventosComFiltros(categoria, cidade, dataInicio, dataFim, search) : null;
+        return paginaCursor(eventos, total);
+    }
+    
+    private static int tamanhoPagina(Integer tamanho) {
+        if (tamanho == null) {
+            return TAMANHO_PAGINA_CURSOR;
+        }
+        return Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA_CURSOR));
+    }
+    
+    private PaginaCursorResponse<EventoResponse> paginaCursor(Slice<EventoResumo> eventos, Long total) {
+        List<EventoResumo> conteudo = eventos.getContent();
+        String proximoCursor = null;
+        if (eventos.hasNext() && !conteudo.isEmpty()) {
+            EventoResumo ultimo = conteudo.get(conteudo.size() - 1);
+            proximoCursor = new CursorEventos(ultimo.getDataHora(), ultimo.getId()).codificar();
+        }
+        List<EventoResponse> pagina = conteudo.stream()
+                .map(this::mapResumoToEventoResponse)
+                .collect(Collectors.toList());
+        return new PaginaCursorResponse<>(pagina, proximoCursor, eventos.hasNext(), total);
     }
     
     public List<String> getCategorias() {
-        return eventoRepository.findCategoriasDistintas();
+        return catalogoCacheService.obter(CatalogoCacheService.CATEGORIAS, eventoRepository::findCategoriasDistintas);
     }
     
     public List<String> getCidades() {
-        return eventoRepository.findCidadesDistintas();
+        return catalogoCacheService.obter(CatalogoCacheService.CIDADES, eventoRepository::findCidadesDistintas);
     }
     
+    @Transactional(readOnly = true)
     public EventoResponse getEventoById(Long id) {
         Evento evento = eventoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
-        return mapToEventoResponse(evento);
+        return mapToEventoResponse(evento, getDisponivel(evento, getEstoque(List.of(evento))));
     }
     
+    @Transactional(readOnly = true)
     public List<EventoResponse> getEventosDisponiveis() {
-        return eventoRepository.findEventosDisponiveis(LocalDateTime.now())
-                .stream()
-                .map(this::mapToEventoResponse)
+        LocalDateTime agora = LocalDateTime.now();
+        List<Long> ids = catalogoCacheService.obter(CatalogoCacheService.DISPONIVEIS,
+                () -> eventoRepository.findIdsEventosDisponiveis(agora));
+        List<Evento> eventos = carregarEventos(ids).stream()
+                .filter(Evento::isVendaAberta)
                 .collect(Collectors.toList());
+        Map<Long, Integer> estoque = getEstoque(eventos);
+        List<EventoResponse> disponiveis = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            int disponivel = getDisponivel(evento, estoque);
+            if (disponivel > 0) {
+                disponiveis.add(mapToEventoResponse(evento, disponivel));
+            }
+        }
+        return disponiveis;
+    }
+    
+    // Busca por id, um a um, para passar pelo cache de segundo nível (findAllById iria ao banco)
+    private List<Evento> carregarEventos(List<Long> ids) {
+        List<Evento> eventos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            eventoRepository.findById(id).ifPresent(eventos::add);
+        }
+        return eventos;
+    }
+    
+    // O estoque não é lido da entidade: ela pode vir do segundo nível com um valor anterior aos UPDATEs nativos,
+    // que não passam pelos soft locks da região (e um leitor lento pode recolocar a linha antiga depois do evict).
+    // Uma consulta por lista, direto na tabela.
+    private Map<Long, Integer> getEstoque(List<Evento> eventos) {
+        if (eventos.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = eventos.stream().map(Evento::getId).collect(Collectors.toList());
+        Map<Long, Integer> estoque = new HashMap<>();
+        for (Object[] linha : eventoRepository.findTicketsAvailablePorIds(ids)) {
+            estoque.put((Long) linha[0], (Integer) linha[1]);
+        }
+        return estoque;
+    }
+    
+    private int getDisponivel(Evento evento, Map<Long, Integer> estoque) {
+        return getDisponivel(evento.getId(), estoque.getOrDefault(evento.getId(), 0));
+    }
+    
+    private int getDisponivel(Long eventoId, Integer ticketsAvailable) {
+        Integer disponivelEmMemoria = inventarioService.getDisponivelEmMemoria(eventoId);
+        return disponivelEmMemoria != null ? disponivelEmMemoria : ticketsAvailable;
     }
     
-    private EventoResponse mapToEventoResponse(Evento evento) {
+    private EventoResponse mapToEventoResponse(Evento evento, int disponivel) {
         EventoResponse response = new EventoResponse();
         response.setId(evento.getId());
         response.setTitulo(evento.getTitulo());
         response.setDescricao(evento.getDescricao());
+        response.setTrechoDescricao(trechoDescricao(evento.getDescricao()));
         response.setCategoria(evento.getCategoria());
         response.setCidade(evento.getCidade());
         response.setLocal(evento.getLocal());
@@ -77,7 +232,7 @@ public class EventoService {
         response.setDuracaoMin(evento.getDuracaoMin());
         response.setPreco(evento.getPreco());
         response.setTotalTickets(evento.getTotalTickets());
-        response.setTicketsAvailable(evento.getTicketsAvailable());
+        response.setTicketsAvailable(disponivel);
         response.setImagemUrl(evento.getImagemUrl());
         response.setAtivo(evento.getAtivo());
         response.setCreatedAt(evento.getCreatedAt());
@@ -98,6 +253,48 @@ public class EventoService {
         return response;
     }
     
+    // O mesmo corte do SUBSTRING das projeções
+    private static String trechoDescricao(String descricao) {
+        return descricao != null && descricao.length() > EventoRepository.TAMANHO_TRECHO_DESCRICAO
+                ? descricao.substring(0, EventoRepository.TAMANHO_TRECHO_DESCRICAO)
+                : descricao;
+    }
+    
+    // Nas listagens vem só o trecho inicial da descrição (a completa só no painel), e a do espaço não vem
+    private EventoResponse mapResumoToEventoResponse(EventoResumo evento) {
+        EventoResponse response = new EventoResponse();
+        response.setId(evento.getId());
+        response.setTitulo(evento.getTitulo());
+        response.setDescricao(evento.getDescricao());
+        response.setTrechoDescricao(evento.getTrechoDescricao());
+        response.setCategoria(evento.getCategoria());
+        response.setCidade(evento.getCidade());
+        response.setLocal(evento.getLocal());
+        response.setEndereco(evento.getEndereco());
+        response.setDataHora(evento.getDataHora());
+        response.setDuracaoMin(evento.getDuracaoMin());
+        response.setPreco(evento.getPreco());
+        response.setTotalTickets(evento.getTotalTickets());
+        response.setTicketsAvailable(getDisponivel(evento.getId(), evento.getTicketsAvailable()));
+        response.setImagemUrl(evento.getImagemUrl());
+        response.setAtivo(evento.getAtivo());
+        response.setCreatedAt(evento.getCreatedAt());
+        response.setUpdatedAt(evento.getUpdatedAt());
+        
+        if (evento.getEspacoId() != null) {
+            EventoResponse.EspacoResponse espacoResponse = new EventoResponse.EspacoResponse();
+            espacoResponse.setId(evento.getEspacoId());
+            espacoResponse.setNome(evento.getEspacoNome());
+            espacoResponse.setEndereco(evento.getEspacoEndereco());
+            espacoResponse.setCidade(evento.getEspacoCidade());
+            espacoResponse.setCapacidade(evento.getEspacoCapacidade());
+            espacoResponse.setDisponivel(evento.getEspacoDisponivel());
+            response.setEspaco(espacoResponse);
+        }
+        
+        return response;
+    }
+    
     // Métodos de administração
     @Transactional
     public EventoResponse criarEvento(CreateEventoRequest request) {
@@ -123,7 +320,10 @@ public class EventoService {
         }
         
         Evento savedEvento = eventoRepository.save(evento);
-        return mapToEventoResponse(savedEvento);
+        lembreteEventoService.agendar(savedEvento.getId(), savedEvento.getDataHora());
+        buscaEventosService.indexar(savedEvento);
+        catalogoCacheService.invalidarListas();
+        return mapToEventoResponse(savedEvento, getDisponivel(savedEvento.getId(), savedEvento.getTicketsAvailable()));
     }
     
     @Transactional
@@ -140,25 +340,36 @@ public class EventoService {
         if (request.getCategoria() != null) {
             evento.setCategoria(request.getCategoria());
         }
+        // Mudanças que afetam quem já comprou: data, horário e local
+        List<String> mudancas = new ArrayList<>();
         if (request.getCidade() != null) {
+            registrarMudanca(mudancas, "Cidade", evento.getCidade(), request.getCidade());
             evento.setCidade(request.getCidade());
         }
         if (request.getLocal() != null) {
+            registrarMudanca(mudancas, "Local", evento.getLocal(), request.getLocal());
             evento.setLocal(request.getLocal());
         }
         if (request.getEndereco() != null) {
+            registrarMudanca(mudancas, "Endereço", evento.getEndereco(), request.getEndereco());
             evento.setEndereco(request.getEndereco());
         }
         if (request.getDataHora() != null) {
+            registrarMudanca(mudancas, "Data e horário",
+                    evento.getDataHora() != null ? evento.getDataHora().format(NotificacaoEventoService.FORMATO_DATA) : null,
+                    request.getDataHora().format(NotificacaoEventoService.FORMATO_DATA));
             evento.setDataHora(request.getDataHora());
+            qrCodeService.invalidarEvento(evento.getId());
         }
         if (request.getDuracaoMin() != null) {
             evento.setDuracaoMin(request.getDuracaoMin());
+            qrCodeService.invalidarEvento(evento.getId());
         }
         if (request.getPreco() != null) {
             evento.setPreco(request.getPreco());
         }
         if (request.getTotalTickets() != null) {
+            inventarioService.ajustarCapacidade(evento.getId(), request.getTotalTickets() - evento.getTotalTickets());
             evento.setTotalTickets(request.getTotalTickets());
         }
         if (request.getImagemUrl() != null) {
@@ -170,22 +381,50 @@ public class EventoService {
         if (request.getEspacoId() != null) {
             Espaco espaco = espacoRepository.findById(request.getEspacoId())
                     .orElseThrow(() -> new RuntimeException("Espaço não encontrado"));
+            if (evento.getEspaco() == null || !evento.getEspaco().getId().equals(espaco.getId())) {
+                registrarMudanca(mudancas, "Espaço", evento.getEspaco() != null ? evento.getEspaco().getNome() : null, espaco.getNome());
+            }
             evento.setEspaco(espaco);
         }
         
         Evento savedEvento = eventoRepository.save(evento);
-        return mapToEventoResponse(savedEvento);
+        if (!mudancas.isEmpty()) {
+            notificacaoEventoService.agendarAlteracaoEvento(savedEvento.getId(), mudancas);
+        }
+        if (savedEvento.getAtivo()) {
+            lembreteEventoService.agendar(savedEvento.getId(), savedEvento.getDataHora());
+        } else {
+            lembreteEventoService.remover(savedEvento.getId());
+        }
+        buscaEventosService.indexar(savedEvento);
+        catalogoCacheService.invalidarListas();
+        return mapToEventoResponse(savedEvento, getDisponivel(savedEvento, getEstoque(List.of(savedEvento))));
+    }
+    
+    private static void registrarMudanca(List<String> mudancas, String campo, String anterior, String novo) {
+        if (!Objects.equals(anterior, novo)) {
+            mudancas.add(anterior != null ? campo + ": de " + anterior + " para " + novo : campo + ": " + novo);
+        }
     }
     
     @Transactional
     public void excluirEvento(Long id) {
         Evento evento = eventoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
+        // A exclusão apaga os ingressos em cascata sem reembolso; eventos com vendas devem ser cancelados
+        if (ingressoRepository.countIngressosAtivosByEvento(id) > 0) {
+            throw new RuntimeException("Evento possui ingressos ativos. Cancele o evento antes de excluí-lo");
+        }
         eventoRepository.delete(evento);
+        inventarioService.remover(id);
+        lembreteEventoService.remover(id);
+        buscaEventosService.remover(id);
+        catalogoCacheService.invalidarListas();
     }
     
+    @Transactional(readOnly = true)
     public Page<EventoResponse> getAllEventosAdmin(Pageable pageable) {
-        return eventoRepository.findAll(pageable)
-                .map(this::mapToEventoResponse);
+        return eventoRepository.findResumosCompletos(pageable)
+                .map(this::mapResumoToEventoResponse);
     }
 }
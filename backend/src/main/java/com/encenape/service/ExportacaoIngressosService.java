@@ -0,0 +1,126 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Exporta os QR Codes dos ingressos ativos de um evento num ZIP de PNGs, para impressão na bilheteria.
+// Percorre os ingressos em páginas por keyset e renderiza cada página em paralelo num ForkJoinPool
+// próprio enquanto a anterior é gravada na resposta. A memória fica limitada a duas páginas de PNGs,
+// qualquer que seja o tamanho do evento.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportacaoIngressosService {
+
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final QRCodeService qrCodeService;
+
+    @Value("${app.qrcode.exportacao.tamanho-pagina:256}")
+    private int tamanhoPagina;
+
+    @Value("${app.qrcode.exportacao.paralelismo:0}")
+    private int paralelismo;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void iniciar() {
+        pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public void validarEvento(Long eventoId) {
+        if (!eventoRepository.existsById(eventoId)) {
+            throw new RuntimeException("Evento não encontrado");
+        }
+    }
+
+    public void escreverZip(Long eventoId, OutputStream saida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        int total = 0;
+        ZipOutputStream zip = new ZipOutputStream(saida);
+        // PNG já é comprimido: as entradas são gravadas sem deflate
+        zip.setMethod(ZipOutputStream.STORED);
+        CRC32 crc = new CRC32();
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
+        // Todos os ingressos do evento têm a mesma validade
+        Instant expiraEm = qrCodeService.calcularExpiracao(evento);
+
+        List<Object[]> pagina = buscarPagina(eventoId, 0L);
+        List<ForkJoinTask<byte[]>> renderizando = renderizar(eventoId, expiraEm, pagina);
+        List<ForkJoinTask<byte[]>> proximaRenderizando = List.of();
+        try {
+            while (!pagina.isEmpty()) {
+                // Dispara a próxima página antes de gravar a atual, para que a renderização não espere a rede
+                Long ultimoId = (Long) pagina.get(pagina.size() - 1)[0];
+                List<Object[]> proxima = buscarPagina(eventoId, ultimoId);
+                proximaRenderizando = renderizar(eventoId, expiraEm, proxima);
+
+                for (int i = 0; i < pagina.size(); i++) {
+                    byte[] png = renderizando.get(i).join();
+                    crc.reset();
+                    crc.update(png);
+                    ZipEntry entrada = new ZipEntry(pagina.get(i)[1] + ".png");
+                    entrada.setSize(png.length);
+                    entrada.setCompressedSize(png.length);
+                    entrada.setCrc(crc.getValue());
+                    zip.putNextEntry(entrada);
+                    zip.write(png);
+                    zip.closeEntry();
+                }
+                zip.flush();
+                total += pagina.size();
+
+                pagina = proxima;
+                renderizando = proximaRenderizando;
+            }
+            zip.finish();
+        } finally {
+            // Cliente desconectado no meio: descarta o que ainda estava para renderizar
+            renderizando.forEach(tarefa -> tarefa.cancel(false));
+            proximaRenderizando.forEach(tarefa -> tarefa.cancel(false));
+        }
+        log.info("QR Codes do evento {} exportados: {} ingressos em {} ms", eventoId, total, System.currentTimeMillis() - inicio);
+    }
+
+    private List<Object[]> buscarPagina(Long eventoId, Long ultimoId) {
+        return ingressoRepository.findCodigosAtivosPorEventoAposId(eventoId, ultimoId, PageRequest.of(0, tamanhoPagina));
+    }
+
+    private List<ForkJoinTask<byte[]>> renderizar(Long eventoId, Instant expiraEm, List<Object[]> pagina) {
+        List<ForkJoinTask<byte[]>> tarefas = new ArrayList<>(pagina.size());
+        for (Object[] linha : pagina) {
+            String codigo = (String) linha[1];
+            int quantidade = (Integer) linha[2];
+            tarefas.add(pool.submit(() -> qrCodeService.gerarPng(codigo, eventoId, quantidade, expiraEm)));
+        }
+        return tarefas;
+    }
+}
@@ -3,7 +3,10 @@ package com.encenape.service;
 import com.encenape.dto.FAQResponse;
 import com.encenape.model.FAQ;
 import com.encenape.repository.FAQRepository;
+import com.encenape.util.AnalisadorTexto;
+import com.encenape.util.Paginacao;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -17,6 +20,10 @@ public class FAQService {
     
     private final FAQRepository faqRepository;
     
+    // Segue o mesmo app.busca.modo da busca de eventos
+    @Value("${app.busca.modo:MEMORIA}")
+    private BuscaEventosService.ModoBusca modoBusca;
+    
     public List<FAQResponse> getAllFAQs() {
         return faqRepository.findAtivosOrderByOrdem()
                 .stream()
@@ -41,6 +48,14 @@ public class FAQService {
             return getAllFAQs();
         }
         
+        String termos = usarFullText() ? AnalisadorTexto.consultaBooleana(query) : null;
+        if (termos != null) {
+            return faqRepository.searchFullText(termos)
+                    .stream()
+                    .map(this::mapToFAQResponse)
+                    .collect(Collectors.toList());
+        }
+        
         return faqRepository.searchByQuery(query.trim())
                 .stream()
                 .map(this::mapToFAQResponse)
@@ -52,10 +67,20 @@ public class FAQService {
             return getAllFAQsPaginado(pageable);
         }
         
+        String termos = usarFullText() ? AnalisadorTexto.consultaBooleana(query) : null;
+        if (termos != null) {
+            return faqRepository.searchFullTextPaginado(termos, Paginacao.semOrdenacao(pageable))
+                    .map(this::mapToFAQResponse);
+        }
+        
         return faqRepository.searchByQueryPaginado(query.trim(), pageable)
                 .map(this::mapToFAQResponse);
     }
     
+    private boolean usarFullText() {
+        return modoBusca == BuscaEventosService.ModoBusca.FULLTEXT;
+    }
+    
     public List<String> getCategorias() {
         return faqRepository.findCategoriasDistintas();
     }
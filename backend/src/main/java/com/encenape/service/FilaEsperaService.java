@@ -0,0 +1,153 @@
+package com.encenape.service;
+
+import com.encenape.dto.FilaStatusResponse;
+import com.encenape.model.Usuario;
+import com.encenape.util.LongLongHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fila virtual por evento. Cada cliente recebe uma posição sequencial e um token bucket avança o
+// ponteiro de admitidos na taxa configurada; a consulta de status é só uma comparação de posições.
+// O único estado por cliente é usuário -> posição num mapa primitivo (poucas dezenas de bytes por entrada).
+@Service
+@Slf4j
+public class FilaEsperaService {
+
+    @Value("${app.fila.taxa-por-segundo:50}")
+    private double taxaPadrao;
+
+    @Value("${app.fila.rajada:100}")
+    private int rajadaPadrao;
+
+    private final Map<Long, FilaEvento> filas = new ConcurrentHashMap<>();
+
+    public void ativarFila(Long eventoId, Double taxaPorSegundo, Integer rajada) {
+        double taxa = taxaPorSegundo != null && taxaPorSegundo > 0 ? taxaPorSegundo : taxaPadrao;
+        int capacidade = rajada != null && rajada > 0 ? rajada : rajadaPadrao;
+        filas.compute(eventoId, (id, atual) -> {
+            if (atual == null) {
+                return new FilaEvento(taxa, capacidade);
+            }
+            atual.configurar(taxa, capacidade);
+            return atual;
+        });
+        log.info("Fila virtual ativa para o evento {}: {} admissões/s, rajada {}", eventoId, taxa, capacidade);
+    }
+
+    public void desativarFila(Long eventoId) {
+        filas.remove(eventoId);
+    }
+
+    public boolean isFilaAtiva(Long eventoId) {
+        return filas.containsKey(eventoId);
+    }
+
+    public FilaStatusResponse entrarNaFila(Long eventoId, Usuario usuario) {
+        FilaEvento fila = filas.get(eventoId);
+        if (fila == null) {
+            return new FilaStatusResponse(eventoId, 0L, 0L, true);
+        }
+        return status(eventoId, fila, fila.entrar(usuario.getId()));
+    }
+
+    public FilaStatusResponse getStatus(Long eventoId, long posicao) {
+        FilaEvento fila = filas.get(eventoId);
+        if (fila == null) {
+            return new FilaStatusResponse(eventoId, posicao, 0L, true);
+        }
+        return status(eventoId, fila, posicao);
+    }
+
+    // Chamado antes de reservar estoque: sem fila ativa, qualquer comprador passa
+    public void verificarAdmissao(Long eventoId, Usuario usuario) {
+        FilaEvento fila = filas.get(eventoId);
+        if (fila != null && !fila.isAdmitido(usuario.getId())) {
+            throw new RuntimeException("Aguarde sua vez na fila virtual deste evento");
+        }
+    }
+
+    // Libera o lugar do usuário depois de uma compra concluída
+    public void concluir(Long eventoId, Usuario usuario) {
+        FilaEvento fila = filas.get(eventoId);
+        if (fila != null) {
+            fila.sair(usuario.getId());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.fila.intervalo-ms:100}")
+    public void admitir() {
+        long agora = System.nanoTime();
+        filas.values().forEach(fila -> fila.reabastecer(agora));
+    }
+
+    private FilaStatusResponse status(Long eventoId, FilaEvento fila, long posicao) {
+        long admitidosAte = fila.admitidosAte;
+        long aFrente = Math.max(0, posicao - admitidosAte - 1);
+        return new FilaStatusResponse(eventoId, posicao, aFrente, posicao <= admitidosAte);
+    }
+
+    private static final class FilaEvento {
+
+        private final AtomicLong ultimaPosicao = new AtomicLong();
+        private final LongLongHashMap posicoes = new LongLongHashMap(1024);
+        private volatile long admitidosAte;
+
+        // Estado do token bucket, alterado apenas pela thread do agendador
+        private volatile double taxaPorNano;
+        private volatile int capacidade;
+        private double tokens;
+        private long ultimoReabastecimento = System.nanoTime();
+
+        FilaEvento(double taxaPorSegundo, int capacidade) {
+            configurar(taxaPorSegundo, capacidade);
+        }
+
+        void configurar(double taxaPorSegundo, int capacidade) {
+            this.taxaPorNano = taxaPorSegundo / 1_000_000_000d;
+            this.capacidade = capacidade;
+        }
+
+        // Quem entra de novo mantém a posição original
+        long entrar(long usuarioId) {
+            synchronized (posicoes) {
+                long existente = posicoes.get(usuarioId, 0L);
+                if (existente != 0L) {
+                    return existente;
+                }
+                return posicoes.putIfAbsent(usuarioId, ultimaPosicao.incrementAndGet());
+            }
+        }
+
+        boolean isAdmitido(long usuarioId) {
+            long posicao;
+            synchronized (posicoes) {
+                posicao = posicoes.get(usuarioId, 0L);
+            }
+            return posicao != 0L && posicao <= admitidosAte;
+        }
+
+        void sair(long usuarioId) {
+            synchronized (posicoes) {
+                posicoes.remove(usuarioId);
+            }
+        }
+
+        void reabastecer(long agora) {
+            tokens = Math.min(capacidade, tokens + (agora - ultimoReabastecimento) * taxaPorNano);
+            ultimoReabastecimento = agora;
+
+            long aguardando = ultimaPosicao.get() - admitidosAte;
+            long admitir = Math.min((long) tokens, aguardando);
+            if (admitir > 0) {
+                admitidosAte += admitir;
+                tokens -= admitir;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.encenape.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Resultados de operações identificadas por Idempotency-Key, por usuário. Um retry com a mesma chave
+// recebe o resultado original (ou espera a execução em andamento) sem repetir a operação. O mapa é
+// limitado em tamanho e as entradas expiram por tempo; depois disso vale a consulta persistida.
+@Service
+@Slf4j
+public class IdempotenciaService {
+
+    @Value("${app.idempotencia.ttl-minutos:60}")
+    private long ttlMinutos;
+
+    @Value("${app.idempotencia.max-chaves:100000}")
+    private int maxChaves;
+
+    @Value("${app.idempotencia.espera-ms:10000}")
+    private long esperaMs;
+
+    // Ordem de inserção = ordem de expiração, já que o TTL é o mesmo para todas as entradas
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+            return size() > maxChaves;
+        }
+    };
+
+    // 'assinatura' resume os dados da requisição: a mesma chave com dados diferentes é rejeitada.
+    // 'persistido' procura um resultado já gravado, para chaves que saíram da memória ou vieram de outra instância.
+    @SuppressWarnings("unchecked")
+    public <T> T executar(Long usuarioId, String chave, String assinatura, Supplier<T> operacao, Supplier<Optional<T>> persistido) {
+        if (chave.length() > 100) {
+            throw new RuntimeException("Idempotency-Key deve ter no máximo 100 caracteres");
+        }
+
+        String id = usuarioId + ":" + chave;
+        long agora = System.currentTimeMillis();
+        Entrada nova = new Entrada(assinatura, agora + TimeUnit.MINUTES.toMillis(ttlMinutos));
+        Entrada existente;
+        synchronized (entradas) {
+            existente = entradas.get(id);
+            if (existente != null && existente.expiraEm < agora) {
+                entradas.remove(id);
+                existente = null;
+            }
+            if (existente == null) {
+                entradas.put(id, nova);
+            }
+        }
+
+        if (existente != null) {
+            if (!existente.assinatura.equals(assinatura)) {
+                throw new RuntimeException("Idempotency-Key já utilizada em outra requisição");
+            }
+            return (T) aguardar(existente);
+        }
+
+        try {
+            T resultado = persistido.get().orElseGet(operacao);
+            nova.resultado.complete(resultado);
+            return resultado;
+        } catch (RuntimeException e) {
+            // Outra instância pode ter gravado a mesma chave primeiro (violação da chave única)
+            Optional<T> vencedor = consultarSemFalhar(persistido);
+            if (vencedor.isPresent()) {
+                nova.resultado.complete(vencedor.get());
+                return vencedor.get();
+            }
+            // Falhas não ficam guardadas: um novo retry executa a operação de novo
+            synchronized (entradas) {
+                entradas.remove(id, nova);
+            }
+            nova.resultado.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void removerExpiradas() {
+        long agora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Iterator<Entrada> iterator = entradas.values().iterator();
+            while (iterator.hasNext() && iterator.next().expiraEm < agora) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Object aguardar(Entrada entrada) {
+        try {
+            return entrada.resultado.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Requisição com esta Idempotency-Key ainda em processamento");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Requisição interrompida");
+        }
+    }
+
+    private <T> Optional<T> consultarSemFalhar(Supplier<Optional<T>> persistido) {
+        try {
+            return persistido.get();
+        } catch (RuntimeException e) {
+            log.warn("Erro ao consultar resultado persistido de idempotência", e);
+            return Optional.empty();
+        }
+    }
+
+    private static final class Entrada {
+
+        private final String assinatura;
+        private final long expiraEm;
+        private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+
+        Entrada(String assinatura, long expiraEm) {
+            this.assinatura = assinatura;
+            this.expiraEm = expiraEm;
+        }
+    }
+}
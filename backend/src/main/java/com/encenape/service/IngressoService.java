@@ -6,80 +6,132 @@ import com.encenape.model.*;
 import com.encenape.repository.EventoRepository;
 import com.encenape.repository.IngressoRepository;
 import com.encenape.repository.UsuarioRepository;
+import com.encenape.service.pagamento.ResultadoPagamento;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class IngressoService {
     
     private final IngressoRepository ingressoRepository;
     private final EventoRepository eventoRepository;
     private final UsuarioRepository usuarioRepository;
-    private final EmailService emailService;
-    private final QRCodeService qrCodeService;
+    private final OutboxService outboxService;
+    private final InventarioService inventarioService;
+    private final FilaEsperaService filaEsperaService;
+    private final PagamentoService pagamentoService;
+    private final CheckInService checkInService;
+    private final PlatformTransactionManager transactionManager;
     
-    @Transactional
-    public IngressoResponse comprarIngresso(Usuario usuario, CompraIngressoRequest request) {
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    // Reserva o estoque, cobra fora de qualquer transação e só então grava o ingresso.
+    // Se a cobrança falhar o estoque é devolvido; se a gravação falhar, também há reembolso.
+    public IngressoResponse comprarIngresso(Usuario usuario, CompraIngressoRequest request, String chaveIdempotencia) {
         
         Evento evento = eventoRepository.findById(request.getEventoId())
                 .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
         
-        // Verificar disponibilidade
-        if (evento.getTicketsAvailable() < request.getQuantidade()) {
-            throw new RuntimeException("Ingressos insuficientes. Disponível: " + evento.getTicketsAvailable());
-        }
-        
         // Verificar se o evento ainda está ativo e no futuro
-        if (!evento.isDisponivel()) {
+        if (!evento.isVendaAberta()) {
             throw new RuntimeException("Evento não está mais disponível");
         }
         
-        // Calcular valor total
-        BigDecimal valorTotal = evento.getPreco().multiply(BigDecimal.valueOf(request.getQuantidade()));
+        // Em eventos com fila virtual, só compra quem já foi admitido
+        filaEsperaService.verificarAdmissao(evento.getId(), usuario);
+        
+        // Reservar os tickets (UPDATE condicional ou contadores em memória, conforme configuração)
+        int quantidade = request.getQuantidade();
+        transactionTemplate.executeWithoutResult(status -> inventarioService.reservar(evento.getId(), quantidade));
+        
+        BigDecimal valorTotal = evento.getPreco().multiply(BigDecimal.valueOf(quantidade));
+        String referencia = referenciaPagamento(usuario, chaveIdempotencia);
+        log.info("Cobrança {} do usuário {}: {} tickets do evento {}, valor {}",
+                referencia, usuario.getId(), quantidade, evento.getId(), valorTotal);
+        ResultadoPagamento pagamento;
+        try {
+            pagamento = pagamentoService.cobrar(request.getPaymentMethod(), valorTotal, referencia);
+        } catch (RuntimeException e) {
+            // Num timeout o gateway pode ter cobrado mesmo assim; a referência no log permite conciliar
+            log.warn("Cobrança {} do usuário {} não confirmada: {}", referencia, usuario.getId(), e.toString());
+            devolverEstoque(evento.getId(), quantidade);
+            throw e;
+        }
         
-        // Processar pagamento (mock)
-        processarPagamento(request.getPaymentMethod(), valorTotal);
+        try {
+            return transactionTemplate.execute(status -> mapToIngressoResponse(
+                    criarIngresso(usuario, evento, quantidade, request.getPaymentMethod(), pagamento.getTransacaoId(), chaveIdempotencia)));
+        } catch (RuntimeException e) {
+            pagamentoService.estornar(pagamento.getTransacaoId(), valorTotal);
+            devolverEstoque(evento.getId(), quantidade);
+            throw e;
+        }
+    }
+    
+    // Retries com a mesma Idempotency-Key repetem a referência, e o gateway não cobra a mesma compra duas vezes
+    private static String referenciaPagamento(Usuario usuario, String chaveIdempotencia) {
+        return chaveIdempotencia != null
+                ? "compra-" + usuario.getId() + "-" + chaveIdempotencia
+                : UUID.randomUUID().toString();
+    }
+    
+    // Emite o ingresso para tickets já reservados e pagos; roda na transação de quem chama
+    @Transactional
+    public IngressoResponse emitirIngresso(Usuario usuario, Evento evento, int quantidade, String paymentMethod, String transacaoPagamento) {
+        return mapToIngressoResponse(criarIngresso(usuario, evento, quantidade, paymentMethod, transacaoPagamento, null));
+    }
+    
+    // O pagamento já foi aprovado por quem chama; o email de confirmação sai pelo outbox depois do commit
+    public Ingresso criarIngresso(Usuario usuario, Evento evento, int quantidade, String paymentMethod,
+                                  String transacaoPagamento, String chaveIdempotencia) {
         
         // Criar ingresso
         Ingresso ingresso = new Ingresso();
         ingresso.setUsuario(usuario);
         ingresso.setEvento(evento);
-        ingresso.setQuantidade(request.getQuantidade());
-        ingresso.setValorTotal(valorTotal);
-        ingresso.setMetodoPagamento(request.getPaymentMethod());
+        ingresso.setQuantidade(quantidade);
+        ingresso.setValorTotal(evento.getPreco().multiply(BigDecimal.valueOf(quantidade)));
+        ingresso.setMetodoPagamento(paymentMethod);
+        ingresso.setTransacaoPagamento(transacaoPagamento);
+        ingresso.setChaveIdempotencia(chaveIdempotencia);
         ingresso.setStatus(Ingresso.StatusIngresso.ACTIVE);
         
         Ingresso savedIngresso = ingressoRepository.save(ingresso);
-        
-        // Decrementar tickets disponíveis
-        evento.setTicketsAvailable(evento.getTicketsAvailable() - request.getQuantidade());
-        eventoRepository.save(evento);
-        
-        // Gerar QR Code
-        String qrCodeUrl = qrCodeService.generateQRCode(savedIngresso.getCodigo());
-        savedIngresso.setQrCodeUrl(qrCodeUrl);
-        ingressoRepository.save(savedIngresso);
-        
-        // Enviar email de confirmação
-        emailService.sendPurchaseConfirmationEmail(
-            usuario.getEmail(),
-            usuario.getNome(),
-            evento.getTitulo(),
-            savedIngresso.getCodigo()
-        );
-        
-        return mapToIngressoResponse(savedIngresso);
+        outboxService.registrarConfirmacaoCompra(savedIngresso);
+        return savedIngresso;
+    }
+    
+    // Compensação de uma compra que não chegou a ser gravada
+    void devolverEstoque(Long eventoId, int quantidade) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> inventarioService.liberar(eventoId, quantidade));
+        } catch (RuntimeException e) {
+            log.error("Erro ao devolver {} tickets ao evento {}", quantidade, eventoId, e);
+        }
     }
     
+    @Transactional(readOnly = true)
     public List<IngressoResponse> getIngressosByUsuario(Usuario usuario) {
         return ingressoRepository.findByUsuarioOrderByCreatedAtDesc(usuario)
                 .stream()
@@ -87,11 +139,13 @@ public class IngressoService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public Page<IngressoResponse> getIngressosByUsuarioPaginado(Usuario usuario, Pageable pageable) {
         return ingressoRepository.findByUsuarioOrderByCreatedAtDesc(usuario, pageable)
                 .map(this::mapToIngressoResponse);
     }
     
+    @Transactional(readOnly = true)
     public List<IngressoResponse> getIngressosAtivosByUsuario(Usuario usuario) {
         return ingressoRepository.findAtivosByUsuario(usuario)
                 .stream()
@@ -99,6 +153,14 @@ public class IngressoService {
                 .collect(Collectors.toList());
     }
     
+    // Compra já gravada com esta Idempotency-Key, usada quando a chave não está mais no cache em memória
+    @Transactional(readOnly = true)
+    public Optional<IngressoResponse> getIngressoPorChaveIdempotencia(Usuario usuario, String chaveIdempotencia) {
+        return ingressoRepository.findByUsuarioIdAndChaveIdempotencia(usuario.getId(), chaveIdempotencia)
+                .map(this::mapToIngressoResponse);
+    }
+    
+    @Transactional(readOnly = true)
     public IngressoResponse getIngressoByCodigo(String codigo) {
         Ingresso ingresso = ingressoRepository.findByCodigo(codigo)
                 .orElseThrow(() -> new RuntimeException("Ingresso não encontrado"));
@@ -125,48 +187,40 @@ public class IngressoService {
             throw new RuntimeException("Ingresso já está cancelado");
         }
         
-        // Cancelar ingresso
-        ingresso.cancelar(motivo);
-        ingressoRepository.save(ingresso);
+        // Ingresso já usado na portaria não pode ser cancelado; se a portaria estiver aberta, o índice em
+        // memória é a fonte mais recente e passa a recusar o código (desfeito se a transação falhar)
+        if (ingresso.getQuantidadeUtilizada() > 0 || !checkInService.revogar(ingresso.getEvento().getId(), ingresso.getCodigo())) {
+            throw new RuntimeException("Ingresso já utilizado no evento");
+        }
+        
+        // Cancelar ingresso (condicional ao status ACTIVE, para que dois cancelamentos simultâneos não devolvam tickets em dobro)
+        int cancelados = ingressoRepository.cancelarIngresso(ingresso.getId(), LocalDateTime.now(), motivo);
+        if (cancelados == 0) {
+            throw new RuntimeException("Ingresso já está cancelado");
+        }
         
         // Devolver tickets ao evento
-        Evento evento = ingresso.getEvento();
-        evento.setTicketsAvailable(evento.getTicketsAvailable() + ingresso.getQuantidade());
-        eventoRepository.save(evento);
+        inventarioService.liberar(ingresso.getEvento().getId(), ingresso.getQuantidade());
         
-        // Processar reembolso (mock)
-        processarReembolso(ingresso.getValorTotal());
-    }
-    
-    private void processarPagamento(String paymentMethod, BigDecimal valor) {
-        // Mock de processamento de pagamento
-        if ("mock".equals(paymentMethod)) {
-            // Simular processamento bem-sucedido
-            return;
-        }
-        // Aqui seria a integração real com gateway de pagamento (Stripe, PagSeguro, etc.)
-        throw new RuntimeException("Método de pagamento não suportado: " + paymentMethod);
-    }
-    
-    private void processarReembolso(BigDecimal valor) {
-        // Mock de processamento de reembolso
-        // Aqui seria a integração real com gateway de pagamento para reembolso
+        // Reembolso gravado no outbox junto com o cancelamento; o PagamentoService envia em lote
+        pagamentoService.reembolsar(ingresso.getTransacaoPagamento(), ingresso.getValorTotal(), ingresso.getId());
     }
     
-    private IngressoResponse mapToIngressoResponse(Ingresso ingresso) {
+    IngressoResponse mapToIngressoResponse(Ingresso ingresso) {
         IngressoResponse response = new IngressoResponse();
         response.setId(ingresso.getId());
         response.setUsuarioId(ingresso.getUsuario().getId());
         response.setEventoId(ingresso.getEvento().getId());
         response.setQuantidade(ingresso.getQuantidade());
+        response.setQuantidadeUtilizada(ingresso.getQuantidadeUtilizada());
         response.setCodigo(ingresso.getCodigo());
-        response.setQrCodeUrl(ingresso.getQrCodeUrl());
         response.setStatus(ingresso.getStatus().name());
         response.setValorTotal(ingresso.getValorTotal());
         response.setMetodoPagamento(ingresso.getMetodoPagamento());
         response.setCancelReason(ingresso.getCancelReason());
         response.setCreatedAt(ingresso.getCreatedAt());
         response.setCanceledAt(ingresso.getCanceledAt());
+        response.setUtilizadoEm(ingresso.getUtilizadoEm());
         
         // Mapear evento
         IngressoResponse.EventoResponse eventoResponse = new IngressoResponse.EventoResponse();
@@ -0,0 +1,314 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.ReservaRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Estoque de ingressos por evento. No modo padrão cada reserva é um UPDATE condicional em eventos;
+// com app.inventario.em-memoria=true o estoque fica em contadores particionados reservados por CAS e
+// é gravado em Evento.ticketsAvailable periodicamente (write-behind). Esse modo pressupõe uma única instância.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventarioService {
+
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final ReservaRepository reservaRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final CatalogoCacheService catalogoCacheService;
+
+    @Value("${app.inventario.em-memoria:false}")
+    private boolean emMemoria;
+
+    @Value("${app.inventario.stripes:0}")
+    private int stripesConfigurados;
+
+    private final Map<Long, EstoqueEvento> estoques = new ConcurrentHashMap<>();
+
+    // Chamado dentro da transação da compra: se ela sofrer rollback, a reserva em memória é devolvida
+    public void reservar(Long eventoId, int quantidade) {
+        if (!emMemoria) {
+            if (eventoRepository.decrementarTicketsDisponiveis(eventoId, quantidade) == 0) {
+                throw new RuntimeException("Ingressos insuficientes para a quantidade solicitada");
+            }
+            catalogoCacheService.invalidarEvento(eventoId);
+            return;
+        }
+
+        EstoqueEvento estoque = getEstoque(eventoId);
+        if (!estoque.reservar(quantidade)) {
+            throw new RuntimeException("Ingressos insuficientes. Disponível: " + estoque.disponivel());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        estoque.devolver(quantidade);
+                    }
+                }
+            });
+        }
+    }
+
+    // Reserva um lote de pedidos do mesmo evento de uma vez, na ordem de chegada. No modo banco o caso
+    // comum é um único UPDATE para o lote todo; perto de esgotar, cai para um UPDATE condicional por pedido.
+    public boolean[] reservarLote(Long eventoId, int[] quantidades) {
+        boolean[] aceitos = new boolean[quantidades.length];
+        int total = 0;
+        for (int quantidade : quantidades) {
+            total += quantidade;
+        }
+
+        if (!emMemoria) {
+            catalogoCacheService.invalidarEvento(eventoId);
+            if (eventoRepository.decrementarTicketsDisponiveis(eventoId, total) == 1) {
+                Arrays.fill(aceitos, true);
+                return aceitos;
+            }
+            for (int i = 0; i < quantidades.length; i++) {
+                aceitos[i] = eventoRepository.decrementarTicketsDisponiveis(eventoId, quantidades[i]) == 1;
+            }
+            return aceitos;
+        }
+
+        EstoqueEvento estoque = getEstoque(eventoId);
+        int reservado = 0;
+        for (int i = 0; i < quantidades.length; i++) {
+            aceitos[i] = estoque.reservar(quantidades[i]);
+            if (aceitos[i]) {
+                reservado += quantidades[i];
+            }
+        }
+
+        int reservadoNoLote = reservado;
+        if (reservadoNoLote > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        estoque.devolver(reservadoNoLote);
+                    }
+                }
+            });
+        }
+        return aceitos;
+    }
+
+    // Dentro de uma transação a devolução em memória só acontece após o commit
+    public void liberar(Long eventoId, int quantidade) {
+        // Um evento esgotado pode voltar a ter ingressos: a lista de disponíveis em cache é descartada
+        catalogoCacheService.invalidar(CatalogoCacheService.DISPONIVEIS);
+        if (!emMemoria) {
+            eventoRepository.incrementarTicketsDisponiveis(eventoId, quantidade);
+            catalogoCacheService.invalidarEvento(eventoId);
+            return;
+        }
+
+        EstoqueEvento estoque = getEstoque(eventoId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    estoque.devolver(quantidade);
+                }
+            });
+        } else {
+            estoque.devolver(quantidade);
+        }
+    }
+
+    // Aplica a variação quando o total de tickets de um evento é alterado
+    public void ajustarCapacidade(Long eventoId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!emMemoria) {
+            eventoRepository.ajustarTicketsDisponiveis(eventoId, delta);
+            catalogoCacheService.invalidarEvento(eventoId);
+            return;
+        }
+
+        EstoqueEvento estoque = estoques.get(eventoId);
+        if (estoque == null) {
+            // Ainda não carregado: o valor será recalculado a partir do banco no primeiro acesso
+            return;
+        }
+        if (delta > 0) {
+            estoque.devolver(delta);
+        } else {
+            estoque.retirarAte(-delta);
+        }
+    }
+
+    // Valor corrente em memória, ou null se o evento não estiver carregado (ou o modo for banco)
+    public Integer getDisponivelEmMemoria(Long eventoId) {
+        if (!emMemoria) {
+            return null;
+        }
+        EstoqueEvento estoque = estoques.get(eventoId);
+        return estoque != null ? estoque.disponivel() : null;
+    }
+
+    public void remover(Long eventoId) {
+        estoques.remove(eventoId);
+    }
+
+    // Write-behind: grava o valor absoluto de cada evento alterado desde a última sincronização
+    @Scheduled(fixedDelayString = "${app.inventario.flush-interval-ms:1000}")
+    public void sincronizar() {
+        if (!emMemoria || estoques.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        estoques.forEach((eventoId, estoque) -> {
+            if (!estoque.limparSujo()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        eventoRepository.atualizarTicketsDisponiveis(eventoId, estoque.disponivel()));
+                catalogoCacheService.invalidarEvento(eventoId);
+            } catch (Exception e) {
+                estoque.marcarSujo();
+                log.error("Erro ao sincronizar estoque do evento {}", eventoId, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        sincronizar();
+    }
+
+    // Carrega fora do mapa: computeIfAbsent seguraria o bin do ConcurrentHashMap durante as consultas.
+    // Se duas threads carregarem o mesmo evento, fica o primeiro estoque publicado e o outro é descartado.
+    private EstoqueEvento getEstoque(Long eventoId) {
+        EstoqueEvento estoque = estoques.get(eventoId);
+        if (estoque != null) {
+            return estoque;
+        }
+        EstoqueEvento carregado = carregar(eventoId);
+        estoque = estoques.putIfAbsent(eventoId, carregado);
+        return estoque != null ? estoque : carregado;
+    }
+
+    // Recalcula a partir dos ingressos e reservas ativos para não depender de um write-behind que pode ter se perdido num restart
+    private EstoqueEvento carregar(Long eventoId) {
+        Evento evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
+        long vendidos = ingressoRepository.somarQuantidadeAtivaPorEvento(eventoId)
+                + reservaRepository.somarQuantidadeAtivaPorEvento(eventoId);
+        int disponivel = (int) Math.max(0, evento.getTotalTickets() - vendidos);
+
+        int stripes = stripesConfigurados > 0 ? stripesConfigurados : Runtime.getRuntime().availableProcessors();
+        EstoqueEvento estoque = new EstoqueEvento(stripes, disponivel);
+        if (evento.getTicketsAvailable() == null || evento.getTicketsAvailable() != disponivel) {
+            estoque.marcarSujo();
+        }
+        log.debug("Estoque do evento {} carregado em memória: {} tickets em {} stripes", eventoId, disponivel, stripes);
+        return estoque;
+    }
+
+    // Contador particionado: cada stripe ocupa sua própria linha de cache e é reservado por CAS.
+    // Uma reserva começa pelo stripe da thread e, se ele não bastar, completa com os demais.
+    static final class EstoqueEvento {
+
+        // 16 ints = 64 bytes entre stripes, para evitar false sharing
+        private static final int ESPACAMENTO = 16;
+
+        private final AtomicIntegerArray slots;
+        private final int stripes;
+        private final AtomicBoolean sujo = new AtomicBoolean();
+
+        EstoqueEvento(int stripes, int disponivel) {
+            this.stripes = stripes;
+            this.slots = new AtomicIntegerArray(stripes * ESPACAMENTO);
+            int base = disponivel / stripes;
+            int resto = disponivel % stripes;
+            for (int i = 0; i < stripes; i++) {
+                slots.set(i * ESPACAMENTO, base + (i < resto ? 1 : 0));
+            }
+        }
+
+        int disponivel() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += slots.get(i * ESPACAMENTO);
+            }
+            return total;
+        }
+
+        boolean reservar(int quantidade) {
+            int obtido = retirarAte(quantidade);
+            if (obtido == quantidade) {
+                return true;
+            }
+            if (obtido > 0) {
+                devolver(obtido);
+            }
+            return false;
+        }
+
+        // Retira até 'quantidade' tickets, percorrendo os stripes a partir do da thread atual
+        int retirarAte(int quantidade) {
+            int inicio = stripeDaThread();
+            int obtido = 0;
+            for (int n = 0; n < stripes && obtido < quantidade; n++) {
+                int indice = ((inicio + n) % stripes) * ESPACAMENTO;
+                while (true) {
+                    int atual = slots.get(indice);
+                    if (atual == 0) {
+                        break;
+                    }
+                    int retirar = Math.min(atual, quantidade - obtido);
+                    if (slots.compareAndSet(indice, atual, atual - retirar)) {
+                        obtido += retirar;
+                        break;
+                    }
+                }
+            }
+            if (obtido > 0) {
+                sujo.set(true);
+            }
+            return obtido;
+        }
+
+        void devolver(int quantidade) {
+            slots.addAndGet(stripeDaThread() * ESPACAMENTO, quantidade);
+            sujo.set(true);
+        }
+
+        boolean limparSujo() {
+            return sujo.compareAndSet(true, false);
+        }
+
+        void marcarSujo() {
+            sujo.set(true);
+        }
+
+        private int stripeDaThread() {
+            return (int) (Thread.currentThread().getId() % stripes);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.encenape.service;
+
+import com.encenape.repository.EventoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Lembretes por email algumas horas antes de cada evento. Os próximos eventos ficam numa agenda em
+// memória ordenada pelo instante do lembrete, e um único timer fica armado para o primeiro da fila:
+// entre um disparo e outro nada roda. No disparo, o envio é gravado em notificacoes_evento, que percorre
+// os compradores em páginas e entrega os emails em massa; a chave (evento, data) garante um envio por
+// data mesmo após restarts ou com várias instâncias. Criar, alterar, excluir ou cancelar um evento
+// atualiza a agenda depois do commit.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LembreteEventoService {
+
+    private static final long ESPERA_APOS_ERRO_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final EventoRepository eventoRepository;
+    private final NotificacaoEventoService notificacaoEventoService;
+
+    @Value("${app.lembretes.antecedencia-horas:24}")
+    private long antecedenciaHoras;
+
+    // Ordenada pelo disparo; o id do evento desempata lembretes no mesmo instante
+    private final TreeSet<Lembrete> agenda = new TreeSet<>(
+            Comparator.comparing((Lembrete lembrete) -> lembrete.disparo).thenComparing(lembrete -> lembrete.eventoId));
+    private final Map<Long, Lembrete> porEvento = new HashMap<>();
+
+    private ScheduledExecutorService agendador;
+    private ScheduledFuture<?> timer;
+    private LocalDateTime timerArmadoPara;
+
+    @PostConstruct
+    public void iniciar() {
+        agendador = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        agendador.shutdownNow();
+        agendador.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Eventos cujo lembrete já passou mas que ainda não começaram disparam logo (aplicação fora do ar na hora)
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        List<Object[]> eventos = eventoRepository.findAgendaProximosEventos(LocalDateTime.now());
+        synchronized (agenda) {
+            for (Object[] evento : eventos) {
+                colocar((Long) evento[0], (LocalDateTime) evento[1]);
+            }
+            rearmar();
+        }
+        log.info("Agenda de lembretes carregada: {} eventos", eventos.size());
+    }
+
+    // Dentro de uma transação, só após o commit
+    public void agendar(Long eventoId, LocalDateTime dataHora) {
+        aposCommit(() -> {
+            synchronized (agenda) {
+                if (dataHora.isAfter(LocalDateTime.now())) {
+                    colocar(eventoId, dataHora);
+                } else {
+                    retirar(eventoId);
+                }
+                rearmar();
+            }
+        });
+    }
+
+    public void remover(Long eventoId) {
+        aposCommit(() -> {
+            synchronized (agenda) {
+                retirar(eventoId);
+                rearmar();
+            }
+        });
+    }
+
+    private void disparar() {
+        List<Lembrete> vencidos = new ArrayList<>();
+        synchronized (agenda) {
+            timer = null;
+            timerArmadoPara = null;
+            LocalDateTime agora = LocalDateTime.now();
+            while (!agenda.isEmpty() && !agenda.first().disparo.isAfter(agora)) {
+                Lembrete lembrete = agenda.pollFirst();
+                porEvento.remove(lembrete.eventoId);
+                vencidos.add(lembrete);
+            }
+        }
+
+        for (Lembrete lembrete : vencidos) {
+            try {
+                // Evento cancelado ou remarcado sem passar por aqui é descartado no processamento
+                if (notificacaoEventoService.agendarLembrete(lembrete.eventoId, lembrete.dataHora)) {
+                    log.info("Lembrete do evento {} agendado para envio", lembrete.eventoId);
+                }
+            } catch (RuntimeException e) {
+                log.error("Erro ao agendar lembrete do evento {}; nova tentativa em {} ms", lembrete.eventoId, ESPERA_APOS_ERRO_MS, e);
+                synchronized (agenda) {
+                    // Só volta se a agenda não recebeu uma data nova para o evento nesse meio tempo
+                    if (!porEvento.containsKey(lembrete.eventoId)) {
+                        Lembrete novaTentativa = new Lembrete(lembrete.eventoId, lembrete.dataHora,
+                                LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ESPERA_APOS_ERRO_MS)));
+                        agenda.add(novaTentativa);
+                        porEvento.put(lembrete.eventoId, novaTentativa);
+                    }
+                }
+            }
+        }
+
+        synchronized (agenda) {
+            rearmar();
+        }
+    }
+
+    private void colocar(Long eventoId, LocalDateTime dataHora) {
+        retirar(eventoId);
+        Lembrete lembrete = new Lembrete(eventoId, dataHora, dataHora.minusHours(antecedenciaHoras));
+        agenda.add(lembrete);
+        porEvento.put(eventoId, lembrete);
+    }
+
+    private void retirar(Long eventoId) {
+        Lembrete anterior = porEvento.remove(eventoId);
+        if (anterior != null) {
+            agenda.remove(anterior);
+        }
+    }
+
+    // Mantém um único timer, armado para o primeiro lembrete da agenda. Chamado com o lock da agenda.
+    private void rearmar() {
+        LocalDateTime proximo = agenda.isEmpty() ? null : agenda.first().disparo;
+        if (proximo != null && proximo.equals(timerArmadoPara)) {
+            return;
+        }
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+            timerArmadoPara = null;
+        }
+        if (proximo == null) {
+            return;
+        }
+        long atraso = Math.max(0, Duration.between(LocalDateTime.now(), proximo).toMillis());
+        timer = agendador.schedule(this::disparar, atraso, TimeUnit.MILLISECONDS);
+        timerArmadoPara = proximo;
+    }
+
+    private static void aposCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    private static final class Lembrete {
+
+        private final Long eventoId;
+        private final LocalDateTime dataHora;
+        private final LocalDateTime disparo;
+
+        Lembrete(Long eventoId, LocalDateTime dataHora, LocalDateTime disparo) {
+            this.eventoId = eventoId;
+            this.dataHora = dataHora;
+            this.disparo = disparo;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class MensagemService {
     
     private final MensagemRepository mensagemRepository;
     private final EmailService emailService;
+    private final ResumoMensagensService resumoMensagensService;
     
     @Transactional
     public MensagemResponse criarMensagem(MensagemRequest request) {
@@ -31,24 +32,13 @@ public class MensagemService {
         
         Mensagem savedMensagem = mensagemRepository.save(mensagem);
         
-        // Notificar administradores por email (opcional)
-        try {
-            emailService.sendSimpleEmail(
-                "admin@encenape.com",
-                "Nova mensagem de suporte - EncenaPe",
-                "Nova mensagem recebida:\n\n" +
-                "Remetente: " + (request.getRemetente() != null ? request.getRemetente() : "Anônimo") + "\n" +
-                "Email: " + (request.getEmailContato() != null ? request.getEmailContato() : "Não informado") + "\n" +
-                "Mensagem: " + request.getTexto()
-            );
-        } catch (Exception e) {
-            // Log do erro mas não falha a operação
-            System.err.println("Erro ao enviar notificação por email: " + e.getMessage());
-        }
+        // Os administradores recebem um resumo periódico em vez de um email por mensagem
+        resumoMensagensService.registrar(savedMensagem);
         
         return mapToMensagemResponse(savedMensagem);
     }
     
+    @Transactional(readOnly = true)
     public List<MensagemResponse> getAllMensagens() {
         return mensagemRepository.findAll()
                 .stream()
@@ -56,11 +46,13 @@ public class MensagemService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public Page<MensagemResponse> getAllMensagensPaginado(Pageable pageable) {
         return mensagemRepository.findAll(pageable)
                 .map(this::mapToMensagemResponse);
     }
     
+    @Transactional(readOnly = true)
     public List<MensagemResponse> getMensagensAbertas() {
         return mensagemRepository.findAll()
                 .stream()
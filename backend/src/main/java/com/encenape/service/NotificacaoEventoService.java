@@ -0,0 +1,353 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.model.NotificacaoEvento;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.NotificacaoEventoRepository;
+import com.encenape.service.email.FilaEmailCheiaException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Envios em massa para os compradores de um evento: avisos de alteração e lembretes com os QR Codes. O
+// pedido é gravado numa transação e um worker o processa depois: percorre os compradores distintos com
+// ingresso ativo em páginas, renderiza o template uma vez só (nome e ingressos de cada destinatário
+// entram por substituição) e enfileira os emails na FilaEmailService numa taxa limitada. Ao fim de cada
+// página o cursor é gravado; se a aplicação cair, o envio é retomado do último checkpoint quando o prazo
+// de posse expirar (no pior caso a página em andamento é reenviada). Um erro no worker reagenda com
+// backoff; retomadas sem nenhuma página concluída contam como tentativa e, esgotadas, o envio para como FAILED.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificacaoEventoService {
+
+    static final String MARCADOR_NOME = "%%NOME%%";
+    static final String MARCADOR_INGRESSOS = "%%INGRESSOS%%";
+    static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy 'às' HH:mm");
+    private static final Locale LOCALE = new Locale("pt", "BR");
+
+    private final NotificacaoEventoRepository notificacaoEventoRepository;
+    private final EventoRepository eventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final EmailService emailService;
+    private final QRCodeService qrCodeService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.notificacoes.tamanho-pagina:200}")
+    private int tamanhoPagina;
+
+    @Value("${app.notificacoes.taxa-por-segundo:20}")
+    private double taxaPorSegundo;
+
+    @Value("${app.notificacoes.prazo-segundos:300}")
+    private long prazoSegundos;
+
+    @Value("${app.notificacoes.max-tentativas:5}")
+    private int maxTentativas;
+
+    @Value("${app.notificacoes.backoff-inicial-segundos:60}")
+    private long backoffInicialSegundos;
+
+    private final AtomicBoolean ocupado = new AtomicBoolean();
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newSingleThreadExecutor();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Interrompe o envio em andamento; ele é retomado do checkpoint na próxima inicialização
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Deve ser chamado dentro da transação que altera o evento
+    public void agendarAlteracaoEvento(Long eventoId, List<String> mudancas) {
+        NotificacaoEvento notificacao = new NotificacaoEvento();
+        notificacao.setEventoId(eventoId);
+        notificacao.setTipo(NotificacaoEvento.TipoNotificacao.ALTERACAO_EVENTO);
+        notificacao.setDados(String.join("\n", mudancas));
+        notificacao.setStatus(NotificacaoEvento.StatusNotificacao.PENDING);
+        notificacao.setPrazo(LocalDateTime.now());
+        notificacaoEventoRepository.save(notificacao);
+    }
+
+    // Grava o lembrete de um evento para a data 'dataHora', uma vez só: a chave única (evento, tipo, chave)
+    // barra o segundo pedido, venha ele de um restart ou de outra instância. Retorna false se já existia.
+    public boolean agendarLembrete(Long eventoId, LocalDateTime dataHora) {
+        String chave = dataHora.toString();
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (notificacaoEventoRepository.existsByEventoIdAndTipoAndChave(
+                        eventoId, NotificacaoEvento.TipoNotificacao.LEMBRETE_EVENTO, chave)) {
+                    return false;
+                }
+                NotificacaoEvento notificacao = new NotificacaoEvento();
+                notificacao.setEventoId(eventoId);
+                notificacao.setTipo(NotificacaoEvento.TipoNotificacao.LEMBRETE_EVENTO);
+                notificacao.setChave(chave);
+                notificacao.setStatus(NotificacaoEvento.StatusNotificacao.PENDING);
+                notificacao.setPrazo(LocalDateTime.now());
+                notificacaoEventoRepository.saveAndFlush(notificacao);
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    // Um envio por vez: a taxa limite vale para a aplicação toda
+    @Scheduled(fixedDelayString = "${app.notificacoes.intervalo-ms:5000}")
+    public void despachar() {
+        if (!ocupado.compareAndSet(false, true)) {
+            return;
+        }
+        boolean iniciado = false;
+        try {
+            Long id = transactionTemplate.execute(status -> {
+                LocalDateTime agora = LocalDateTime.now();
+                for (Long candidato : notificacaoEventoRepository.findIdsProntos(agora, PageRequest.of(0, 5))) {
+                    if (notificacaoEventoRepository.reivindicar(candidato, agora, agora.plusSeconds(prazoSegundos)) == 1) {
+                        return candidato;
+                    }
+                }
+                return null;
+            });
+            if (id != null) {
+                executor.execute(() -> {
+                    try {
+                        processar(id);
+                    } finally {
+                        ocupado.set(false);
+                    }
+                });
+                iniciado = true;
+            }
+        } catch (Exception e) {
+            log.error("Erro ao despachar notificações de evento", e);
+        } finally {
+            if (!iniciado) {
+                ocupado.set(false);
+            }
+        }
+    }
+
+    // Package-private para os testes
+    void processar(Long id) {
+        NotificacaoEvento notificacao = notificacaoEventoRepository.findById(id).orElse(null);
+        if (notificacao == null) {
+            return;
+        }
+        if (notificacao.getTentativas() >= maxTentativas) {
+            transactionTemplate.executeWithoutResult(status -> notificacaoEventoRepository.abandonarEsgotada(
+                    id, maxTentativas, "Prazo de processamento esgotado em todas as tentativas"));
+            log.error("Notificação {} ({}) abandonada após {} tentativas sem progresso", id, notificacao.getTipo(), notificacao.getTentativas());
+            return;
+        }
+        Evento evento = eventoRepository.findById(notificacao.getEventoId()).orElse(null);
+        if (evento == null || (isLembrete(notificacao) && !lembreteAindaValido(evento, notificacao.getChave()))) {
+            transactionTemplate.executeWithoutResult(status -> notificacaoEventoRepository.marcarConcluida(id, LocalDateTime.now()));
+            return;
+        }
+
+        String assunto;
+        String html;
+        if (isLembrete(notificacao)) {
+            assunto = "Lembrete: " + evento.getTitulo() + " é amanhã - EncenaPe";
+            Map<String, Object> variaveis = variaveis(evento);
+            variaveis.put("ingressos", MARCADOR_INGRESSOS);
+            html = emailService.renderizar("event-reminder", LOCALE, variaveis);
+        } else {
+            assunto = "Evento alterado: " + evento.getTitulo() + " - EncenaPe";
+            Map<String, Object> variaveis = variaveis(evento);
+            variaveis.put("mudancas", notificacao.getDados() != null ? Arrays.asList(notificacao.getDados().split("\n")) : List.of());
+            html = emailService.renderizar("event-update", LOCALE, variaveis);
+        }
+        // Todos os ingressos do evento têm a mesma validade
+        Instant expiraEm = qrCodeService.calcularExpiracao(evento);
+
+        long inicio = System.currentTimeMillis();
+        long intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / taxaPorSegundo);
+        long proximoEnvio = System.nanoTime();
+        Long ultimoUsuarioId = notificacao.getUltimoUsuarioId();
+        int totalEnviados = notificacao.getEnviados();
+        try {
+            while (true) {
+                List<Object[]> pagina = ingressoRepository.findDestinatariosAtivosPorEvento(
+                        evento.getId(), ultimoUsuarioId, PageRequest.of(0, tamanhoPagina));
+                if (pagina.isEmpty()) {
+                    break;
+                }
+                Map<Long, List<Object[]>> ingressosPorUsuario = isLembrete(notificacao)
+                        ? buscarIngressos(evento.getId(), pagina) : Map.of();
+
+                List<CompletableFuture<Boolean>> envios = new ArrayList<>(pagina.size());
+                for (Object[] destinatario : pagina) {
+                    proximoEnvio = aguardarVez(proximoEnvio, intervaloNanos);
+                    String nome = destinatario[1] != null ? (String) destinatario[1] : "";
+                    String corpo = html.replace(MARCADOR_NOME, HtmlUtils.htmlEscape(nome));
+                    Map<String, byte[]> imagens = Map.of();
+                    if (isLembrete(notificacao)) {
+                        List<Object[]> ingressos = ingressosPorUsuario.getOrDefault((Long) destinatario[0], List.of());
+                        imagens = new LinkedHashMap<>();
+                        corpo = corpo.replace(MARCADOR_INGRESSOS, montarIngressos(evento.getId(), expiraEm, ingressos, imagens));
+                    }
+                    envios.add(enviar((String) destinatario[2], assunto, corpo, imagens));
+                }
+
+                // Checkpoint só depois que o servidor SMTP respondeu por todos os emails da página
+                int enviados = 0;
+                int falhas = 0;
+                for (CompletableFuture<Boolean> envio : envios) {
+                    if (envio.join()) {
+                        enviados++;
+                    } else {
+                        falhas++;
+                    }
+                }
+                ultimoUsuarioId = (Long) pagina.get(pagina.size() - 1)[0];
+                totalEnviados += enviados;
+                Long cursor = ultimoUsuarioId;
+                int enviadosPagina = enviados;
+                int falhasPagina = falhas;
+                transactionTemplate.executeWithoutResult(status -> notificacaoEventoRepository.registrarProgresso(
+                        id, cursor, enviadosPagina, falhasPagina, LocalDateTime.now().plusSeconds(prazoSegundos)));
+            }
+            transactionTemplate.executeWithoutResult(status -> notificacaoEventoRepository.marcarConcluida(id, LocalDateTime.now()));
+            log.info("Notificação {} ({}) do evento {} concluída: {} emails em {} ms",
+                    id, notificacao.getTipo(), evento.getId(), totalEnviados, System.currentTimeMillis() - inicio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Notificação {} interrompida; será retomada do último checkpoint", id);
+        } catch (Exception e) {
+            registrarFalha(id, e);
+        }
+    }
+
+    // Relê as tentativas: as páginas concluídas antes do erro já as zeraram
+    private void registrarFalha(Long id, Exception erro) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int tentativa = notificacaoEventoRepository.findById(id).map(NotificacaoEvento::getTentativas).orElse(0) + 1;
+                boolean desistir = tentativa >= maxTentativas;
+                notificacaoEventoRepository.registrarFalha(id,
+                        desistir ? NotificacaoEvento.StatusNotificacao.FAILED : NotificacaoEvento.StatusNotificacao.PENDING,
+                        LocalDateTime.now().plusSeconds(backoffInicialSegundos << Math.min(tentativa - 1, 10)),
+                        erro.getMessage());
+                if (desistir) {
+                    log.error("Notificação {} parada como FAILED após {} tentativas", id, tentativa, erro);
+                } else {
+                    log.error("Erro na notificação {}, tentativa {}; será retomada do último checkpoint", id, tentativa, erro);
+                }
+            });
+        } catch (Exception e) {
+            // Sem o registro, a posse vence e a retomada conta a tentativa
+            log.error("Erro na notificação {}; falha não registrada", id, erro);
+        }
+    }
+
+    private static boolean isLembrete(NotificacaoEvento notificacao) {
+        return notificacao.getTipo() == NotificacaoEvento.TipoNotificacao.LEMBRETE_EVENTO;
+    }
+
+    // Um lembrete só vale para a data em que foi agendado e enquanto o evento não começou
+    private static boolean lembreteAindaValido(Evento evento, String chave) {
+        return evento.isVendaAberta() && evento.getDataHora().toString().equals(chave);
+    }
+
+    private Map<String, Object> variaveis(Evento evento) {
+        Map<String, Object> variaveis = new HashMap<>();
+        variaveis.put("nome", MARCADOR_NOME);
+        variaveis.put("evento", evento.getTitulo());
+        variaveis.put("dataHora", evento.getDataHora().format(FORMATO_DATA));
+        variaveis.put("local", evento.getLocal());
+        variaveis.put("endereco", evento.getEndereco());
+        variaveis.put("cidade", evento.getCidade());
+        return variaveis;
+    }
+
+    // Ingressos ativos de todos os destinatários da página numa consulta só
+    private Map<Long, List<Object[]>> buscarIngressos(Long eventoId, List<Object[]> pagina) {
+        List<Long> usuarioIds = new ArrayList<>(pagina.size());
+        for (Object[] destinatario : pagina) {
+            usuarioIds.add((Long) destinatario[0]);
+        }
+        Map<Long, List<Object[]>> porUsuario = new HashMap<>();
+        for (Object[] ingresso : ingressoRepository.findCodigosAtivosPorEventoEUsuarios(eventoId, usuarioIds)) {
+            porUsuario.computeIfAbsent((Long) ingresso[0], usuario -> new ArrayList<>()).add(ingresso);
+        }
+        return porUsuario;
+    }
+
+    // Um bloco por ingresso com o QR Code anexado inline; preenche 'imagens' com o PNG de cada um
+    private String montarIngressos(Long eventoId, Instant expiraEm, List<Object[]> ingressos, Map<String, byte[]> imagens) {
+        StringBuilder html = new StringBuilder();
+        for (Object[] ingresso : ingressos) {
+            String codigo = (String) ingresso[1];
+            int quantidade = (Integer) ingresso[2];
+            String cid = "qr-" + imagens.size();
+            imagens.put(cid, qrCodeService.gerarPng(codigo, eventoId, quantidade, expiraEm));
+            html.append("<div class=\"qr-code\">")
+                    .append("<img src=\"cid:").append(cid).append("\" width=\"200\" height=\"200\" alt=\"QR Code do ingresso\">")
+                    .append("<div class=\"ticket-code\">").append(HtmlUtils.htmlEscape(codigo)).append("</div>")
+                    .append("<p>").append(quantidade).append(quantidade == 1 ? " pessoa" : " pessoas").append("</p>")
+                    .append("</div>");
+        }
+        return html.toString();
+    }
+
+    // Com a fila de emails cheia, espera os workers abrirem espaço; erro ao montar a mensagem conta como falha
+    private CompletableFuture<Boolean> enviar(String email, String assunto, String corpo, Map<String, byte[]> imagens)
+            throws InterruptedException {
+        while (true) {
+            try {
+                return emailService.sendHtmlEmail(email, assunto, corpo, imagens).handle((resultado, erro) -> erro == null);
+            } catch (FilaEmailCheiaException e) {
+                Thread.sleep(500);
+            } catch (RuntimeException e) {
+                log.warn("Email de notificação para {} não enviado: {}", email, e.getMessage());
+                return CompletableFuture.completedFuture(false);
+            }
+        }
+    }
+
+    // Espaça os envios em intervalos fixos, sem acumular rajada depois de pausas
+    private static long aguardarVez(long proximoEnvio, long intervaloNanos) throws InterruptedException {
+        long agora = System.nanoTime();
+        if (proximoEnvio > agora) {
+            TimeUnit.NANOSECONDS.sleep(proximoEnvio - agora);
+        }
+        return Math.max(proximoEnvio, agora) + intervaloNanos;
+    }
+}
@@ -0,0 +1,284 @@
+package com.encenape.service;
+
+import com.encenape.model.Ingresso;
+import com.encenape.model.OutboxEvento;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.OutboxEventoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Outbox transacional: a compra grava um registro na mesma transação do ingresso e este dispatcher,
+// depois do commit, envia os emails com paralelismo limitado, retry e backoff exponencial.
+// Os reembolsos usam a mesma tabela, mas quem os envia é o lote do PagamentoService.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final IngressoRepository ingressoRepository;
+    private final EmailService emailService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.outbox.paralelismo:4}")
+    private int paralelismo;
+
+    @Value("${app.outbox.max-tentativas:8}")
+    private int maxTentativas;
+
+    @Value("${app.outbox.backoff-inicial-segundos:5}")
+    private long backoffInicialSegundos;
+
+    @Value("${app.outbox.backoff-maximo-segundos:1800}")
+    private long backoffMaximoSegundos;
+
+    @Value("${app.outbox.prazo-processamento-segundos:300}")
+    private long prazoProcessamentoSegundos;
+
+    private final AtomicBoolean despachando = new AtomicBoolean();
+    private final AtomicInteger emAndamento = new AtomicInteger();
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newFixedThreadPool(paralelismo);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Deve ser chamado dentro da transação da compra
+    public void registrarConfirmacaoCompra(Ingresso ingresso) {
+        registrar(OutboxEvento.TipoOutbox.CONFIRMACAO_COMPRA, ingresso.getId());
+    }
+
+    // Um aviso por ingresso cancelado; gravados com saveAll para aproveitar o batch de inserts
+    public void registrarAvisosCancelamento(List<Long> ingressoIds) {
+        List<OutboxEvento> eventos = new ArrayList<>(ingressoIds.size());
+        for (Long ingressoId : ingressoIds) {
+            eventos.add(novoEvento(OutboxEvento.TipoOutbox.CANCELAMENTO_EVENTO, ingressoId));
+        }
+        outboxEventoRepository.saveAll(eventos);
+    }
+
+    // Na transação que cancela o ingresso, para que o reembolso exista se e somente se o cancelamento existir.
+    // Enviado em lote pelo PagamentoService; 'ingressoId' é null quando a compra não chegou a ser gravada
+    public void registrarReembolso(String transacaoPagamento, BigDecimal valor, Long ingressoId) {
+        outboxEventoRepository.save(novoReembolso(transacaoPagamento, valor, ingressoId));
+    }
+
+    public void registrarReembolsos(List<Ingresso> ingressos) {
+        List<OutboxEvento> eventos = new ArrayList<>(ingressos.size());
+        for (Ingresso ingresso : ingressos) {
+            eventos.add(novoReembolso(ingresso.getTransacaoPagamento(), ingresso.getValorTotal(), ingresso.getId()));
+        }
+        outboxEventoRepository.saveAll(eventos);
+    }
+
+    public void registrar(OutboxEvento.TipoOutbox tipo, Long referenciaId) {
+        outboxEventoRepository.save(novoEvento(tipo, referenciaId));
+    }
+
+    private OutboxEvento novoEvento(OutboxEvento.TipoOutbox tipo, Long referenciaId) {
+        OutboxEvento evento = new OutboxEvento();
+        evento.setTipo(tipo);
+        evento.setReferenciaId(referenciaId);
+        evento.setStatus(OutboxEvento.StatusOutbox.PENDING);
+        evento.setProximaTentativa(LocalDateTime.now());
+        return evento;
+    }
+
+    private OutboxEvento novoReembolso(String transacaoPagamento, BigDecimal valor, Long ingressoId) {
+        OutboxEvento evento = novoEvento(OutboxEvento.TipoOutbox.REEMBOLSO, ingressoId);
+        evento.setTransacaoPagamento(transacaoPagamento);
+        evento.setValor(valor);
+        return evento;
+    }
+
+    public long getPendentes() {
+        return outboxEventoRepository.countPendentes();
+    }
+
+    public long getReembolsosPendentes() {
+        return outboxEventoRepository.countReembolsosPendentes();
+    }
+
+    // Reivindica até 'limite' reembolsos vencidos para o envio em lote. Os que esgotaram as tentativas
+    // em posses vencidas (o envio caiu no meio) ficam FAILED para conciliação em vez de voltar ao gateway.
+    public List<OutboxEvento> reivindicarReembolsos(int limite, int maxTentativasReembolso) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            LocalDateTime prazo = agora.plusSeconds(prazoProcessamentoSegundos);
+            List<Long> ids = new ArrayList<>();
+            for (Long id : outboxEventoRepository.findIdsReembolsosProntos(agora, PageRequest.of(0, limite))) {
+                if (outboxEventoRepository.reivindicar(id, agora, prazo) == 1) {
+                    ids.add(id);
+                }
+            }
+            List<OutboxEvento> reembolsos = new ArrayList<>(ids.size());
+            for (OutboxEvento evento : outboxEventoRepository.findAllById(ids)) {
+                if (evento.getTentativas() < maxTentativasReembolso) {
+                    reembolsos.add(evento);
+                } else if (outboxEventoRepository.abandonarEsgotado(evento.getId(), maxTentativasReembolso,
+                        "Prazo de envio esgotado em todas as tentativas") == 1) {
+                    log.error("Reembolso da transação {} ({}) parado como FAILED após {} tentativas sem conclusão",
+                            evento.getTransacaoPagamento(), evento.getValor(), evento.getTentativas());
+                }
+            }
+            return reembolsos;
+        });
+    }
+
+    public void concluirReembolsos(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            ids.forEach(id -> outboxEventoRepository.marcarEnviado(id, agora));
+        });
+    }
+
+    // Nunca descarta o reembolso: esgotadas as tentativas, a linha fica FAILED para conciliação manual
+    public void registrarFalhaReembolso(OutboxEvento reembolso, int maxTentativasReembolso, String erro) {
+        int tentativa = reembolso.getTentativas() + 1;
+        boolean desistir = tentativa >= maxTentativasReembolso;
+        if (desistir) {
+            log.error("Reembolso da transação {} ({}) parado como FAILED após {} tentativas: {}",
+                    reembolso.getTransacaoPagamento(), reembolso.getValor(), tentativa, erro);
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxEventoRepository.registrarFalha(
+                reembolso.getId(),
+                desistir ? OutboxEvento.StatusOutbox.FAILED : OutboxEvento.StatusOutbox.PENDING,
+                LocalDateTime.now().plusSeconds(backoffSegundos(tentativa)),
+                erro));
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:500}")
+    public void despachar() {
+        if (!despachando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Nunca reivindica mais do que os workers conseguem absorver agora
+            int vagas = paralelismo * 2 - emAndamento.get();
+            if (vagas <= 0) {
+                return;
+            }
+
+            List<Long> reivindicados = transactionTemplate.execute(status -> {
+                LocalDateTime agora = LocalDateTime.now();
+                LocalDateTime prazo = agora.plusSeconds(prazoProcessamentoSegundos);
+                List<Long> ids = new ArrayList<>();
+                for (Long id : outboxEventoRepository.findIdsProntos(agora, PageRequest.of(0, vagas))) {
+                    if (outboxEventoRepository.reivindicar(id, agora, prazo) == 1) {
+                        ids.add(id);
+                    }
+                }
+                return ids;
+            });
+
+            for (Long id : reivindicados) {
+                emAndamento.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        processar(id);
+                    } finally {
+                        emAndamento.decrementAndGet();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.error("Erro ao despachar eventos do outbox", e);
+        } finally {
+            despachando.set(false);
+        }
+    }
+
+    private void processar(Long id) {
+        OutboxEvento evento = outboxEventoRepository.findById(id).orElse(null);
+        if (evento == null) {
+            return;
+        }
+        // Reivindicado de novo depois de derrubar ou travar workers até esgotar as tentativas
+        if (evento.getTentativas() >= maxTentativas) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventoRepository.abandonarEsgotado(
+                    id, maxTentativas, "Prazo de processamento esgotado em todas as tentativas"));
+            log.error("Evento {} do outbox ({}) abandonado após {} tentativas sem conclusão", id, evento.getTipo(), evento.getTentativas());
+            return;
+        }
+        try {
+            switch (evento.getTipo()) {
+                case CONFIRMACAO_COMPRA -> enviarConfirmacaoCompra(evento.getReferenciaId());
+                case CANCELAMENTO_EVENTO -> enviarAvisoCancelamento(evento.getReferenciaId());
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventoRepository.marcarEnviado(id, LocalDateTime.now()));
+        } catch (Exception e) {
+            int tentativa = evento.getTentativas() + 1;
+            boolean desistir = tentativa >= maxTentativas;
+            log.error("Falha no evento {} do outbox ({}), tentativa {}", id, evento.getTipo(), tentativa, e);
+            transactionTemplate.executeWithoutResult(status -> outboxEventoRepository.registrarFalha(
+                    id,
+                    desistir ? OutboxEvento.StatusOutbox.FAILED : OutboxEvento.StatusOutbox.PENDING,
+                    LocalDateTime.now().plusSeconds(backoffSegundos(tentativa)),
+                    e.getMessage()));
+        }
+    }
+
+    // Exponencial com teto e até 20% de jitter, para que falhas em massa não voltem todas juntas
+    private long backoffSegundos(int tentativa) {
+        long base = Math.min(backoffMaximoSegundos, backoffInicialSegundos << Math.min(tentativa - 1, 20));
+        return base + ThreadLocalRandom.current().nextLong(base / 5 + 1);
+    }
+
+    // Leitura numa transação curta; o SMTP roda sem conexão de banco presa
+    private void enviarConfirmacaoCompra(Long ingressoId) {
+        Ingresso ingresso = transactionTemplate.execute(status -> ingressoRepository.findByIdComDetalhes(ingressoId)
+                .orElseThrow(() -> new RuntimeException("Ingresso não encontrado")));
+
+        // Espera o envio: o evento só é marcado como enviado depois que o servidor SMTP aceitou a mensagem
+        emailService.sendPurchaseConfirmationEmail(
+                ingresso.getUsuario().getEmail(),
+                ingresso.getUsuario().getNome(),
+                ingresso.getEvento().getTitulo(),
+                ingresso.getCodigo()).join();
+    }
+
+    private void enviarAvisoCancelamento(Long ingressoId) {
+        Ingresso ingresso = transactionTemplate.execute(status -> ingressoRepository.findByIdComDetalhes(ingressoId)
+                .orElseThrow(() -> new RuntimeException("Ingresso não encontrado")));
+
+        emailService.sendEventCancellationEmail(
+                ingresso.getUsuario().getEmail(),
+                ingresso.getUsuario().getNome(),
+                ingresso.getEvento().getTitulo(),
+                ingresso.getCodigo(),
+                ingresso.getCancelReason()).join();
+    }
+}
@@ -0,0 +1,202 @@
+package com.encenape.service;
+
+import com.encenape.model.Ingresso;
+import com.encenape.model.OutboxEvento;
+import com.encenape.service.pagamento.GatewayPagamento;
+import com.encenape.service.pagamento.PedidoReembolso;
+import com.encenape.service.pagamento.ResultadoPagamento;
+import com.encenape.util.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fachada do gateway de pagamento. Deve ser chamada fora de transações de banco, para que a latência
+// do gateway não prenda conexão nem lock. Aplica timeout e circuit breaker às cobranças e envia em lotes
+// periódicos os reembolsos gravados no outbox.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PagamentoService {
+
+    private final GatewayPagamento gatewayPagamento;
+    private final OutboxService outboxService;
+
+    @Value("${app.pagamento.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${app.pagamento.circuito.falhas-para-abrir:5}")
+    private int falhasParaAbrir;
+
+    @Value("${app.pagamento.circuito.aberto-segundos:30}")
+    private long abertoSegundos;
+
+    @Value("${app.pagamento.reembolso.tamanho-lote:50}")
+    private int tamanhoLoteReembolso;
+
+    @Value("${app.pagamento.reembolso.max-tentativas:10}")
+    private int maxTentativasReembolso;
+
+    private final AtomicBoolean enviandoReembolsos = new AtomicBoolean();
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    public void iniciar() {
+        circuitBreaker = new CircuitBreaker("gateway-pagamento", falhasParaAbrir, TimeUnit.SECONDS.toMillis(abertoSegundos));
+    }
+
+    // Não bloqueia. Recusas do gateway chegam como resultado não aprovado; falhas técnicas e timeouts
+    // completam o future com exceção e contam para o circuit breaker.
+    public CompletableFuture<ResultadoPagamento> cobrarAsync(String metodoPagamento, BigDecimal valor, String referencia) {
+        if (!circuitBreaker.permitir()) {
+            return CompletableFuture.failedFuture(new RuntimeException("Serviço de pagamento indisponível, tente novamente em instantes"));
+        }
+        return gatewayPagamento.cobrar(metodoPagamento, valor, referencia)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((resultado, erro) -> {
+                    if (erro == null) {
+                        circuitBreaker.registrarSucesso();
+                    } else {
+                        circuitBreaker.registrarFalha();
+                        // Num timeout a cobrança pode ter sido feita; a referência permite conciliar com o gateway
+                        log.warn("Falha na cobrança {}: {}", referencia, erro.toString());
+                    }
+                });
+    }
+
+    // Versão bloqueante para os fluxos síncronos; lança exceção se o pagamento não for aprovado
+    public ResultadoPagamento cobrar(String metodoPagamento, BigDecimal valor, String referencia) {
+        ResultadoPagamento resultado;
+        try {
+            resultado = cobrarAsync(metodoPagamento, valor, referencia).join();
+        } catch (CompletionException e) {
+            throw falhaTecnica(e);
+        }
+        if (!resultado.isAprovado()) {
+            throw new RuntimeException(resultado.getMensagem());
+        }
+        return resultado;
+    }
+
+    // Converte a exceção de uma cobrança assíncrona na mensagem mostrada ao comprador
+    public RuntimeException falhaTecnica(Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (causa instanceof TimeoutException) {
+            return new RuntimeException("Tempo esgotado ao processar o pagamento, tente novamente");
+        }
+        if (causa instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RuntimeException("Erro ao processar o pagamento", causa);
+    }
+
+    // Grava o reembolso no outbox, na transação de quem chama (o cancelamento do ingresso); sem transação
+    // ativa, grava na hora. O envio ao gateway sai no próximo lote.
+    public void reembolsar(String transacaoId, BigDecimal valor) {
+        reembolsar(transacaoId, valor, null);
+    }
+
+    public void reembolsar(String transacaoId, BigDecimal valor, Long ingressoId) {
+        if (transacaoId == null) {
+            // Ingressos anteriores ao gateway não guardam a transação
+            log.warn("Reembolso de {} sem transação de pagamento associada", valor);
+            return;
+        }
+        outboxService.registrarReembolso(transacaoId, valor, ingressoId);
+    }
+
+    public void reembolsar(List<Ingresso> ingressos) {
+        List<Ingresso> comTransacao = new ArrayList<>(ingressos.size());
+        for (Ingresso ingresso : ingressos) {
+            if (ingresso.getTransacaoPagamento() != null) {
+                comTransacao.add(ingresso);
+            } else {
+                log.warn("Reembolso de {} sem transação de pagamento associada", ingresso.getValorTotal());
+            }
+        }
+        outboxService.registrarReembolsos(comTransacao);
+    }
+
+    // Compensação de uma compra paga que não chegou a ser gravada, fora de transação. Não lança exceção,
+    // para não esconder o erro original; se nem o registro for possível, a transação fica no log para conciliação.
+    public void estornar(String transacaoId, BigDecimal valor) {
+        try {
+            reembolsar(transacaoId, valor);
+        } catch (RuntimeException e) {
+            log.error("Reembolso da transação {} ({}) não registrado", transacaoId, valor, e);
+        }
+    }
+
+    public long getReembolsosPendentes() {
+        return outboxService.getReembolsosPendentes();
+    }
+
+    public CircuitBreaker.Estado getEstadoCircuito() {
+        return circuitBreaker.getEstado();
+    }
+
+    @Scheduled(fixedDelayString = "${app.pagamento.reembolso.intervalo-ms:1000}")
+    public void enviarReembolsos() {
+        if (!enviandoReembolsos.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Recusas são reagendadas com backoff, então uma rodada não envia o mesmo reembolso duas vezes
+            while (circuitBreaker.permitir()) {
+                List<OutboxEvento> lote = outboxService.reivindicarReembolsos(tamanhoLoteReembolso, maxTentativasReembolso);
+                if (lote.isEmpty() || !enviarLote(lote) || lote.size() < tamanhoLoteReembolso) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao enviar reembolsos", e);
+        } finally {
+            enviandoReembolsos.set(false);
+        }
+    }
+
+    // Retorna false se o gateway falhou, para interromper a rodada e tentar de novo no próximo ciclo
+    private boolean enviarLote(List<OutboxEvento> lote) {
+        List<PedidoReembolso> pedidos = new ArrayList<>(lote.size());
+        for (OutboxEvento reembolso : lote) {
+            pedidos.add(new PedidoReembolso(reembolso.getTransacaoPagamento(), reembolso.getValor(), reembolso.getTentativas()));
+        }
+
+        List<ResultadoPagamento> resultados;
+        try {
+            resultados = gatewayPagamento.reembolsar(pedidos).orTimeout(timeoutMs, TimeUnit.MILLISECONDS).join();
+            circuitBreaker.registrarSucesso();
+        } catch (CompletionException e) {
+            circuitBreaker.registrarFalha();
+            String erro = e.getCause() != null ? e.getCause().toString() : e.toString();
+            log.warn("Falha ao enviar lote de {} reembolsos: {}", lote.size(), erro);
+            lote.forEach(reembolso -> outboxService.registrarFalhaReembolso(reembolso, maxTentativasReembolso, erro));
+            return false;
+        }
+
+        List<Long> enviados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (resultados.get(i).isAprovado()) {
+                enviados.add(lote.get(i).getId());
+            } else {
+                log.warn("Reembolso da transação {} recusado: {}", lote.get(i).getTransacaoPagamento(), resultados.get(i).getMensagem());
+                outboxService.registrarFalhaReembolso(lote.get(i), maxTentativasReembolso, resultados.get(i).getMensagem());
+            }
+        }
+        outboxService.concluirReembolsos(enviados);
+        log.debug("Lote de {} reembolsos enviado", lote.size());
+        return true;
+    }
+}
@@ -1,47 +1,148 @@
 package com.encenape.service;
 
-import com.google.zxing.BarcodeFormat;
+import com.encenape.model.Evento;
+import com.encenape.model.Ingresso;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.security.IngressoTokenUtil;
+import com.encenape.util.QrCodePng;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.Base64;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
+// Gera o PNG do QR Code de um ingresso sob demanda. O QR leva o link do ingresso com um token assinado
+// (código, evento, quantidade e validade) que os leitores da portaria conferem sem consultar o banco.
+// As imagens ficam num cache LRU limitado pelo total de bytes; a validade depende da data do evento,
+// então alterar o evento descarta as imagens dele.
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class QRCodeService {
-    
+
+    private static final int TAMANHO = 200;
+
+    private final IngressoRepository ingressoRepository;
+    private final IngressoTokenUtil ingressoTokenUtil;
+
     @Value("${app.frontend-url}")
     private String frontendUrl;
-    
-    public String generateQRCode(String codigo) {
+
+    @Value("${app.qrcode.cache-max-bytes:16777216}")
+    private long cacheMaxBytes;
+
+    @Value("${app.qrcode.validade-horas-apos-evento:24}")
+    private long validadeHorasAposEvento;
+
+    // Ordem de acesso: a entrada mais antiga é a menos usada recentemente
+    private final LinkedHashMap<String, QrCodeIngresso> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytesEmCache;
+
+    private String versao;
+
+    @PostConstruct
+    public void iniciar() {
+        // Muda se a URL ou a chave de assinatura mudarem, invalidando as cópias guardadas pelos navegadores
+        versao = Integer.toHexString((frontendUrl + ingressoTokenUtil.getChaveVerificacao()).hashCode());
+    }
+
+    // Vazio se o código não pertencer a nenhum ingresso
+    public Optional<QrCodeIngresso> getQRCode(String codigo) {
+        synchronized (cache) {
+            QrCodeIngresso qrCode = cache.get(codigo);
+            if (qrCode != null) {
+                return Optional.of(qrCode);
+            }
+        }
+
+        Optional<Ingresso> ingresso = ingressoRepository.findByCodigoComEvento(codigo);
+        if (ingresso.isEmpty()) {
+            return Optional.empty();
+        }
+        Evento evento = ingresso.get().getEvento();
+        Instant expiraEm = calcularExpiracao(evento);
+        QrCodeIngresso qrCode = new QrCodeIngresso(
+                gerarPng(codigo, evento.getId(), ingresso.get().getQuantidade(), expiraEm),
+                "\"qr-" + versao + "-" + codigo + "-" + expiraEm.getEpochSecond() + "\"",
+                evento.getId());
+
+        synchronized (cache) {
+            QrCodeIngresso anterior = cache.put(codigo, qrCode);
+            bytesEmCache += qrCode.png.length - (anterior != null ? anterior.png.length : 0);
+            Iterator<Map.Entry<String, QrCodeIngresso>> iterator = cache.entrySet().iterator();
+            while (bytesEmCache > cacheMaxBytes && iterator.hasNext()) {
+                bytesEmCache -= iterator.next().getValue().png.length;
+                iterator.remove();
+            }
+        }
+        return Optional.of(qrCode);
+    }
+
+    // Os ingressos valem até algumas horas depois do fim do evento
+    public Instant calcularExpiracao(Evento evento) {
+        int duracaoMin = evento.getDuracaoMin() != null ? evento.getDuracaoMin() : 0;
+        return evento.getDataHora()
+                .plusMinutes(duracaoMin)
+                .plusHours(validadeHorasAposEvento)
+                .atZone(ZoneId.systemDefault())
+                .toInstant();
+    }
+
+    // Descarta as imagens do evento, cuja validade pode ter mudado. Dentro de uma transação, só após o commit.
+    public void invalidarEvento(Long eventoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removerDoCache(eventoId);
+                }
+            });
+        } else {
+            removerDoCache(eventoId);
+        }
+    }
+
+    // Renderiza sem passar pelo cache, para exportações em massa não expulsarem as entradas em uso
+    public byte[] gerarPng(String codigo, Long eventoId, int quantidade, Instant expiraEm) {
+        String token = ingressoTokenUtil.gerarToken(codigo, eventoId, quantidade, expiraEm);
         try {
-            String qrData = frontendUrl + "/ingresso/" + codigo;
-            
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(qrData, BarcodeFormat.QR_CODE, 200, 200);
-            
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            
-            byte[] qrCodeBytes = outputStream.toByteArray();
-            String base64QRCode = Base64.getEncoder().encodeToString(qrCodeBytes);
-            
-            return "data:image/png;base64," + base64QRCode;
-            
-        } catch (WriterException | IOException e) {
+            return QrCodePng.renderizar(frontendUrl + "/ingresso/" + codigo + "?t=" + token, TAMANHO);
+        } catch (WriterException e) {
             log.error("Erro ao gerar QR Code para código: {}", codigo, e);
             throw new RuntimeException("Erro ao gerar QR Code", e);
         }
     }
-    
-    public String generateQRCodeDataUrl(String codigo) {
-        return generateQRCode(codigo);
+
+    private void removerDoCache(Long eventoId) {
+        synchronized (cache) {
+            Iterator<QrCodeIngresso> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                QrCodeIngresso qrCode = iterator.next();
+                if (qrCode.eventoId.equals(eventoId)) {
+                    bytesEmCache -= qrCode.png.length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class QrCodeIngresso {
+
+        private final byte[] png;
+        private final String etag;
+        private final Long eventoId;
     }
 }
@@ -0,0 +1,228 @@
+package com.encenape.service;
+
+import com.encenape.dto.IngressoResponse;
+import com.encenape.dto.ReservaIngressoRequest;
+import com.encenape.dto.ReservaResponse;
+import com.encenape.model.Evento;
+import com.encenape.model.Reserva;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.ReservaRepository;
+import com.encenape.service.pagamento.ResultadoPagamento;
+import com.encenape.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Reserva temporária de ingressos: os tickets ficam presos por alguns minutos enquanto o comprador
+// paga, e reservas não confirmadas são liberadas por um timing wheel em memória (sem varrer a tabela).
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservaService {
+
+    private final ReservaRepository reservaRepository;
+    private final EventoRepository eventoRepository;
+    private final InventarioService inventarioService;
+    private final IngressoService ingressoService;
+    private final FilaEsperaService filaEsperaService;
+    private final PagamentoService pagamentoService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.reservas.ttl-minutos:10}")
+    private long ttlMinutos;
+
+    @Value("${app.reservas.tick-ms:1000}")
+    private long tickMs;
+
+    private final Map<Long, TimingWheel.Timeout> expiracoes = new ConcurrentHashMap<>();
+
+    private TimingWheel timingWheel;
+
+    @PostConstruct
+    public void iniciar() {
+        timingWheel = new TimingWheel("reservas", tickMs, 64, 4);
+        timingWheel.iniciar();
+    }
+
+    // Recoloca na roda as reservas que estavam abertas antes do restart; as vencidas expiram na hora
+    @EventListener(ApplicationReadyEvent.class)
+    public void reagendarReservasAtivas() {
+        List<Reserva> ativas = reservaRepository.findAtivas();
+        for (Reserva reserva : ativas) {
+            agendarExpiracao(reserva.getId(), reserva.getExpiresAt());
+        }
+        log.info("{} reservas ativas reagendadas", ativas.size());
+    }
+
+    @PreDestroy
+    public void parar() {
+        if (timingWheel != null) {
+            timingWheel.parar();
+        }
+    }
+
+    @Transactional
+    public ReservaResponse criarReserva(Usuario usuario, ReservaIngressoRequest request) {
+        Evento evento = eventoRepository.findById(request.getEventoId())
+                .orElseThrow(() -> new RuntimeException("Evento não encontrado"));
+
+        if (!evento.isVendaAberta()) {
+            throw new RuntimeException("Evento não está mais disponível");
+        }
+
+        filaEsperaService.verificarAdmissao(evento.getId(), usuario);
+        inventarioService.reservar(evento.getId(), request.getQuantidade());
+
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuario);
+        reserva.setEvento(evento);
+        reserva.setQuantidade(request.getQuantidade());
+        reserva.setStatus(Reserva.StatusReserva.ACTIVE);
+        reserva.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutos));
+        Reserva savedReserva = reservaRepository.save(reserva);
+
+        // Só agenda a expiração se a reserva de fato for gravada
+        Long reservaId = savedReserva.getId();
+        LocalDateTime expiresAt = savedReserva.getExpiresAt();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                agendarExpiracao(reservaId, expiresAt);
+            }
+        });
+
+        return mapToReservaResponse(savedReserva);
+    }
+
+    // A cobrança roda fora da transação; se a reserva expirar enquanto o gateway responde, o pagamento é estornado
+    public IngressoResponse confirmarReserva(String codigo, Usuario usuario, String paymentMethod) {
+        Reserva reserva = getReservaDoUsuario(codigo, usuario);
+        if (!reserva.isAtiva()) {
+            throw new RuntimeException("Reserva expirada ou já utilizada");
+        }
+
+        BigDecimal valorTotal = reserva.getEvento().getPreco().multiply(BigDecimal.valueOf(reserva.getQuantidade()));
+        ResultadoPagamento pagamento = pagamentoService.cobrar(paymentMethod, valorTotal, reserva.getCodigo());
+
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                if (reservaRepository.confirmar(reserva.getId(), LocalDateTime.now()) == 0) {
+                    throw new RuntimeException("Reserva expirada ou já utilizada");
+                }
+
+                // Os tickets já foram retirados do estoque na criação da reserva
+                IngressoResponse response = ingressoService.emitirIngresso(usuario, reserva.getEvento(),
+                        reserva.getQuantidade(), paymentMethod, pagamento.getTransacaoId());
+
+                cancelarExpiracaoAposCommit(reserva.getId());
+                return response;
+            });
+        } catch (RuntimeException e) {
+            pagamentoService.estornar(pagamento.getTransacaoId(), valorTotal);
+            throw e;
+        }
+    }
+
+    @Transactional
+    public void cancelarReserva(String codigo, Usuario usuario) {
+        Reserva reserva = getReservaDoUsuario(codigo, usuario);
+
+        if (reservaRepository.encerrar(reserva.getId(), Reserva.StatusReserva.CANCELED) == 0) {
+            throw new RuntimeException("Reserva expirada ou já utilizada");
+        }
+
+        inventarioService.liberar(reserva.getEvento().getId(), reserva.getQuantidade());
+        cancelarExpiracaoAposCommit(reserva.getId());
+    }
+
+    public ReservaResponse getReserva(String codigo, Usuario usuario) {
+        return mapToReservaResponse(getReservaDoUsuario(codigo, usuario));
+    }
+
+    public int getReservasPendentes() {
+        return timingWheel.getPendentes();
+    }
+
+    boolean isExpiracaoAgendada(Long reservaId) {
+        return expiracoes.containsKey(reservaId);
+    }
+
+    // Prazo vencido expira aqui mesmo: a roda executaria a tarefa antes do put e o mapa ficaria com um timeout morto
+    void agendarExpiracao(Long reservaId, LocalDateTime expiresAt) {
+        long prazo = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (prazo <= System.currentTimeMillis()) {
+            expirar(reservaId);
+            return;
+        }
+        expiracoes.put(reservaId, timingWheel.agendar(prazo, () -> expirar(reservaId)));
+    }
+
+    private void cancelarExpiracaoAposCommit(Long reservaId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                TimingWheel.Timeout timeout = expiracoes.remove(reservaId);
+                if (timeout != null) {
+                    timeout.cancelar();
+                }
+            }
+        });
+    }
+
+    // Executado na thread do timing wheel
+    private void expirar(Long reservaId) {
+        expiracoes.remove(reservaId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Reserva reserva = reservaRepository.findById(reservaId).orElse(null);
+            if (reserva == null) {
+                return;
+            }
+            // Se a confirmação venceu a corrida, nenhuma linha é afetada e o estoque fica como está
+            if (reservaRepository.encerrar(reservaId, Reserva.StatusReserva.EXPIRED) == 1) {
+                inventarioService.liberar(reserva.getEvento().getId(), reserva.getQuantidade());
+                log.debug("Reserva {} expirada, {} tickets devolvidos", reservaId, reserva.getQuantidade());
+            }
+        });
+    }
+
+    private Reserva getReservaDoUsuario(String codigo, Usuario usuario) {
+        Reserva reserva = reservaRepository.findByCodigoComEvento(codigo)
+                .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
+
+        if (!reserva.getUsuario().getId().equals(usuario.getId())) {
+            throw new RuntimeException("Reserva não pertence ao usuário");
+        }
+        return reserva;
+    }
+
+    private ReservaResponse mapToReservaResponse(Reserva reserva) {
+        ReservaResponse response = new ReservaResponse();
+        response.setCodigo(reserva.getCodigo());
+        response.setEventoId(reserva.getEvento().getId());
+        response.setQuantidade(reserva.getQuantidade());
+        response.setValorTotal(reserva.getEvento().getPreco().multiply(BigDecimal.valueOf(reserva.getQuantidade())));
+        response.setStatus(reserva.isAtiva() || reserva.getStatus() != Reserva.StatusReserva.ACTIVE
+                ? reserva.getStatus().name() : Reserva.StatusReserva.EXPIRED.name());
+        response.setExpiresAt(reserva.getExpiresAt());
+        response.setCreatedAt(reserva.getCreatedAt());
+        return response;
+    }
+}
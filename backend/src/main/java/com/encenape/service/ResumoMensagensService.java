@@ -0,0 +1,154 @@
+package com.encenape.service;
+
+import com.encenape.model.Mensagem;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Avisa os administradores sobre mensagens de suporte num resumo por janela, em vez de um email por
+// mensagem. A primeira mensagem da janela arma o timer; o resumo sai quando a janela fecha ou antes,
+// se juntar o máximo de mensagens. O buffer fica só em memória: se a aplicação cair, as mensagens
+// continuam no banco e no painel, só o aviso se perde.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumoMensagensService {
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final int MAX_CARACTERES_TEXTO = 500;
+
+    private final EmailService emailService;
+
+    @Value("${app.mensagens.resumo.destinatario:admin@encenape.com}")
+    private String destinatario;
+
+    @Value("${app.mensagens.resumo.janela-ms:300000}")
+    private long janelaMs;
+
+    @Value("${app.mensagens.resumo.maximo-mensagens:50}")
+    private int maximoMensagens;
+
+    private final List<ItemResumo> buffer = new ArrayList<>();
+
+    private ScheduledExecutorService agendador;
+    private ScheduledFuture<?> fechamento;
+
+    @PostConstruct
+    public void iniciar() {
+        agendador = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    // Envia o que estiver pendente antes de encerrar (a fila de emails é encerrada depois deste serviço)
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        enviar(retirarPendentes());
+        agendador.shutdown();
+        agendador.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Dentro de uma transação, a mensagem só entra no buffer após o commit
+    public void registrar(Mensagem mensagem) {
+        ItemResumo item = new ItemResumo(mensagem);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adicionar(item);
+                }
+            });
+        } else {
+            adicionar(item);
+        }
+    }
+
+    private void adicionar(ItemResumo item) {
+        synchronized (buffer) {
+            buffer.add(item);
+            if (buffer.size() >= maximoMensagens) {
+                // Cheio: fecha a janela agora, fora da thread da requisição
+                if (fechamento != null) {
+                    fechamento.cancel(false);
+                    fechamento = null;
+                }
+                agendador.execute(this::fecharJanela);
+            } else if (fechamento == null) {
+                fechamento = agendador.schedule(this::fecharJanela, janelaMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void fecharJanela() {
+        enviar(retirarPendentes());
+    }
+
+    private List<ItemResumo> retirarPendentes() {
+        synchronized (buffer) {
+            List<ItemResumo> pendentes = new ArrayList<>(buffer);
+            buffer.clear();
+            if (fechamento != null) {
+                fechamento.cancel(false);
+                fechamento = null;
+            }
+            return pendentes;
+        }
+    }
+
+    private void enviar(List<ItemResumo> itens) {
+        if (itens.isEmpty()) {
+            return;
+        }
+        String assunto = itens.size() == 1
+                ? "Nova mensagem de suporte - EncenaPe"
+                : itens.size() + " novas mensagens de suporte - EncenaPe";
+        StringBuilder texto = new StringBuilder(itens.size() == 1
+                ? "Nova mensagem recebida:\n"
+                : itens.size() + " novas mensagens recebidas:\n");
+        for (ItemResumo item : itens) {
+            texto.append("\n----------------------------------------\n")
+                    .append("Recebida em: ").append(item.recebidaEm.format(FORMATO_HORA)).append("\n")
+                    .append("Remetente: ").append(item.remetente != null ? item.remetente : "Anônimo").append("\n")
+                    .append("Email: ").append(item.emailContato != null ? item.emailContato : "Não informado").append("\n")
+                    .append("Mensagem: ").append(item.texto).append("\n");
+        }
+        try {
+            emailService.sendSimpleEmail(destinatario, assunto, texto.toString())
+                    .exceptionally(erro -> {
+                        log.error("Resumo de {} mensagens de suporte não enviado", itens.size(), erro);
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            log.error("Erro ao enfileirar resumo de {} mensagens de suporte", itens.size(), e);
+        }
+    }
+
+    // Cópia do que vai no email, para não segurar a entidade até a janela fechar
+    private static final class ItemResumo {
+
+        private final String remetente;
+        private final String emailContato;
+        private final String texto;
+        private final LocalDateTime recebidaEm;
+
+        ItemResumo(Mensagem mensagem) {
+            this.remetente = mensagem.getRemetente();
+            this.emailContato = mensagem.getEmailContato();
+            String texto = mensagem.getTexto();
+            this.texto = texto.length() > MAX_CARACTERES_TEXTO ? texto.substring(0, MAX_CARACTERES_TEXTO) + "…" : texto;
+            this.recebidaEm = mensagem.getCreatedAt();
+        }
+    }
+}
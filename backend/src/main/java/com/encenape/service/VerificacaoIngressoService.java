@@ -0,0 +1,91 @@
+package com.encenape.service;
+
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.security.IngressoTokenUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Material para os leitores da portaria validarem ingressos offline: a chave do token do QR Code e a lista
+// de ingressos revogados (cancelados) de um evento. A lista é binária e compacta, para sincronizar com
+// frequência:
+//   "ENRV" | versão (1) | eventoId (8) | geradoEm em ms epoch (8) | completa (1) | quantidade (4) | impressões (8 cada)
+// A impressão de um código são os 8 primeiros bytes do SHA-256 do código em UTF-8, em ordem crescente
+// (comparação com sinal), para busca binária no leitor. Sem falsos negativos; falsos positivos ~ n / 2^64.
+@Service
+@RequiredArgsConstructor
+public class VerificacaoIngressoService {
+
+    private static final byte[] MAGICO = "ENRV".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSAO = 1;
+
+    private final IngressoRepository ingressoRepository;
+    private final EventoRepository eventoRepository;
+    private final IngressoTokenUtil ingressoTokenUtil;
+
+    @Value("${app.qrcode.revogacao.margem-segundos:300}")
+    private long margemSegundos;
+
+    public Map<String, Object> getChaveVerificacao() {
+        Map<String, Object> chave = new LinkedHashMap<>();
+        chave.put("algoritmo", "HmacSHA256");
+        chave.put("tamanhoAssinatura", 16);
+        chave.put("chave", ingressoTokenUtil.getChaveVerificacao());
+        return chave;
+    }
+
+    // 'desdeMs' nulo exporta a lista completa; senão só os cancelados depois dele (o leitor acumula as listas).
+    // O geradoEm da resposta vem recuado pela margem, para cobrir cancelamentos ainda não commitados na
+    // consulta; usá-lo como próximo 'desdeMs' repete alguns códigos, o que é inofensivo.
+    public byte[] exportarRevogados(Long eventoId, Long desdeMs) {
+        if (!eventoRepository.existsById(eventoId)) {
+            throw new RuntimeException("Evento não encontrado");
+        }
+
+        long geradoEm = System.currentTimeMillis() - margemSegundos * 1000;
+        LocalDateTime desde = desdeMs != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(desdeMs), ZoneId.systemDefault())
+                : null;
+        List<String> codigos = ingressoRepository.findCodigosCanceladosPorEventoDesde(eventoId, desde);
+
+        MessageDigest sha256 = novoSha256();
+        long[] impressoes = new long[codigos.size()];
+        for (int i = 0; i < impressoes.length; i++) {
+            impressoes[i] = ByteBuffer.wrap(sha256.digest(codigos.get(i).getBytes(StandardCharsets.UTF_8))).getLong();
+        }
+        Arrays.sort(impressoes);
+
+        ByteBuffer buffer = ByteBuffer.allocate(MAGICO.length + 1 + 8 + 8 + 1 + 4 + impressoes.length * 8);
+        buffer.put(MAGICO)
+                .put(VERSAO)
+                .putLong(eventoId)
+                .putLong(geradoEm)
+                .put((byte) (desde == null ? 1 : 0))
+                .putInt(impressoes.length);
+        for (long impressao : impressoes) {
+            buffer.putLong(impressao);
+        }
+        return buffer.array();
+    }
+
+    private static MessageDigest novoSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.encenape.service.email;
+
+// A fila de envio está no limite; quem produz emails em volume espera um pouco e tenta de novo
+public class FilaEmailCheiaException extends RuntimeException {
+
+    public FilaEmailCheiaException() {
+        super("Fila de emails cheia, tente novamente em instantes");
+    }
+}
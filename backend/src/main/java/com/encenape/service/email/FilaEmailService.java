@@ -0,0 +1,290 @@
+package com.encenape.service.email;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Envio assíncrono de emails. As mensagens entram numa fila limitada e são enviadas por workers que
+// mantêm a conexão SMTP aberta entre mensagens (uma sessão STARTTLS atende várias), reconectando a
+// cada N mensagens ou depois de um tempo ociosa. Falhas de conexão e respostas 4xx do servidor são
+// reenviadas com backoff; destinatários recusados com 5xx falham direto.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FilaEmailService {
+
+    private final JavaMailSender mailSender;
+
+    @Value("${app.email.workers:2}")
+    private int workers;
+
+    @Value("${app.email.capacidade-fila:10000}")
+    private int capacidadeFila;
+
+    @Value("${app.email.mensagens-por-conexao:50}")
+    private int mensagensPorConexao;
+
+    @Value("${app.email.conexao-ociosa-ms:10000}")
+    private long conexaoOciosaMs;
+
+    @Value("${app.email.max-tentativas:5}")
+    private int maxTentativas;
+
+    @Value("${app.email.backoff-inicial-ms:2000}")
+    private long backoffInicialMs;
+
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong retentativas = new AtomicLong();
+    private final AtomicInteger aguardandoRetentativa = new AtomicInteger();
+    private final AtomicInteger conexoesAbertas = new AtomicInteger();
+
+    private BlockingQueue<EmailPendente> fila;
+    private ExecutorService executor;
+    private ScheduledExecutorService agendador;
+    private volatile boolean ativo;
+
+    @PostConstruct
+    public void iniciar() {
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+        agendador = Executors.newSingleThreadScheduledExecutor();
+        executor = Executors.newFixedThreadPool(workers);
+        ativo = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::trabalhar);
+        }
+    }
+
+    // Espera a fila esvaziar por alguns segundos antes de encerrar as conexões
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!fila.isEmpty() && System.currentTimeMillis() < limite) {
+            Thread.sleep(100);
+        }
+        ativo = false;
+        agendador.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        if (!fila.isEmpty()) {
+            log.error("{} emails não enviados no encerramento", fila.size());
+        }
+    }
+
+    // Não bloqueia. O future completa quando o servidor SMTP aceita a mensagem ou quando as tentativas
+    // se esgotam; com a fila cheia, lança exceção na hora para que quem chama possa tentar mais tarde.
+    public CompletableFuture<Void> enfileirar(MimeMessage mensagem, String descricao) {
+        EmailPendente pendente = new EmailPendente(mensagem, descricao);
+        if (!fila.offer(pendente)) {
+            throw new FilaEmailCheiaException();
+        }
+        return pendente.resultado;
+    }
+
+    public int getTamanhoFila() {
+        return fila.size();
+    }
+
+    public int getCapacidadeFila() {
+        return capacidadeFila;
+    }
+
+    public int getAguardandoRetentativa() {
+        return aguardandoRetentativa.get();
+    }
+
+    public int getConexoesAbertas() {
+        return conexoesAbertas.get();
+    }
+
+    public long getEnviados() {
+        return enviados.get();
+    }
+
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    public long getRetentativas() {
+        return retentativas.get();
+    }
+
+    private void trabalhar() {
+        Conexao conexao = new Conexao();
+        List<EmailPendente> lote = new ArrayList<>(mensagensPorConexao);
+        try {
+            while (ativo || !fila.isEmpty()) {
+                EmailPendente primeiro = fila.poll(500, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    conexao.fecharSeOciosa();
+                    continue;
+                }
+                lote.add(primeiro);
+                fila.drainTo(lote, mensagensPorConexao - 1);
+                for (EmailPendente pendente : lote) {
+                    enviar(conexao, pendente);
+                }
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            conexao.fechar();
+        }
+    }
+
+    private void enviar(Conexao conexao, EmailPendente pendente) {
+        try {
+            MimeMessage mensagem = pendente.mensagem;
+            if (mensagem.getSentDate() == null) {
+                mensagem.setSentDate(new Date());
+            }
+            mensagem.saveChanges();
+            conexao.enviar(mensagem);
+            enviados.incrementAndGet();
+            pendente.resultado.complete(null);
+            log.info("Email enviado: {}", pendente.descricao);
+        } catch (SendFailedException e) {
+            // Resposta 4xx (limite de taxa, greylisting, caixa cheia) sem nenhum destinatário aceito: o
+            // servidor pede para voltar depois, e a conexão continua utilizável
+            if (falhaTemporaria(e)) {
+                agendarRetentativa(pendente, e);
+                return;
+            }
+            // O servidor recusou os destinatários: repetir não adianta
+            falhas.incrementAndGet();
+            log.error("Email recusado pelo servidor: {}", pendente.descricao, e);
+            pendente.resultado.completeExceptionally(new RuntimeException("Erro ao enviar email", e));
+        } catch (MessagingException | RuntimeException e) {
+            conexao.fechar();
+            agendarRetentativa(pendente, e);
+        }
+    }
+
+    private static boolean falhaTemporaria(SendFailedException e) {
+        if (e.getValidSentAddresses() != null && e.getValidSentAddresses().length > 0) {
+            return false;
+        }
+        Exception atual = e;
+        while (atual != null) {
+            int codigo = atual instanceof SMTPSendFailedException enviado ? enviado.getReturnCode()
+                    : atual instanceof SMTPAddressFailedException endereco ? endereco.getReturnCode()
+                    : 0;
+            if (codigo >= 400 && codigo < 500) {
+                return true;
+            }
+            atual = atual instanceof MessagingException mensagem ? mensagem.getNextException() : null;
+        }
+        return false;
+    }
+
+    private void agendarRetentativa(EmailPendente pendente, Exception erro) {
+        pendente.tentativas++;
+        if (pendente.tentativas >= maxTentativas || !ativo) {
+            falhas.incrementAndGet();
+            log.error("Email abandonado após {} tentativas: {}", pendente.tentativas, pendente.descricao, erro);
+            pendente.resultado.completeExceptionally(new RuntimeException("Erro ao enviar email", erro));
+            return;
+        }
+
+        // Exponencial com até 20% de jitter, como no outbox
+        long atraso = backoffInicialMs << Math.min(pendente.tentativas - 1, 10);
+        atraso += ThreadLocalRandom.current().nextLong(atraso / 5 + 1);
+        log.warn("Falha ao enviar email ({}), nova tentativa em {} ms: {}", pendente.descricao, atraso, erro.toString());
+        retentativas.incrementAndGet();
+        aguardandoRetentativa.incrementAndGet();
+        agendador.schedule(() -> {
+            aguardandoRetentativa.decrementAndGet();
+            if (!fila.offer(pendente)) {
+                agendarRetentativa(pendente, new RuntimeException("Fila de emails cheia"));
+            }
+        }, atraso, TimeUnit.MILLISECONDS);
+    }
+
+    // Transporte SMTP de um worker, aberto sob demanda e reaproveitado entre mensagens
+    private final class Conexao {
+
+        private Transport transport;
+        private int mensagensEnviadas;
+        private long ultimoUso;
+
+        void enviar(MimeMessage mensagem) throws MessagingException {
+            if (!(mailSender instanceof JavaMailSenderImpl remetente)) {
+                mailSender.send(mensagem);
+                return;
+            }
+            if (transport == null || !transport.isConnected() || mensagensEnviadas >= mensagensPorConexao) {
+                fechar();
+                transport = remetente.getSession().getTransport(remetente.getProtocol() != null ? remetente.getProtocol() : "smtp");
+                String usuario = remetente.getUsername() != null && !remetente.getUsername().isEmpty() ? remetente.getUsername() : null;
+                transport.connect(remetente.getHost(), remetente.getPort(), usuario, usuario != null ? remetente.getPassword() : null);
+                conexoesAbertas.incrementAndGet();
+            }
+            Address[] destinatarios = mensagem.getAllRecipients();
+            transport.sendMessage(mensagem, destinatarios != null ? destinatarios : new Address[0]);
+            mensagensEnviadas++;
+            ultimoUso = System.currentTimeMillis();
+        }
+
+        void fecharSeOciosa() {
+            if (transport != null && System.currentTimeMillis() - ultimoUso > conexaoOciosaMs) {
+                fechar();
+            }
+        }
+
+        void fechar() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Erro ao fechar conexão SMTP: {}", e.toString());
+            }
+            transport = null;
+            mensagensEnviadas = 0;
+            conexoesAbertas.decrementAndGet();
+        }
+    }
+
+    private static final class EmailPendente {
+
+        private final MimeMessage mensagem;
+        private final String descricao;
+        private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+        private int tentativas;
+
+        EmailPendente(MimeMessage mensagem, String descricao) {
+            this.mensagem = mensagem;
+            this.descricao = descricao;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.encenape.service.email;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Template de email já processado pelo Thymeleaf, com marcadores no lugar das variáveis. O HTML é
+// quebrado uma vez em trechos fixos e posições de variáveis; renderizar só concatena trechos e valores
+// escapados num buffer da thread, sem passar pelo parser de novo.
+public final class TemplateCompilado {
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+    // Buffers que cresceram demais numa renderização fora do comum não ficam presos à thread
+    private static final int BUFFER_MAXIMO = 256 * 1024;
+
+    private final String[] trechos;
+    private final int[] variaveis;
+    private final int tamanhoFixo;
+
+    private TemplateCompilado(String[] trechos, int[] variaveis) {
+        this.trechos = trechos;
+        this.variaveis = variaveis;
+        int tamanho = 0;
+        for (String trecho : trechos) {
+            tamanho += trecho.length();
+        }
+        this.tamanhoFixo = tamanho;
+    }
+
+    public static String marcador(String variavel) {
+        return "%%" + variavel + "%%";
+    }
+
+    // 'html' é o template processado com marcador(variavel) como valor de cada variável
+    public static TemplateCompilado compilar(String html, String... variaveis) {
+        List<String> trechos = new ArrayList<>();
+        List<Integer> posicoes = new ArrayList<>();
+        int inicio = 0;
+        while (true) {
+            int proxima = -1;
+            int variavel = -1;
+            for (int i = 0; i < variaveis.length; i++) {
+                int indice = html.indexOf(marcador(variaveis[i]), inicio);
+                if (indice >= 0 && (proxima < 0 || indice < proxima)) {
+                    proxima = indice;
+                    variavel = i;
+                }
+            }
+            if (proxima < 0) {
+                break;
+            }
+            trechos.add(html.substring(inicio, proxima));
+            posicoes.add(variavel);
+            inicio = proxima + marcador(variaveis[variavel]).length();
+        }
+        trechos.add(html.substring(inicio));
+        return new TemplateCompilado(trechos.toArray(new String[0]), posicoes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Valores na ordem das variáveis passadas em compilar; só os caracteres de marcação são escapados, como o
+    // th:text faz (acentos seguem literais, o email sai em UTF-8)
+    public String renderizar(String... valores) {
+        String[] escapados = new String[valores.length];
+        int tamanho = tamanhoFixo;
+        for (int i = 0; i < valores.length; i++) {
+            escapados[i] = valores[i] != null ? HtmlUtils.htmlEscape(valores[i], "UTF-8") : "";
+        }
+        for (int variavel : variaveis) {
+            tamanho += escapados[variavel].length();
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(tamanho);
+        buffer.append(trechos[0]);
+        for (int i = 0; i < variaveis.length; i++) {
+            buffer.append(escapados[variaveis[i]]).append(trechos[i + 1]);
+        }
+        String html = buffer.toString();
+        if (buffer.capacity() > BUFFER_MAXIMO) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+}
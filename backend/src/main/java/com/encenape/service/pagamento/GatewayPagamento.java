@@ -0,0 +1,16 @@
+package com.encenape.service.pagamento;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Cliente de gateway de pagamento. As chamadas não bloqueiam: o resultado chega pelo CompletableFuture,
+// e timeouts e circuit breaker ficam a cargo do PagamentoService.
+public interface GatewayPagamento {
+
+    // 'referencia' identifica a compra no gateway e serve de chave de idempotência para conciliação
+    CompletableFuture<ResultadoPagamento> cobrar(String metodoPagamento, BigDecimal valor, String referencia);
+
+    // Um resultado por pedido, na mesma ordem
+    CompletableFuture<List<ResultadoPagamento>> reembolsar(List<PedidoReembolso> pedidos);
+}
@@ -0,0 +1,79 @@
+package com.encenape.service.pagamento;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Gateway local para desenvolvimento e testes de carga: aprova o método "mock" depois de uma latência
+// configurável e falha uma fração das chamadas. A espera é agendada, sem prender a thread de quem chama.
+@Component
+@ConditionalOnProperty(name = "app.pagamento.gateway", havingValue = "stub", matchIfMissing = true)
+public class GatewayPagamentoStub implements GatewayPagamento {
+
+    @Value("${app.pagamento.stub.latencia-ms:0}")
+    private long latenciaMs;
+
+    @Value("${app.pagamento.stub.taxa-falha:0.0}")
+    private double taxaFalha;
+
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gateway-pagamento-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void parar() {
+        agendador.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<ResultadoPagamento> cobrar(String metodoPagamento, BigDecimal valor, String referencia) {
+        return responder(() -> {
+            if (!"mock".equals(metodoPagamento)) {
+                return ResultadoPagamento.recusado("Método de pagamento não suportado: " + metodoPagamento);
+            }
+            return ResultadoPagamento.aprovado("stub-" + UUID.randomUUID());
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<ResultadoPagamento>> reembolsar(List<PedidoReembolso> pedidos) {
+        return responder(() -> {
+            List<ResultadoPagamento> resultados = new ArrayList<>(pedidos.size());
+            for (PedidoReembolso pedido : pedidos) {
+                resultados.add(ResultadoPagamento.aprovado(pedido.getTransacaoId()));
+            }
+            return resultados;
+        });
+    }
+
+    private <T> CompletableFuture<T> responder(Supplier<T> resposta) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable concluir = () -> {
+            if (taxaFalha > 0 && ThreadLocalRandom.current().nextDouble() < taxaFalha) {
+                future.completeExceptionally(new RuntimeException("Falha simulada no gateway de pagamento"));
+            } else {
+                future.complete(resposta.get());
+            }
+        };
+        if (latenciaMs > 0) {
+            agendador.schedule(concluir, latenciaMs, TimeUnit.MILLISECONDS);
+        } else {
+            concluir.run();
+        }
+        return future;
+    }
+}
@@ -0,0 +1,17 @@
+package com.encenape.service.pagamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoReembolso {
+
+    private String transacaoId;
+    private BigDecimal valor;
+    private int tentativas;
+}
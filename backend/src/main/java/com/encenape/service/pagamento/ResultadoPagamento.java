@@ -0,0 +1,23 @@
+package com.encenape.service.pagamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoPagamento {
+
+    private boolean aprovado;
+    private String transacaoId;
+    private String mensagem;
+
+    public static ResultadoPagamento aprovado(String transacaoId) {
+        return new ResultadoPagamento(true, transacaoId, null);
+    }
+
+    public static ResultadoPagamento recusado(String mensagem) {
+        return new ResultadoPagamento(false, null, mensagem);
+    }
+}
@@ -0,0 +1,141 @@
+package com.encenape.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Quebra textos em português em termos de busca: minúsculas, sem acentos ("Hámlet" vira "hamlet"), sem
+// palavras vazias e reduzidos a um radical simples. O redutor é uma versão leve das regras do RSLP (plural,
+// feminino, diminutivo e aumentativo): basta que texto indexado e consulta caiam no mesmo radical.
+public final class AnalisadorTexto {
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas",
+            "um", "uma", "uns", "umas", "ao", "aos", "para", "por", "com", "que", "se", "the", "of");
+
+    private static final int TAMANHO_MINIMO_RADICAL = 3;
+    // innodb_ft_min_token_size padrão
+    private static final int TAMANHO_MINIMO_TOKEN_FULLTEXT = 3;
+
+    private AnalisadorTexto() {
+    }
+
+    // Termos do texto já reduzidos ao radical, na ordem em que aparecem (com repetições)
+    public static List<String> radicais(String texto) {
+        List<String> termos = new ArrayList<>();
+        for (String palavra : palavras(texto)) {
+            termos.add(radical(palavra));
+        }
+        return termos;
+    }
+
+    // Palavras normalizadas, sem acento e sem palavras vazias, mas ainda sem reduzir
+    public static List<String> palavras(String texto) {
+        List<String> palavras = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return palavras;
+        }
+        String normalizado = normalizar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letra = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letra && inicio < 0) {
+                inicio = i;
+            } else if (!letra && inicio >= 0) {
+                String palavra = normalizado.substring(inicio, i);
+                if (!PALAVRAS_VAZIAS.contains(palavra)) {
+                    palavras.add(palavra);
+                }
+                inicio = -1;
+            }
+        }
+        return palavras;
+    }
+
+    // Consulta para MATCH ... AGAINST em modo booleano: todas as palavras obrigatórias, cada uma também
+    // como prefixo. Só letras e dígitos passam, então os operadores do modo booleano não chegam do usuário.
+    // Palavras mais curtas que o token mínimo do InnoDB ficam de fora; nulo se não sobrar nenhuma.
+    public static String consultaBooleana(String texto) {
+        StringBuilder consulta = new StringBuilder();
+        for (String palavra : palavras(texto)) {
+            if (palavra.length() < TAMANHO_MINIMO_TOKEN_FULLTEXT) {
+                continue;
+            }
+            if (consulta.length() > 0) {
+                consulta.append(' ');
+            }
+            consulta.append('+').append(palavra).append('*');
+        }
+        return consulta.length() > 0 ? consulta.toString() : null;
+    }
+
+    // Minúsculas e sem diacríticos; o ç vira c
+    public static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+
+    public static String radical(String palavra) {
+        String radical = removerPlural(palavra);
+        radical = removerGrau(radical);
+        radical = removerFeminino(radical);
+        return radical;
+    }
+
+    private static String removerPlural(String palavra) {
+        if (palavra.length() <= TAMANHO_MINIMO_RADICAL || !palavra.endsWith("s")) {
+            return palavra;
+        }
+        if (palavra.endsWith("oes") || palavra.endsWith("aes")) {
+            return palavra.substring(0, palavra.length() - 3) + "ao";
+        }
+        // Como no RSLP, -ais e -eis só viram -al e -el com ao menos duas letras antes: "reis" e "pais" perdem
+        // só o s
+        if ((palavra.endsWith("ais") || palavra.endsWith("eis")) && palavra.length() <= 4) {
+            return palavra.substring(0, palavra.length() - 1);
+        }
+        if (palavra.endsWith("ais")) {
+            return palavra.substring(0, palavra.length() - 2) + "l";
+        }
+        if (palavra.endsWith("eis")) {
+            return palavra.substring(0, palavra.length() - 3) + "el";
+        }
+        if (palavra.endsWith("ns")) {
+            return palavra.substring(0, palavra.length() - 2) + "m";
+        }
+        if (palavra.endsWith("res") || palavra.endsWith("zes")) {
+            return palavra.substring(0, palavra.length() - 2);
+        }
+        if (palavra.endsWith("ss") || palavra.endsWith("us") || palavra.endsWith("is")) {
+            return palavra;
+        }
+        return palavra.substring(0, palavra.length() - 1);
+    }
+
+    private static String removerGrau(String palavra) {
+        for (String sufixo : new String[]{"zinho", "zinha", "inho", "inha", "issimo", "issima", "zao", "ona"}) {
+            if (palavra.endsWith(sufixo) && palavra.length() - sufixo.length() >= TAMANHO_MINIMO_RADICAL) {
+                return palavra.substring(0, palavra.length() - sufixo.length());
+            }
+        }
+        return palavra;
+    }
+
+    // O -ao vem de -ão ("canção", "leão") e não é flexão de gênero
+    private static String removerFeminino(String palavra) {
+        if (palavra.length() > TAMANHO_MINIMO_RADICAL + 1 && !palavra.endsWith("ao")
+                && (palavra.endsWith("a") || palavra.endsWith("o"))) {
+            return palavra.substring(0, palavra.length() - 1);
+        }
+        return palavra;
+    }
+}
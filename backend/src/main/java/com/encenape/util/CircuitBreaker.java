@@ -0,0 +1,72 @@
+package com.encenape.util;
+
+// Disjuntor simples por falhas consecutivas. Depois de 'limiteFalhas' falhas seguidas abre e recusa
+// chamadas por 'abertoMs'; passado esse tempo deixa passar uma única chamada de teste (meio-aberto),
+// que fecha o circuito se der certo ou o reabre se falhar.
+public class CircuitBreaker {
+
+    public enum Estado {
+        FECHADO, ABERTO, MEIO_ABERTO
+    }
+
+    private final String nome;
+    private final int limiteFalhas;
+    private final long abertoMs;
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas;
+    private long abertoAte;
+    private boolean testeEmAndamento;
+
+    public CircuitBreaker(String nome, int limiteFalhas, long abertoMs) {
+        if (limiteFalhas < 1) {
+            throw new IllegalArgumentException("limiteFalhas deve ser positivo");
+        }
+        this.nome = nome;
+        this.limiteFalhas = limiteFalhas;
+        this.abertoMs = abertoMs;
+    }
+
+    public synchronized boolean permitir() {
+        switch (estado) {
+            case FECHADO:
+                return true;
+            case ABERTO:
+                if (System.currentTimeMillis() < abertoAte) {
+                    return false;
+                }
+                estado = Estado.MEIO_ABERTO;
+                testeEmAndamento = true;
+                return true;
+            default:
+                if (testeEmAndamento) {
+                    return false;
+                }
+                testeEmAndamento = true;
+                return true;
+        }
+    }
+
+    public synchronized void registrarSucesso() {
+        falhasSeguidas = 0;
+        testeEmAndamento = false;
+        estado = Estado.FECHADO;
+    }
+
+    public synchronized void registrarFalha() {
+        testeEmAndamento = false;
+        if (estado == Estado.MEIO_ABERTO || ++falhasSeguidas >= limiteFalhas) {
+            estado = Estado.ABERTO;
+            abertoAte = System.currentTimeMillis() + abertoMs;
+            falhasSeguidas = 0;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+}
@@ -0,0 +1,60 @@
+package com.encenape.util;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Cursor opaco da paginação por keyset das listagens de eventos: a posição (dataHora, id) do último
+// evento entregue, em binário e base64url. Um cursor adulterado só muda o ponto de partida da página.
+public final class CursorEventos {
+
+    private static final byte VERSAO = 1;
+    private static final int TAMANHO = 1 + 8 + 4 + 8;
+
+    // Antes de qualquer evento: a primeira página parte daqui
+    public static final CursorEventos INICIO = new CursorEventos(LocalDateTime.of(1000, 1, 1, 0, 0), 0L);
+
+    private final LocalDateTime dataHora;
+    private final Long id;
+
+    public CursorEventos(LocalDateTime dataHora, Long id) {
+        this.dataHora = dataHora;
+        this.id = id;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String codificar() {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO);
+        buffer.put(VERSAO);
+        buffer.putLong(dataHora.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(dataHora.getNano());
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    // Sem cursor, o início da listagem
+    public static CursorEventos decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return INICIO;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != TAMANHO || bytes[0] != VERSAO) {
+                throw new IllegalArgumentException();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, TAMANHO - 1);
+            LocalDateTime dataHora = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            return new CursorEventos(dataHora, buffer.getLong());
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+}
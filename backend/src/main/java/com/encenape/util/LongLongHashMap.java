@@ -0,0 +1,124 @@
+package com.encenape.util;
+
+import java.util.Arrays;
+
+// Mapa long -> long com endereçamento aberto (linear probing) sobre dois arrays primitivos:
+// ~16 bytes por entrada no fator de carga máximo, sem boxing nem objetos por entrada.
+// A chave 0 é reservada para slot vazio. Não é thread-safe.
+public class LongLongHashMap {
+
+    private static final long VAZIO = 0L;
+    private static final float FATOR_CARGA = 0.6f;
+
+    private long[] chaves;
+    private long[] valores;
+    private int tamanho;
+    private int limite;
+
+    public LongLongHashMap(int capacidadeInicial) {
+        int capacidade = Integer.highestOneBit(Math.max(16, (int) (capacidadeInicial / FATOR_CARGA)) - 1) << 1;
+        alocar(capacidade);
+    }
+
+    public long get(long chave, long padrao) {
+        if (chave == VAZIO) {
+            return padrao;
+        }
+        int indice = localizar(chave);
+        return chaves[indice] == chave ? valores[indice] : padrao;
+    }
+
+    // A chave 0 nunca está no mapa (localizar pararia no primeiro slot vazio e "acharia" a chave)
+    public boolean contains(long chave) {
+        return chave != VAZIO && chaves[localizar(chave)] == chave;
+    }
+
+    // Retorna o valor já associado, ou insere e retorna o novo valor
+    public long putIfAbsent(long chave, long valor) {
+        validar(chave);
+        int indice = localizar(chave);
+        if (chaves[indice] == chave) {
+            return valores[indice];
+        }
+        chaves[indice] = chave;
+        valores[indice] = valor;
+        if (++tamanho > limite) {
+            redimensionar();
+        }
+        return valor;
+    }
+
+    public boolean remove(long chave) {
+        validar(chave);
+        int mascara = chaves.length - 1;
+        int indice = localizar(chave);
+        if (chaves[indice] != chave) {
+            return false;
+        }
+        // Remoção por deslocamento para trás: mantém a sequência de sondagem sem lápides
+        int vago = indice;
+        int atual = (vago + 1) & mascara;
+        while (chaves[atual] != VAZIO) {
+            int ideal = indiceIdeal(chaves[atual], mascara);
+            if (((atual - ideal) & mascara) >= ((atual - vago) & mascara)) {
+                chaves[vago] = chaves[atual];
+                valores[vago] = valores[atual];
+                vago = atual;
+            }
+            atual = (atual + 1) & mascara;
+        }
+        chaves[vago] = VAZIO;
+        valores[vago] = 0L;
+        tamanho--;
+        return true;
+    }
+
+    public int size() {
+        return tamanho;
+    }
+
+    public void clear() {
+        Arrays.fill(chaves, VAZIO);
+        Arrays.fill(valores, 0L);
+        tamanho = 0;
+    }
+
+    private int localizar(long chave) {
+        int mascara = chaves.length - 1;
+        int indice = indiceIdeal(chave, mascara);
+        while (chaves[indice] != VAZIO && chaves[indice] != chave) {
+            indice = (indice + 1) & mascara;
+        }
+        return indice;
+    }
+
+    private static int indiceIdeal(long chave, int mascara) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void redimensionar() {
+        long[] chavesAntigas = chaves;
+        long[] valoresAntigos = valores;
+        alocar(chavesAntigas.length << 1);
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != VAZIO) {
+                int indice = localizar(chavesAntigas[i]);
+                chaves[indice] = chavesAntigas[i];
+                valores[indice] = valoresAntigos[i];
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new long[capacidade];
+        limite = (int) (capacidade * FATOR_CARGA);
+    }
+
+    private static void validar(long chave) {
+        if (chave == VAZIO) {
+            throw new IllegalArgumentException("Chave 0 é reservada");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.encenape.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+public final class Paginacao {
+
+    private Paginacao() {
+    }
+
+    // Nas consultas nativas por relevância, a ordenação pedida pelo cliente não se aplica
+    public static Pageable semOrdenacao(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : Pageable.unpaged();
+    }
+}
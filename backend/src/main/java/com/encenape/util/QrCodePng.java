@@ -0,0 +1,182 @@
+package com.encenape.util;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Renderiza um QR Code direto em PNG de 1 bit por pixel (tons de cinza), sem BufferedImage nem ImageIO.
+// Parte da matriz de módulos do ZXing e aplica a mesma escala e margem do QRCodeWriter, então a imagem
+// é idêntica pixel a pixel à do caminho anterior. Buffers, Deflater e CRC32 ficam por thread e são
+// reaproveitados; a única alocação por chamada além do ZXing é o array final com o tamanho exato do PNG.
+public final class QrCodePng {
+
+    private static final int MARGEM_MODULOS = 4;
+    private static final byte[] ASSINATURA = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Estado> ESTADO = ThreadLocal.withInitial(Estado::new);
+
+    private QrCodePng() {
+    }
+
+    public static byte[] renderizar(String conteudo, int tamanho) throws WriterException {
+        // Mesmo nível de correção e codificação padrão do QRCodeWriter
+        QRCode qrCode = Encoder.encode(conteudo, ErrorCorrectionLevel.L);
+        return renderizar(qrCode.getMatrix(), tamanho);
+    }
+
+    static byte[] renderizar(ByteMatrix modulos, int tamanho) {
+        // Mesma geometria de QRCodeWriter.renderResult: escala inteira e sobra centralizada
+        int larguraEntrada = modulos.getWidth() + MARGEM_MODULOS * 2;
+        int alturaEntrada = modulos.getHeight() + MARGEM_MODULOS * 2;
+        int largura = Math.max(tamanho, larguraEntrada);
+        int altura = Math.max(tamanho, alturaEntrada);
+        int escala = Math.min(largura / larguraEntrada, altura / alturaEntrada);
+        int esquerda = (largura - modulos.getWidth() * escala) / 2;
+        int topo = (altura - modulos.getHeight() * escala) / 2;
+
+        Estado estado = ESTADO.get();
+        int bytesPorLinha = (largura + 7) >>> 3;
+        int tamanhoLinha = bytesPorLinha + 1;
+        byte[] linhas = estado.linhas(tamanhoLinha * altura);
+
+        // Linha em branco (todos os bits 1) usada nas margens de cima e de baixo
+        byte[] linhaBranca = estado.linhaBranca(tamanhoLinha);
+        Arrays.fill(linhaBranca, 1, tamanhoLinha, (byte) 0xFF);
+        limparBitsExcedentes(linhaBranca, tamanhoLinha, largura);
+
+        int posicao = 0;
+        int yModulo = -1;
+        int inicioLinhaModulo = 0;
+        for (int y = 0; y < altura; y++, posicao += tamanhoLinha) {
+            int yRelativo = y - topo;
+            if (yRelativo < 0 || yRelativo >= modulos.getHeight() * escala) {
+                System.arraycopy(linhaBranca, 0, linhas, posicao, tamanhoLinha);
+                continue;
+            }
+            // Cada linha de módulos se repete 'escala' vezes: monta uma vez e copia
+            if (yRelativo / escala == yModulo) {
+                System.arraycopy(linhas, inicioLinhaModulo, linhas, posicao, tamanhoLinha);
+                continue;
+            }
+            yModulo = yRelativo / escala;
+            inicioLinhaModulo = posicao;
+            escreverLinha(modulos, yModulo, escala, esquerda, largura, linhas, posicao, tamanhoLinha);
+        }
+
+        int tamanhoComprimido = estado.comprimir(linhas, tamanhoLinha * altura);
+        return escreverPng(estado, largura, altura, tamanhoComprimido);
+    }
+
+    // Bit 1 = branco, 0 = preto, do bit mais significativo para o menos; o primeiro byte é o filtro (0 = nenhum)
+    private static void escreverLinha(ByteMatrix modulos, int yModulo, int escala, int esquerda, int largura,
+                                      byte[] destino, int posicao, int tamanhoLinha) {
+        Arrays.fill(destino, posicao, posicao + tamanhoLinha, (byte) 0xFF);
+        destino[posicao] = 0;
+        int larguraModulos = modulos.getWidth();
+        for (int xModulo = 0; xModulo < larguraModulos; xModulo++) {
+            if (modulos.get(xModulo, yModulo) != 1) {
+                continue;
+            }
+            int inicio = esquerda + xModulo * escala;
+            for (int x = inicio; x < inicio + escala; x++) {
+                destino[posicao + 1 + (x >>> 3)] &= (byte) ~(0x80 >>> (x & 7));
+            }
+        }
+        limparBitsExcedentes(destino, posicao + tamanhoLinha, largura);
+    }
+
+    // Bits além da largura no último byte da linha são zerados, como pede a especificação
+    private static void limparBitsExcedentes(byte[] linha, int fimLinha, int largura) {
+        int sobra = largura & 7;
+        if (sobra != 0) {
+            linha[fimLinha - 1] &= (byte) (0xFF << (8 - sobra));
+        }
+    }
+
+    private static byte[] escreverPng(Estado estado, int largura, int altura, int tamanhoComprimido) {
+        int total = ASSINATURA.length + (12 + 13) + (12 + tamanhoComprimido) + 12;
+        byte[] png = new byte[total];
+        System.arraycopy(ASSINATURA, 0, png, 0, ASSINATURA.length);
+        int posicao = ASSINATURA.length;
+
+        byte[] cabecalho = estado.cabecalho;
+        escreverInt(cabecalho, 0, largura);
+        escreverInt(cabecalho, 4, altura);
+        cabecalho[8] = 1;  // bits por pixel
+        cabecalho[9] = 0;  // tons de cinza
+        cabecalho[10] = 0; // deflate
+        cabecalho[11] = 0; // filtragem adaptativa padrão
+        cabecalho[12] = 0; // sem entrelaçamento
+        posicao = escreverChunk(estado.crc, png, posicao, IHDR, cabecalho, 13);
+        posicao = escreverChunk(estado.crc, png, posicao, IDAT, estado.comprimido, tamanhoComprimido);
+        escreverChunk(estado.crc, png, posicao, IEND, cabecalho, 0);
+        return png;
+    }
+
+    private static int escreverChunk(CRC32 crc, byte[] destino, int posicao, byte[] tipo, byte[] dados, int tamanho) {
+        escreverInt(destino, posicao, tamanho);
+        System.arraycopy(tipo, 0, destino, posicao + 4, 4);
+        System.arraycopy(dados, 0, destino, posicao + 8, tamanho);
+        crc.reset();
+        crc.update(destino, posicao + 4, 4 + tamanho);
+        escreverInt(destino, posicao + 8 + tamanho, (int) crc.getValue());
+        return posicao + 12 + tamanho;
+    }
+
+    private static void escreverInt(byte[] destino, int posicao, int valor) {
+        destino[posicao] = (byte) (valor >>> 24);
+        destino[posicao + 1] = (byte) (valor >>> 16);
+        destino[posicao + 2] = (byte) (valor >>> 8);
+        destino[posicao + 3] = (byte) valor;
+    }
+
+    private static final class Estado {
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private final byte[] cabecalho = new byte[13];
+        private byte[] linhas = new byte[0];
+        private byte[] linhaBranca = new byte[0];
+        private byte[] comprimido = new byte[1024];
+
+        byte[] linhas(int tamanho) {
+            if (linhas.length < tamanho) {
+                linhas = new byte[tamanho];
+            }
+            return linhas;
+        }
+
+        byte[] linhaBranca(int tamanho) {
+            if (linhaBranca.length < tamanho) {
+                linhaBranca = new byte[tamanho];
+            }
+            linhaBranca[0] = 0;
+            return linhaBranca;
+        }
+
+        // Comprime no buffer da thread, crescendo se preciso; retorna o tamanho do fluxo zlib
+        int comprimir(byte[] dados, int tamanho) {
+            deflater.reset();
+            deflater.setInput(dados, 0, tamanho);
+            deflater.finish();
+            int escrito = 0;
+            while (!deflater.finished()) {
+                if (escrito == comprimido.length) {
+                    comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+                }
+                escrito += deflater.deflate(comprimido, escrito, comprimido.length - escrito);
+            }
+            return escrito;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.encenape.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Timing wheel hierárquico: cada nível tem 'slots' posições e cada posição do nível n cobre
+// slots^n ticks. Agendar e cancelar são O(1); a cada tick só o slot corrente do nível 0 é expirado
+// e, nas viradas de volta, o slot correspondente do nível acima é redistribuído para os níveis de baixo.
+@Slf4j
+public class TimingWheel {
+
+    private final String nome;
+    private final long tickMs;
+    private final int bits;
+    private final int mascara;
+    private final int niveis;
+    private final ArrayDeque<Timeout>[][] rodas;
+    private final long inicioMs;
+    private final AtomicInteger pendentes = new AtomicInteger();
+
+    private long tickAtual;
+    private volatile boolean rodando;
+    private Thread worker;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String nome, long tickMs, int slots, int niveis) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Número de slots deve ser potência de 2");
+        }
+        this.nome = nome;
+        this.tickMs = tickMs;
+        this.bits = Integer.numberOfTrailingZeros(slots);
+        this.mascara = slots - 1;
+        this.niveis = niveis;
+        this.rodas = new ArrayDeque[niveis][slots];
+        for (int n = 0; n < niveis; n++) {
+            for (int s = 0; s < slots; s++) {
+                rodas[n][s] = new ArrayDeque<>();
+            }
+        }
+        this.inicioMs = System.currentTimeMillis();
+    }
+
+    public Timeout agendar(long prazoEpochMs, Runnable tarefa) {
+        long alvo = Math.max(0, (prazoEpochMs - inicioMs + tickMs - 1) / tickMs);
+        Timeout timeout = new Timeout(alvo, tarefa);
+        pendentes.incrementAndGet();
+
+        boolean vencido;
+        synchronized (this) {
+            vencido = !posicionar(timeout);
+        }
+        if (vencido) {
+            executar(timeout);
+        }
+        return timeout;
+    }
+
+    public int getPendentes() {
+        return pendentes.get();
+    }
+
+    public synchronized void iniciar() {
+        if (rodando) {
+            return;
+        }
+        rodando = true;
+        worker = new Thread(this::loop, "timing-wheel-" + nome);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void parar() {
+        rodando = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void loop() {
+        while (rodando) {
+            long agoraTick = (System.currentTimeMillis() - inicioMs) / tickMs;
+            List<Timeout> vencidos = new ArrayList<>();
+            synchronized (this) {
+                // Se o worker atrasou (GC, callbacks lentos), avança tick a tick até alcançar o relógio
+                while (tickAtual < agoraTick) {
+                    avancar(vencidos);
+                }
+            }
+            for (Timeout timeout : vencidos) {
+                executar(timeout);
+            }
+
+            long proximoTickMs = inicioMs + (tickAtual + 1) * tickMs;
+            long espera = proximoTickMs - System.currentTimeMillis();
+            if (espera > 0) {
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Chamado com o lock: avança um tick, redistribui os níveis superiores que viraram e coleta o slot vencido
+    private void avancar(List<Timeout> vencidos) {
+        tickAtual++;
+
+        int nivel = 1;
+        while (nivel < niveis && (tickAtual & ((1L << (bits * nivel)) - 1)) == 0) {
+            nivel++;
+        }
+        for (int n = nivel - 1; n >= 1; n--) {
+            ArrayDeque<Timeout> slot = rodas[n][(int) ((tickAtual >>> (bits * n)) & mascara)];
+            Timeout timeout;
+            while ((timeout = slot.poll()) != null) {
+                if (timeout.cancelado) {
+                    pendentes.decrementAndGet();
+                } else if (!posicionar(timeout)) {
+                    vencidos.add(timeout);
+                }
+            }
+        }
+
+        ArrayDeque<Timeout> slot = rodas[0][(int) (tickAtual & mascara)];
+        Timeout timeout;
+        while ((timeout = slot.poll()) != null) {
+            if (!timeout.cancelado) {
+                vencidos.add(timeout);
+            } else {
+                pendentes.decrementAndGet();
+            }
+        }
+    }
+
+    // Chamado com o lock. Retorna false se o prazo já venceu e a tarefa deve rodar imediatamente.
+    // O nível escolhido é o menor em que alvo e tick atual ainda estão na mesma volta do nível acima,
+    // o que garante que o slot do alvo será alcançado antes de a roda completar a volta.
+    private boolean posicionar(Timeout timeout) {
+        if (timeout.alvo <= tickAtual) {
+            return false;
+        }
+        for (int n = 0; n < niveis; n++) {
+            int deslocamento = bits * (n + 1);
+            if (n == niveis - 1 || (timeout.alvo >>> deslocamento) == (tickAtual >>> deslocamento)) {
+                long bloco = timeout.alvo >>> (bits * n);
+                if (n == niveis - 1 && (timeout.alvo >>> deslocamento) != (tickAtual >>> deslocamento)) {
+                    // Além do alcance da roda: fica no último slot da volta e é reposicionado quando ele virar
+                    bloco = (tickAtual >>> (bits * n)) - 1;
+                }
+                rodas[n][(int) (bloco & mascara)].add(timeout);
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private void executar(Timeout timeout) {
+        pendentes.decrementAndGet();
+        if (timeout.cancelado) {
+            return;
+        }
+        try {
+            timeout.tarefa.run();
+        } catch (Exception e) {
+            log.error("Erro ao executar tarefa agendada em {}", nome, e);
+        }
+    }
+
+    public static final class Timeout {
+
+        private final long alvo;
+        private final Runnable tarefa;
+        private volatile boolean cancelado;
+
+        private Timeout(long alvo, Runnable tarefa) {
+            this.alvo = alvo;
+            this.tarefa = tarefa;
+        }
+
+        // O registro sai da roda quando o slot dele for processado
+        public void cancelar() {
+            cancelado = true;
+        }
+
+        public boolean isCancelado() {
+            return cancelado;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Check-in na portaria: unidades do ingresso já utilizadas e horário da primeira entrada
+-- Version: 10.0
+
+ALTER TABLE ingressos ADD COLUMN quantidade_utilizada INT NOT NULL DEFAULT 0;
+ALTER TABLE ingressos ADD COLUMN utilizado_em DATETIME NULL;
@@ -0,0 +1,22 @@
+-- Envios em massa para os compradores de um evento (alteração de data/local), com checkpoint para retomar
+-- Version: 11.0
+
+CREATE TABLE notificacoes_evento (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  evento_id BIGINT NOT NULL,
+  tipo VARCHAR(50) NOT NULL,
+  dados TEXT,
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  ultimo_usuario_id BIGINT NOT NULL DEFAULT 0,
+  enviados INT NOT NULL DEFAULT 0,
+  falhas INT NOT NULL DEFAULT 0,
+  prazo DATETIME NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  concluido_at TIMESTAMP NULL,
+  FOREIGN KEY (evento_id) REFERENCES eventos(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_notificacoes_status_prazo ON notificacoes_evento(status, prazo);
+
+-- Compradores distintos de um evento percorridos por keyset (evento, status, usuário)
+CREATE INDEX idx_ingressos_evento_status_usuario ON ingressos(evento_id, status, usuario_id);
@@ -0,0 +1,6 @@
+-- Lembretes 24h antes do evento: a chave (data do evento) garante um único envio por data, mesmo após restarts
+-- Version: 12.0
+
+ALTER TABLE notificacoes_evento ADD COLUMN chave VARCHAR(100) NULL;
+
+CREATE UNIQUE INDEX uk_notificacoes_evento_tipo_chave ON notificacoes_evento(evento_id, tipo, chave);
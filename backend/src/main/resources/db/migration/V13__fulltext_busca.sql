@@ -0,0 +1,7 @@
+-- Índices FULLTEXT para a busca por MATCH ... AGAINST (app.busca.modo = FULLTEXT)
+-- Palavras com menos de innodb_ft_min_token_size caracteres (3 por padrão) não entram no índice
+-- Version: 13.0
+
+ALTER TABLE eventos ADD FULLTEXT INDEX ft_eventos_titulo_descricao (titulo, descricao);
+
+ALTER TABLE faq ADD FULLTEXT INDEX ft_faq_pergunta_resposta_tags (pergunta, resposta, tags);
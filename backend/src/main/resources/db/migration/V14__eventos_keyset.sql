@@ -0,0 +1,4 @@
+-- Paginação por cursor (data_hora, id) nas listagens de eventos ativos; o InnoDB já inclui o id no índice
+-- Version: 14.0
+
+CREATE INDEX idx_eventos_ativo_data_hora ON eventos(ativo, data_hora);
@@ -0,0 +1,9 @@
+-- Reembolsos gravados no outbox na mesma transação do cancelamento, para não se perderem num restart.
+-- Reembolsos de compras desfeitas antes de gravar o ingresso não têm referência.
+-- Version: 15.0
+
+ALTER TABLE outbox_eventos MODIFY referencia_id BIGINT NULL;
+ALTER TABLE outbox_eventos ADD COLUMN transacao_pagamento VARCHAR(100) NULL;
+ALTER TABLE outbox_eventos ADD COLUMN valor DECIMAL(10,2) NULL;
+
+CREATE INDEX idx_outbox_tipo_status_proxima ON outbox_eventos(tipo, status, proxima_tentativa);
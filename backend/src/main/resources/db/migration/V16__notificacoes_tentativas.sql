@@ -0,0 +1,6 @@
+-- Tentativas e estado FAILED nas notificações em massa, como no outbox: um envio que falha sempre no
+-- mesmo ponto para depois de 'max-tentativas' em vez de ser retomado para sempre
+-- Version: 16.0
+
+ALTER TABLE notificacoes_evento ADD COLUMN tentativas INT NOT NULL DEFAULT 0;
+ALTER TABLE notificacoes_evento ADD COLUMN ultimo_erro TEXT NULL;
@@ -0,0 +1,18 @@
+-- Reservas temporárias de ingressos (fluxo reserva -> confirmação)
+-- Version: 3.0
+
+CREATE TABLE reservas (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  codigo VARCHAR(200) NOT NULL UNIQUE,
+  usuario_id BIGINT NOT NULL,
+  evento_id BIGINT NOT NULL,
+  quantidade INT NOT NULL DEFAULT 1,
+  status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+  expires_at DATETIME NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE,
+  FOREIGN KEY (evento_id) REFERENCES eventos(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_reservas_status ON reservas(status);
+CREATE INDEX idx_reservas_evento_status ON reservas(evento_id, status);
@@ -0,0 +1,12 @@
+-- Tabelas de alocação de IDs em blocos (pooled-lo) para entidades com inserts em volume
+-- Version: 4.0
+-- Description: substitui AUTO_INCREMENT como gerador do Hibernate, permitindo JDBC batching
+
+CREATE TABLE ingressos_seq (next_val BIGINT NOT NULL);
+INSERT INTO ingressos_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM ingressos;
+
+CREATE TABLE reservas_seq (next_val BIGINT NOT NULL);
+INSERT INTO reservas_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM reservas;
+
+CREATE TABLE mensagens_seq (next_val BIGINT NOT NULL);
+INSERT INTO mensagens_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM mensagens;
@@ -0,0 +1,19 @@
+-- Outbox transacional para efeitos colaterais pós-compra (QR Code, emails)
+-- Version: 5.0
+
+CREATE TABLE outbox_eventos (
+  id BIGINT PRIMARY KEY,
+  tipo VARCHAR(50) NOT NULL,
+  referencia_id BIGINT NOT NULL,
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  tentativas INT NOT NULL DEFAULT 0,
+  proxima_tentativa DATETIME NOT NULL,
+  ultimo_erro TEXT,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  processado_at TIMESTAMP NULL
+);
+
+CREATE INDEX idx_outbox_status_proxima ON outbox_eventos(status, proxima_tentativa);
+
+CREATE TABLE outbox_eventos_seq (next_val BIGINT NOT NULL);
+INSERT INTO outbox_eventos_seq (next_val) VALUES (1);
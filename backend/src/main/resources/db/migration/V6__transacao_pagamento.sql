@@ -0,0 +1,4 @@
+-- Identificador da cobrança no gateway de pagamento, usado nos reembolsos
+-- Version: 6.0
+
+ALTER TABLE ingressos ADD COLUMN transacao_pagamento VARCHAR(100) NULL;
@@ -0,0 +1,5 @@
+-- Idempotency-Key das compras: um retry reencontra o ingresso original em vez de comprar de novo
+-- Version: 7.0
+
+ALTER TABLE ingressos ADD COLUMN chave_idempotencia VARCHAR(100) NULL;
+ALTER TABLE ingressos ADD CONSTRAINT uk_ingressos_usuario_chave UNIQUE (usuario_id, chave_idempotencia);
@@ -0,0 +1,4 @@
+-- Índice para percorrer os ingressos ativos de um evento por keyset (evento, status, id)
+-- Version: 8.0
+
+CREATE INDEX idx_ingressos_evento_status_id ON ingressos(evento_id, status, id);
@@ -0,0 +1,4 @@
+-- O QR Code passa a ser gerado sob demanda em /ingressos/codigo/{codigo}/qr.png
+-- Version: 9.0
+
+ALTER TABLE ingressos DROP COLUMN qr_code_url;
@@ -0,0 +1,27 @@
+package com.encenape.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Registra os comandos SQL preparados pela thread atual, para os testes que verificam quantas consultas
+// uma leitura faz. As estatísticas do Hibernate são globais e somariam as tarefas agendadas que rodam em paralelo.
+public class ContadorConsultas implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CONSULTAS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        CONSULTAS.get().add(sql);
+        return sql;
+    }
+
+    public static void zerar() {
+        CONSULTAS.get().clear();
+    }
+
+    public static List<String> consultas() {
+        return List.copyOf(CONSULTAS.get());
+    }
+}
@@ -0,0 +1,97 @@
+package com.encenape.repository;
+
+import com.encenape.model.Evento;
+import com.encenape.model.Ingresso;
+import com.encenape.model.Usuario;
+import com.encenape.service.Fixtures;
+import jakarta.persistence.EntityManager;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IngressoRepositoryIntegrationTest {
+
+    // batch_size do application.yml e allocationSize do gerador de Ingresso
+    private static final int TAMANHO_BATCH = 50;
+    private static final int BLOCO_IDS = 100;
+
+    @Autowired
+    private IngressoRepository ingressoRepository;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void saveAllAgrupaOsInsertsEBuscaOsIdsEmBlocos() {
+        int quantidade = 10_000;
+        Evento evento = eventoRepository.save(Fixtures.evento(quantidade));
+        Usuario usuario = usuarioRepository.save(Fixtures.usuario());
+        List<Ingresso> ingressos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Ingresso ingresso = new Ingresso();
+            ingresso.setUsuario(usuario);
+            ingresso.setEvento(evento);
+            ingresso.setValorTotal(Fixtures.PRECO);
+            ingresso.setMetodoPagamento("mock");
+            ingressos.add(ingresso);
+        }
+
+        // O StatementInspector só vê o prepare, que o batch reaproveita; os executeBatch vêm dos eventos da sessão
+        AtomicInteger batches = new AtomicInteger();
+        ContadorConsultas.zerar();
+        List<Ingresso> salvos = new TransactionTemplate(transactionManager).execute(status -> {
+            entityManager.unwrap(Session.class).addEventListeners(new BaseSessionEventListener() {
+                @Override
+                public void jdbcExecuteBatchStart() {
+                    batches.incrementAndGet();
+                }
+            });
+            return ingressoRepository.saveAll(ingressos);
+        });
+        List<String> consultas = ContadorConsultas.consultas();
+
+        // Um só PreparedStatement de insert, executado em batches de TAMANHO_BATCH linhas
+        long inserts = consultas.stream().filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("insert into ingressos")).count();
+        assertEquals(1, inserts);
+        assertEquals((quantidade + TAMANHO_BATCH - 1) / TAMANHO_BATCH, batches.get());
+
+        // Uma ida ao gerador a cada bloco de IDs
+        long buscasDeIds = consultas.stream().filter(sql -> sql.toLowerCase(Locale.ROOT).contains("ingressos_seq")).count();
+        assertEquals((quantidade + BLOCO_IDS - 1) / BLOCO_IDS, buscasDeIds, consultas::toString);
+
+        // pooled-lo: cada bloco entrega IDs consecutivos, então só há salto na troca de bloco
+        int saltos = 0;
+        for (int i = 1; i < salvos.size(); i++) {
+            if (salvos.get(i).getId() != salvos.get(i - 1).getId() + 1) {
+                saltos++;
+            }
+        }
+        assertTrue(saltos <= buscasDeIds, saltos + " saltos");
+        assertEquals(quantidade, ingressoRepository.somarQuantidadeAtivaPorEvento(evento.getId()));
+        assertTrue(consultas.size() <= inserts + buscasDeIds, consultas.size() + " comandos");
+    }
+}
@@ -0,0 +1,59 @@
+package com.encenape.repository;
+
+import com.encenape.model.OutboxEvento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxEventoRepositoryIntegrationTest {
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reivindicarPosseVencidaContaComoTentativa() {
+        // Prazos no futuro, fora do alcance do dispatcher agendado; o teste passa um 'agora' adiante
+        LocalDateTime prazo = LocalDateTime.now().plusHours(1);
+        OutboxEvento processando = outboxEventoRepository.save(novoEvento(OutboxEvento.StatusOutbox.PROCESSING, 2, prazo));
+        OutboxEvento pendente = outboxEventoRepository.save(novoEvento(OutboxEvento.StatusOutbox.PENDING, 2, prazo));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDateTime agora = prazo.plusMinutes(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, outboxEventoRepository.reivindicar(processando.getId(), agora, agora.plusMinutes(5)));
+            assertEquals(1, outboxEventoRepository.reivindicar(pendente.getId(), agora, agora.plusMinutes(5)));
+        });
+
+        assertEquals(3, outboxEventoRepository.findById(processando.getId()).orElseThrow().getTentativas());
+        assertEquals(2, outboxEventoRepository.findById(pendente.getId()).orElseThrow().getTentativas());
+        assertEquals(OutboxEvento.StatusOutbox.PROCESSING, outboxEventoRepository.findById(pendente.getId()).orElseThrow().getStatus());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, outboxEventoRepository.abandonarEsgotado(processando.getId(), 4, "esgotado"));
+            assertEquals(1, outboxEventoRepository.abandonarEsgotado(processando.getId(), 3, "esgotado"));
+        });
+        assertEquals(OutboxEvento.StatusOutbox.FAILED, outboxEventoRepository.findById(processando.getId()).orElseThrow().getStatus());
+    }
+
+    private static OutboxEvento novoEvento(OutboxEvento.StatusOutbox status, int tentativas, LocalDateTime proximaTentativa) {
+        OutboxEvento evento = new OutboxEvento();
+        evento.setTipo(OutboxEvento.TipoOutbox.CONFIRMACAO_COMPRA);
+        evento.setReferenciaId(-1L);
+        evento.setStatus(status);
+        evento.setTentativas(tentativas);
+        evento.setProximaTentativa(proximaTentativa);
+        return evento;
+    }
+}
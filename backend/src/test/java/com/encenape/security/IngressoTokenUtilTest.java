@@ -0,0 +1,124 @@
+package com.encenape.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngressoTokenUtilTest {
+
+    private static final Instant EXPIRA_EM = Instant.parse("2027-03-01T22:00:00Z");
+
+    private IngressoTokenUtil tokenUtil;
+
+    @BeforeEach
+    void iniciar() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "segredo-de-teste-com-tamanho-suficiente-para-hmac");
+        tokenUtil = new IngressoTokenUtil(jwtUtil);
+        tokenUtil.iniciar();
+    }
+
+    @Test
+    void codigoUuidVoltaIgual() {
+        String codigo = UUID.randomUUID().toString();
+        String token = tokenUtil.gerarToken(codigo, 42L, 3, EXPIRA_EM);
+
+        IngressoToken lido = tokenUtil.validarToken(token).orElseThrow();
+        assertEquals(codigo, lido.getCodigo());
+        assertEquals(42L, lido.getEventoId());
+        assertEquals(3, lido.getQuantidade());
+        assertEquals(EXPIRA_EM, lido.getExpiraEm());
+        // 1 + 16 + 8 + 2 + 4 + 16 bytes
+        assertEquals(47, Base64.getUrlDecoder().decode(token).length);
+    }
+
+    @Test
+    void codigoTextoVoltaIgual() {
+        // Maiúsculas não são a forma canônica do UUID e seguem pelo formato texto
+        for (String codigo : new String[]{"ING-2024-000123", "ingresso-ção-ü", UUID.randomUUID().toString().toUpperCase(), "x".repeat(255)}) {
+            IngressoToken lido = tokenUtil.validarToken(tokenUtil.gerarToken(codigo, 7L, Short.MAX_VALUE, EXPIRA_EM)).orElseThrow();
+            assertEquals(codigo, lido.getCodigo());
+            assertEquals(7L, lido.getEventoId());
+            assertEquals(Short.MAX_VALUE, lido.getQuantidade());
+            assertEquals(EXPIRA_EM, lido.getExpiraEm());
+        }
+    }
+
+    @Test
+    void qualquerByteAlteradoInvalidaOToken() {
+        byte[] bytes = Base64.getUrlDecoder().decode(tokenUtil.gerarToken("ING-1", 1L, 2, EXPIRA_EM));
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] alterado = bytes.clone();
+            alterado[i] ^= 0x01;
+            assertTrue(tokenUtil.validarToken(codificar(alterado)).isEmpty(), "Byte " + i);
+        }
+    }
+
+    @Test
+    void tokenMalformadoNaoValida() {
+        byte[] bytes = Base64.getUrlDecoder().decode(tokenUtil.gerarToken("ING-1", 1L, 2, EXPIRA_EM));
+
+        assertTrue(tokenUtil.validarToken(codificar(Arrays.copyOf(bytes, bytes.length - 1))).isEmpty());
+        assertTrue(tokenUtil.validarToken(codificar(Arrays.copyOf(bytes, 10))).isEmpty());
+        assertTrue(tokenUtil.validarToken("").isEmpty());
+        assertTrue(tokenUtil.validarToken("não é base64!").isEmpty());
+        assertTrue(tokenUtil.validarToken("QUJD=A").isEmpty());
+    }
+
+    @Test
+    void estruturaInvalidaComAssinaturaCorretaNaoValida() {
+        // Tamanho do texto maior que o que sobra dos dados
+        byte[] texto = "ING-1".getBytes(StandardCharsets.UTF_8);
+        assertTrue(tokenUtil.validarToken(assinado(ByteBuffer.allocate(1 + 1 + texto.length + 14)
+                .put((byte) 2).put((byte) 200).put(texto).putLong(1L).putShort((short) 1).putInt(0))).isEmpty());
+
+        // Formato desconhecido
+        assertTrue(tokenUtil.validarToken(assinado(ByteBuffer.allocate(1 + 16 + 14)
+                .put((byte) 9).putLong(1L).putLong(2L).putLong(1L).putShort((short) 1).putInt(0))).isEmpty());
+
+        // Bytes sobrando depois da expiração
+        assertTrue(tokenUtil.validarToken(assinado(ByteBuffer.allocate(1 + 16 + 14 + 1)
+                .put((byte) 1).putLong(1L).putLong(2L).putLong(1L).putShort((short) 1).putInt(0).put((byte) 0))).isEmpty());
+
+        // Controle: a mesma montagem, bem formada, é aceita
+        assertTrue(tokenUtil.validarToken(assinado(ByteBuffer.allocate(1 + 16 + 14)
+                .put((byte) 1).putLong(1L).putLong(2L).putLong(1L).putShort((short) 1).putInt(0))).isPresent());
+    }
+
+    @Test
+    void quantidadeForaDoShortERecusada() {
+        assertThrows(IllegalArgumentException.class, () -> tokenUtil.gerarToken("ING-1", 1L, Short.MAX_VALUE + 1, EXPIRA_EM));
+        assertThrows(IllegalArgumentException.class, () -> tokenUtil.gerarToken("ING-1", 1L, 0, EXPIRA_EM));
+        assertThrows(IllegalArgumentException.class, () -> tokenUtil.gerarToken("x".repeat(256), 1L, 1, EXPIRA_EM));
+    }
+
+    // Assina com a chave publicada para os leitores, como faria um emissor que conhece a chave
+    private String assinado(ByteBuffer dados) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(Base64.getDecoder().decode(tokenUtil.getChaveVerificacao()), "HmacSHA256"));
+            byte[] conteudo = dados.array();
+            byte[] assinatura = Arrays.copyOf(mac.doFinal(conteudo), 16);
+            return codificar(ByteBuffer.allocate(conteudo.length + 16).put(conteudo).put(assinatura).array());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String codificar(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,137 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.repository.EventoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Índice em memória sem Spring: a carga inicial vem de um repositório simulado e as alterações
+// incrementais entram por indexar e remover, como o EventoService faz após o commit
+class BuscaEventosServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.now().plusDays(10);
+
+    private EventoRepository eventoRepository;
+    private BuscaEventosService buscaEventosService;
+
+    @BeforeEach
+    void carregar() {
+        eventoRepository = mock(EventoRepository.class);
+        when(eventoRepository.findByAtivoTrue()).thenReturn(List.of(
+                evento(1L, "Hamlet", "Espetáculo: tragédia de Shakespeare", "Teatro", "Recife", 2),
+                evento(2L, "Romeu e Julieta", "Espetáculo sobre os amantes de Verona", "Teatro", "Olinda", 1),
+                evento(3L, "Canções do Sertão", "Espetáculo de forró", "Música", "Recife", 3)));
+        buscaEventosService = new BuscaEventosService(eventoRepository);
+        ReflectionTestUtils.setField(buscaEventosService, "modo", BuscaEventosService.ModoBusca.MEMORIA);
+        buscaEventosService.recarregar();
+    }
+
+    @Test
+    void cargaInicialCasaPorRadicalPrefixoEFiltros() {
+        assertEquals(List.of(1L), buscar("hámlet"));
+        assertEquals(List.of(1L), buscar("shakesp"));
+        assertEquals(List.of(2L), buscar("romeu julieta"));
+        assertEquals(List.of(3L), buscar("canção"));
+        assertEquals(List.of(2L, 1L), buscar("espetaculos", "teatro", null));
+        assertEquals(List.of(1L), buscar("espetáculo", "teatro", "recife"));
+        assertEquals(List.of(), buscar("hamlet julieta"));
+    }
+
+    @Test
+    void adicionaAtualizaERemoveSemRecarregar() {
+        // Novo evento
+        buscaEventosService.indexar(evento(4L, "Rei Lear", "Espetáculo de Shakespeare", "Teatro", "Recife", 4));
+        assertEquals(List.of(4L), buscar("reis"));
+        assertEquals(List.of(1L, 4L), buscar("shakespeare"));
+
+        // Título e cidade trocados: os termos antigos deixam de casar
+        buscaEventosService.indexar(evento(1L, "Macbeth", "Espetáculo: tragédia escocesa", "Teatro", "Olinda", 2));
+        assertEquals(List.of(), buscar("hamlet"));
+        assertEquals(List.of(1L), buscar("macbeth"));
+        assertEquals(List.of(4L), buscar("shakespeare"));
+        assertEquals(List.of(2L, 1L), buscar("espetáculo", "Teatro", "Olinda"));
+        assertEquals(List.of(4L), buscar("espetáculo", "teatro", "recife"));
+
+        // Desativado sai do índice; removido também
+        Evento inativo = evento(2L, "Romeu e Julieta", "Espetáculo sobre os amantes de Verona", "Teatro", "Olinda", 1);
+        inativo.setAtivo(false);
+        buscaEventosService.indexar(inativo);
+        assertEquals(List.of(), buscar("julieta"));
+        buscaEventosService.remover(3L);
+        assertEquals(List.of(), buscar("canções"));
+
+        // O número de documento liberado é reaproveitado sem herdar termos do anterior
+        buscaEventosService.indexar(evento(5L, "Auto da Compadecida", "Espetáculo de comédia", "Teatro", "Recife", 5));
+        assertEquals(List.of(5L), buscar("compadecida"));
+        assertEquals(List.of(), buscar("verona"));
+        assertEquals(List.of(), buscar("forró"));
+        assertEquals(List.of(1L, 4L, 5L), buscar("espetáculo", "teatro", null));
+    }
+
+    @Test
+    void dentroDeTransacaoSoAplicaAposOCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buscaEventosService.indexar(evento(4L, "Rei Lear", "Espetáculo de Shakespeare", "Teatro", "Recife", 4));
+            buscaEventosService.remover(1L);
+            assertEquals(List.of(), buscar("lear"));
+            assertEquals(List.of(1L), buscar("hamlet"));
+
+            for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacao.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(4L), buscar("lear"));
+        assertEquals(List.of(), buscar("hamlet"));
+    }
+
+    @Test
+    void paginaNaOrdemDaData() {
+        for (long id = 10; id < 15; id++) {
+            buscaEventosService.indexar(evento(id, "Oficina " + id, null, null, null, 20 - (int) id));
+        }
+        Page<Long> primeira = buscaEventosService.buscar("oficina", null, null, null, null, PageRequest.of(0, 2)).orElseThrow();
+        Page<Long> ultima = buscaEventosService.buscar("oficina", null, null, null, null, PageRequest.of(2, 2)).orElseThrow();
+        assertEquals(5, primeira.getTotalElements());
+        assertEquals(List.of(14L, 13L), primeira.getContent());
+        assertEquals(List.of(10L), ultima.getContent());
+        // Só palavras vazias: a busca vai para o banco
+        assertTrue(buscaEventosService.buscar("de a o", null, null, null, null, Pageable.unpaged()).isEmpty());
+    }
+
+    private List<Long> buscar(String search) {
+        return buscar(search, null, null);
+    }
+
+    private List<Long> buscar(String search, String categoria, String cidade) {
+        return buscaEventosService.buscar(search, categoria, cidade, null, null, Pageable.unpaged())
+                .orElseThrow().getContent();
+    }
+
+    private static Evento evento(Long id, String titulo, String descricao, String categoria, String cidade, int dias) {
+        Evento evento = Fixtures.evento(10);
+        evento.setId(id);
+        evento.setTitulo(titulo);
+        evento.setDescricao(descricao);
+        evento.setCategoria(categoria);
+        evento.setCidade(cidade);
+        evento.setDataHora(BASE.plusDays(dias));
+        return evento;
+    }
+}
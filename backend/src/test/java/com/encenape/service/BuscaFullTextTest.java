@@ -0,0 +1,147 @@
+package com.encenape.service;
+
+import com.encenape.repository.EspacoRepository;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.FAQRepository;
+import com.encenape.repository.IngressoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// O H2 dos testes não tem MATCH ... AGAINST: aqui só se confere que, com app.busca.modo = FULLTEXT, os
+// serviços montam a consulta booleana e a entregam às consultas FULLTEXT, e que caem no LIKE quando
+// AnalisadorTexto.consultaBooleana não deixa nenhum termo
+class BuscaFullTextTest {
+
+    private static final String MATCH_EVENTOS = "MATCH(e.titulo, e.descricao) AGAINST (:termos IN BOOLEAN MODE)";
+    private static final String MATCH_FAQ = "MATCH(f.pergunta, f.resposta, f.tags) AGAINST (:termos IN BOOLEAN MODE)";
+
+    private EventoRepository eventoRepository;
+    private BuscaEventosService buscaEventosService;
+    private EventoService eventoService;
+    private FAQRepository faqRepository;
+    private FAQService faqService;
+
+    @BeforeEach
+    void criarServicos() {
+        eventoRepository = mock(EventoRepository.class);
+        buscaEventosService = mock(BuscaEventosService.class);
+        when(buscaEventosService.getModo()).thenReturn(BuscaEventosService.ModoBusca.FULLTEXT);
+        when(buscaEventosService.buscar(any(), any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        eventoService = new EventoService(eventoRepository, mock(EspacoRepository.class), mock(IngressoRepository.class),
+                mock(InventarioService.class), mock(QRCodeService.class), mock(NotificacaoEventoService.class),
+                mock(LembreteEventoService.class), buscaEventosService, mock(CatalogoCacheService.class));
+
+        faqRepository = mock(FAQRepository.class);
+        faqService = new FAQService(faqRepository);
+        ReflectionTestUtils.setField(faqService, "modoBusca", BuscaEventosService.ModoBusca.FULLTEXT);
+    }
+
+    @Test
+    void consultasFullTextUsamMatchAgainstEmModoBooleano() throws NoSuchMethodException {
+        Query eventos = consulta(EventoRepository.class, "findIdsEventosFullText",
+                String.class, String.class, LocalDateTime.class, LocalDateTime.class, String.class, Pageable.class);
+        assertTrue(eventos.nativeQuery());
+        assertTrue(eventos.value().contains("WHERE e.ativo = true AND " + MATCH_EVENTOS));
+        assertTrue(eventos.value().contains("ORDER BY " + MATCH_EVENTOS + " DESC"));
+        assertTrue(eventos.countQuery().contains(MATCH_EVENTOS));
+        assertFalse(eventos.value().contains("LIKE"));
+
+        Query faq = consulta(FAQRepository.class, "searchFullTextPaginado", String.class, Pageable.class);
+        assertTrue(faq.nativeQuery());
+        assertTrue(faq.value().contains(MATCH_FAQ));
+        assertTrue(faq.value().contains("ORDER BY " + MATCH_FAQ + " DESC"));
+        assertTrue(faq.countQuery().contains(MATCH_FAQ));
+        assertTrue(consulta(FAQRepository.class, "searchFullText", String.class).value().contains(MATCH_FAQ));
+    }
+
+    @Test
+    void eventosComTermosVaoParaOFullText() {
+        when(eventoRepository.findIdsEventosFullText(any(), any(), any(), any(), anyString(), any()))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 10), 0));
+        LocalDateTime inicio = LocalDateTime.now();
+
+        eventoService.getEventosComFiltros("Teatro", "Recife", inicio, null, "Hámlet -de +Shakespeare*",
+                PageRequest.of(1, 10, Sort.by("dataHora")));
+
+        ArgumentCaptor<Pageable> pagina = ArgumentCaptor.forClass(Pageable.class);
+        verify(eventoRepository).findIdsEventosFullText(eq("Teatro"), eq("Recife"), eq(inicio), isNull(),
+                eq("+hamlet* +shakespeare*"), pagina.capture());
+        // A ordem é a da relevância, definida na própria consulta
+        assertEquals(PageRequest.of(1, 10), pagina.getValue());
+        assertTrue(pagina.getValue().getSort().isUnsorted());
+        verify(eventoRepository, never()).findEventosComFiltros(any(), any(), any(), any(), any(), any());
+        verify(buscaEventosService, never()).buscar(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void eventosSemTermoIndexavelCaemNoLike() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("dataHora"));
+        when(eventoRepository.findEventosComFiltros(any(), any(), any(), any(), any(), any())).thenReturn(Page.empty(pageable));
+
+        // Só palavras vazias e tokens curtos demais para o InnoDB
+        eventoService.getEventosComFiltros(null, null, null, null, "O de SP", pageable);
+        eventoService.getEventosComFiltros("Teatro", null, null, null, null, pageable);
+
+        verify(eventoRepository).findEventosComFiltros(null, null, null, null, "O de SP", pageable);
+        verify(eventoRepository).findEventosComFiltros("Teatro", null, null, null, null, pageable);
+        verify(eventoRepository, never()).findIdsEventosFullText(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void faqComTermosVaiParaOFullText() {
+        Pageable pageable = PageRequest.of(2, 5, Sort.by("ordem"));
+        when(faqRepository.searchFullTextPaginado(anyString(), any())).thenReturn(Page.empty());
+
+        faqService.searchFAQs("Como cancelo o ingresso?");
+        faqService.searchFAQsPaginado("reembolso \"cartão\" (crédito)", pageable);
+
+        verify(faqRepository).searchFullText("+como* +cancelo* +ingresso*");
+        verify(faqRepository).searchFullTextPaginado("+reembolso* +cartao* +credito*", PageRequest.of(2, 5));
+        verify(faqRepository, never()).searchByQuery(any());
+        verify(faqRepository, never()).searchByQueryPaginado(any(), any());
+    }
+
+    @Test
+    void faqSemTermoIndexavelCaiNoLike() {
+        Pageable pageable = PageRequest.of(0, 5);
+        when(faqRepository.searchByQueryPaginado(anyString(), any())).thenReturn(Page.empty());
+
+        faqService.searchFAQs("  QR  ");
+        faqService.searchFAQsPaginado("o 2 + 2", pageable);
+
+        verify(faqRepository).searchByQuery("QR");
+        verify(faqRepository).searchByQueryPaginado("o 2 + 2", pageable);
+        verify(faqRepository, never()).searchFullText(any());
+        verify(faqRepository, never()).searchFullTextPaginado(any(), any());
+    }
+
+    private static Query consulta(Class<?> repositorio, String nome, Class<?>... parametros) throws NoSuchMethodException {
+        Method metodo = repositorio.getMethod(nome, parametros);
+        return metodo.getAnnotation(Query.class);
+    }
+}
@@ -0,0 +1,169 @@
+package com.encenape.service;
+
+import com.encenape.dto.CompraIngressoRequest;
+import com.encenape.dto.CompraStatusResponse;
+import com.encenape.dto.IngressoResponse;
+import com.encenape.model.Evento;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.UsuarioRepository;
+import com.encenape.service.pagamento.GatewayPagamento;
+import com.encenape.service.pagamento.PedidoReembolso;
+import com.encenape.service.pagamento.ResultadoPagamento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CompraAssincronaServiceIntegrationTest {
+
+    private static final int TOTAL = 20;
+
+    @Autowired
+    private CompraAssincronaService compraAssincronaService;
+
+    @Autowired
+    private IngressoService ingressoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private IngressoRepository ingressoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PagamentoService pagamentoService;
+
+    @Test
+    void chaveJaRegistradaNoMeioDoLoteDevolveOIngressoOriginalESemParaOsDemais() {
+        Evento evento = eventoRepository.save(Fixtures.evento(TOTAL));
+        Usuario repetido = usuarioRepository.save(Fixtures.usuario());
+        String chave = "chave-" + UUID.randomUUID();
+        IngressoResponse original = ingressoService.comprarIngresso(repetido, pedido(repetido, evento, 1), chave);
+
+        List<CompraAssincronaService.CompraPendente> lote = List.of(
+                compra(novoComprador(), evento, null),
+                compra(novoComprador(), evento, null),
+                compra(repetido, evento, chave),
+                compra(novoComprador(), evento, null),
+                compra(novoComprador(), evento, null));
+        compraAssincronaService.processarLote(evento.getId(), lote);
+
+        for (int i = 0; i < lote.size(); i++) {
+            CompraStatusResponse status = compraAssincronaService.mapToCompraStatusResponse(lote.get(i));
+            assertEquals("COMPLETED", status.getStatus(), "Pedido " + i + ": " + status.getMensagem());
+            assertNotNull(status.getIngresso());
+        }
+        assertEquals(original.getId(), compraAssincronaService.mapToCompraStatusResponse(lote.get(2)).getIngresso().getId());
+        assertEstoqueConsistente(evento, 5);
+    }
+
+    @Test
+    void chaveRepetidaDentroDoLoteEstornaSoOPedidoDuplicado() {
+        Evento evento = eventoRepository.save(Fixtures.evento(TOTAL));
+        Usuario repetido = usuarioRepository.save(Fixtures.usuario());
+        String chave = "chave-" + UUID.randomUUID();
+
+        // O segundo pedido com a mesma chave passa pela verificação prévia (nada gravado ainda) e derruba o
+        // commit do lote; a gravação um a um emite os demais e estorna só o duplicado
+        List<CompraAssincronaService.CompraPendente> lote = List.of(
+                compra(novoComprador(), evento, null),
+                compra(repetido, evento, chave),
+                compra(novoComprador(), evento, null),
+                compra(repetido, evento, chave),
+                compra(novoComprador(), evento, null));
+        compraAssincronaService.processarLote(evento.getId(), lote);
+
+        for (int i : new int[]{0, 1, 2, 4}) {
+            CompraStatusResponse status = compraAssincronaService.mapToCompraStatusResponse(lote.get(i));
+            assertEquals("COMPLETED", status.getStatus(), "Pedido " + i + ": " + status.getMensagem());
+            assertNotNull(status.getIngresso());
+        }
+        CompraStatusResponse duplicado = compraAssincronaService.mapToCompraStatusResponse(lote.get(3));
+        assertEquals("FAILED", duplicado.getStatus());
+        assertNull(duplicado.getIngresso());
+        assertEquals(1, ingressoRepository.findByUsuarioOrderByCreatedAtDesc(repetido).size());
+        assertEstoqueConsistente(evento, 4);
+    }
+
+    @Test
+    void erroSincronoNaCobrancaDevolveEstoqueEEncerraOLote() {
+        Evento evento = eventoRepository.save(Fixtures.evento(TOTAL));
+        Usuario comprador = novoComprador();
+        String recusada = UUID.randomUUID().toString();
+        List<CompraAssincronaService.CompraPendente> lote = List.of(
+                compra(novoComprador(), evento, null),
+                new CompraAssincronaService.CompraPendente(recusada, comprador, pedido(comprador, evento, 1), null),
+                compra(novoComprador(), evento, null));
+        int pendentesAntes = compraAssincronaService.getPendentes();
+
+        // O segundo pedido derruba o laço das cobranças depois de o primeiro já ter sido cobrado. O gateway é
+        // trocado no próprio contexto: um @SpyBean subiria outro contexto sobre o mesmo banco em memória
+        Object pagamentos = AopTestUtils.getTargetObject(pagamentoService);
+        GatewayPagamento original = (GatewayPagamento) ReflectionTestUtils.getField(pagamentos, "gatewayPagamento");
+        ReflectionTestUtils.setField(pagamentos, "gatewayPagamento", new GatewayPagamento() {
+            @Override
+            public CompletableFuture<ResultadoPagamento> cobrar(String metodoPagamento, BigDecimal valor, String referencia) {
+                if (recusada.equals(referencia)) {
+                    throw new IllegalStateException("gateway fora do ar");
+                }
+                return original.cobrar(metodoPagamento, valor, referencia);
+            }
+
+            @Override
+            public CompletableFuture<List<ResultadoPagamento>> reembolsar(List<PedidoReembolso> pedidos) {
+                return original.reembolsar(pedidos);
+            }
+        });
+        try {
+            compraAssincronaService.processarLote(evento.getId(), lote);
+        } finally {
+            ReflectionTestUtils.setField(pagamentos, "gatewayPagamento", original);
+        }
+
+        for (int i = 0; i < lote.size(); i++) {
+            CompraStatusResponse status = compraAssincronaService.mapToCompraStatusResponse(lote.get(i));
+            assertEquals("FAILED", status.getStatus(), "Pedido " + i);
+            assertNull(status.getIngresso());
+        }
+        assertEquals(pendentesAntes - lote.size(), compraAssincronaService.getPendentes());
+        assertEstoqueConsistente(evento, 0);
+        assertEquals(TOTAL, eventoRepository.findById(evento.getId()).orElseThrow().getTicketsAvailable());
+    }
+
+    private void assertEstoqueConsistente(Evento evento, int vendidosEsperados) {
+        long vendidos = ingressoRepository.somarQuantidadeAtivaPorEvento(evento.getId());
+        int disponivel = eventoRepository.findById(evento.getId()).orElseThrow().getTicketsAvailable();
+        assertEquals(vendidosEsperados, vendidos);
+        assertEquals(TOTAL, vendidos + disponivel);
+    }
+
+    private Usuario novoComprador() {
+        return usuarioRepository.save(Fixtures.usuario());
+    }
+
+    private static CompraAssincronaService.CompraPendente compra(Usuario usuario, Evento evento, String chave) {
+        return new CompraAssincronaService.CompraPendente(UUID.randomUUID().toString(), usuario, pedido(usuario, evento, 1), chave);
+    }
+
+    private static CompraIngressoRequest pedido(Usuario usuario, Evento evento, int quantidade) {
+        return new CompraIngressoRequest(usuario.getId(), evento.getId(), quantidade, "mock");
+    }
+}
@@ -0,0 +1,131 @@
+package com.encenape.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EstoqueEventoTest {
+
+    @Test
+    void distribuiOEstoqueEntreOsStripes() {
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(4, 10);
+
+        assertEquals(10, estoque.disponivel());
+    }
+
+    @Test
+    void reservaCompletaComOutrosStripesQuandoODaThreadNaoBasta() {
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(8, 5);
+
+        assertTrue(estoque.reservar(5));
+        assertEquals(0, estoque.disponivel());
+        assertFalse(estoque.reservar(1));
+    }
+
+    @Test
+    void reservaRecusadaDevolveOQueJaTinhaRetirado() {
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(4, 3);
+
+        assertFalse(estoque.reservar(4));
+        assertEquals(3, estoque.disponivel());
+    }
+
+    @Test
+    void retirarAteParaNoQueHouver() {
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(4, 6);
+
+        assertEquals(6, estoque.retirarAte(10));
+        assertEquals(0, estoque.disponivel());
+    }
+
+    @Test
+    void marcaSujoAoAlterarEDesmarcaAoLimpar() {
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(2, 4);
+        assertFalse(estoque.limparSujo());
+
+        assertTrue(estoque.reservar(1));
+        assertTrue(estoque.limparSujo());
+        assertFalse(estoque.limparSujo());
+
+        estoque.devolver(1);
+        assertTrue(estoque.limparSujo());
+    }
+
+    @Test
+    void reservasEDevolucoesConcorrentesConservamOEstoque() throws InterruptedException {
+        int inicial = 1000;
+        int threads = 16;
+        int operacoesPorThread = 20000;
+        InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(4, inicial);
+        AtomicInteger emPosse = new AtomicInteger();
+        AtomicInteger maximoEmPosse = new AtomicInteger();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                int minhas = 0;
+                try {
+                    largada.await();
+                    for (int i = 0; i < operacoesPorThread; i++) {
+                        int quantidade = 1 + ThreadLocalRandom.current().nextInt(3);
+                        if (minhas >= quantidade && ThreadLocalRandom.current().nextBoolean()) {
+                            // Sai da conta antes de voltar ao estoque, para que emPosse nunca supere o que está de fato retirado
+                            minhas -= quantidade;
+                            emPosse.addAndGet(-quantidade);
+                            estoque.devolver(quantidade);
+                        } else if (estoque.reservar(quantidade)) {
+                            minhas += quantidade;
+                            maximoEmPosse.accumulateAndGet(emPosse.addAndGet(quantidade), Math::max);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(maximoEmPosse.get() <= inicial, "Reservou mais do que o estoque: " + maximoEmPosse.get());
+        assertEquals(inicial, estoque.disponivel() + emPosse.get());
+    }
+
+    @Test
+    void disputaPeloUltimoTicketTemUmSoVencedor() throws InterruptedException {
+        for (int rodada = 0; rodada < 200; rodada++) {
+            InventarioService.EstoqueEvento estoque = new InventarioService.EstoqueEvento(8, 1);
+            AtomicInteger vencedores = new AtomicInteger();
+            CountDownLatch largada = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            for (int t = 0; t < 8; t++) {
+                executor.execute(() -> {
+                    try {
+                        largada.await();
+                        if (estoque.reservar(1)) {
+                            vencedores.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            largada.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(1, vencedores.get());
+            assertEquals(0, estoque.disponivel());
+        }
+    }
+}
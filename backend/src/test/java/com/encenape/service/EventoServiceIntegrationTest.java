@@ -0,0 +1,154 @@
+package com.encenape.service;
+
+import com.encenape.dto.EventoResponse;
+import com.encenape.dto.PaginaCursorResponse;
+import com.encenape.model.Espaco;
+import com.encenape.model.Evento;
+import com.encenape.repository.ContadorConsultas;
+import com.encenape.repository.EspacoRepository;
+import com.encenape.repository.EventoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EventoServiceIntegrationTest {
+
+    @Autowired
+    private EventoService eventoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private EspacoRepository espacoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void estoqueNaoVemDaEntidadeEmCache() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        assertEquals(10, eventoService.getEventoById(evento.getId()).getTicketsAvailable());
+        assertTrue(entityManagerFactory.getCache().contains(Evento.class, evento.getId()));
+
+        // Venda sem o evict do segundo nível: é o que sobra quando um leitor lento recoloca a linha antiga
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventoRepository.decrementarTicketsDisponiveis(evento.getId(), 3));
+        assertTrue(entityManagerFactory.getCache().contains(Evento.class, evento.getId()));
+
+        assertEquals(7, eventoService.getEventoById(evento.getId()).getTicketsAvailable());
+        EventoResponse disponivel = eventoService.getEventosDisponiveis().stream()
+                .filter(e -> e.getId().equals(evento.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(7, disponivel.getTicketsAvailable());
+    }
+
+    @Test
+    void listagensFazemUmaConsultaPorPagina() {
+        Espaco espaco = new Espaco();
+        espaco.setNome("Teatro de teste");
+        espaco.setCapacidade(300);
+        espaco = espacoRepository.save(espaco);
+        String descricao = "x".repeat(EventoRepository.TAMANHO_TRECHO_DESCRICAO + 100);
+        for (int i = 0; i < 6; i++) {
+            Evento evento = Fixtures.evento(10);
+            // Antes dos eventos dos outros testes, para que as primeiras páginas sejam só destes
+            evento.setDataHora(LocalDateTime.now().plusHours(1 + i));
+            evento.setDescricao(descricao);
+            evento.setEspaco(espaco);
+            eventoRepository.save(evento);
+        }
+
+        // A página e o COUNT; o espaço vem no mesmo JOIN, sem um SELECT por evento
+        ContadorConsultas.zerar();
+        Page<EventoResponse> pagina = eventoService.getProximosEventosPaginados(PageRequest.of(0, 3));
+        assertEquals(2, ContadorConsultas.consultas().size(), ContadorConsultas.consultas()::toString);
+        assertEquals(3, pagina.getContent().size());
+        for (EventoResponse evento : pagina) {
+            assertNull(evento.getDescricao());
+            assertEquals(EventoRepository.TAMANHO_TRECHO_DESCRICAO, evento.getTrechoDescricao().length());
+            assertEquals("Teatro de teste", evento.getEspaco().getNome());
+        }
+
+        // Por cursor não há COUNT
+        ContadorConsultas.zerar();
+        PaginaCursorResponse<EventoResponse> primeira = eventoService.getProximosEventosPorCursor(null, 3, false);
+        assertEquals(1, ContadorConsultas.consultas().size(), ContadorConsultas.consultas()::toString);
+        ContadorConsultas.zerar();
+        PaginaCursorResponse<EventoResponse> segunda = eventoService.getProximosEventosPorCursor(primeira.getProximoCursor(), 3, false);
+        assertEquals(1, ContadorConsultas.consultas().size(), ContadorConsultas.consultas()::toString);
+        assertEquals(3, segunda.getConteudo().size());
+
+        // O painel recebe a descrição completa
+        ContadorConsultas.zerar();
+        Page<EventoResponse> admin = eventoService.getAllEventosAdmin(PageRequest.of(0, 3, Sort.by("dataHora")));
+        assertEquals(2, ContadorConsultas.consultas().size(), ContadorConsultas.consultas()::toString);
+        for (EventoResponse evento : admin) {
+            assertEquals(descricao, evento.getDescricao());
+        }
+    }
+
+    @Test
+    void cursorNaoPulaNemRepeteEventosNoMesmoHorario() {
+        // Categoria só deste teste, para que os eventos dos outros não entrem nas páginas
+        String categoria = "Cursor " + UUID.randomUUID();
+        LocalDateTime horario = LocalDateTime.now().plusDays(5).withNano(0);
+        List<Long> esperados = new ArrayList<>();
+        esperados.add(salvar(categoria, horario.minusHours(1)));
+        for (int i = 0; i < 7; i++) {
+            esperados.add(salvar(categoria, horario));
+        }
+        esperados.add(salvar(categoria, horario.plusHours(1)));
+
+        // Páginas de 3 terminam no meio dos sete eventos do mesmo horário; o desempate é pelo id
+        List<Long> vistos = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            PaginaCursorResponse<EventoResponse> pagina = eventoService.getEventosComFiltrosPorCursor(
+                    categoria, null, null, null, null, cursor, 3, false);
+            pagina.getConteudo().forEach(evento -> vistos.add(evento.getId()));
+            if (paginas == 1) {
+                // Criado no meio da paginação, no mesmo horário: id maior, entra depois dos que já foram
+                esperados.add(esperados.size() - 1, salvar(categoria, horario));
+            }
+            cursor = pagina.getProximoCursor();
+            assertEquals(cursor != null, pagina.getTemMais());
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(esperados, vistos);
+        assertEquals(vistos.size(), new HashSet<>(vistos).size());
+        assertEquals(4, paginas);
+    }
+
+    private Long salvar(String categoria, LocalDateTime dataHora) {
+        Evento evento = Fixtures.evento(10);
+        evento.setCategoria(categoria);
+        evento.setDataHora(dataHora);
+        return eventoRepository.save(evento).getId();
+    }
+}
@@ -0,0 +1,37 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.model.Usuario;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Entidades mínimas para os testes de integração; quem precisa de outros valores ajusta o objeto devolvido
+public final class Fixtures {
+
+    public static final BigDecimal PRECO = new BigDecimal("50.00");
+
+    private Fixtures() {
+    }
+
+    // Evento ativo daqui a 30 dias, com todo o estoque disponível
+    public static Evento evento(int total) {
+        Evento evento = new Evento();
+        evento.setTitulo("Evento de teste");
+        evento.setDataHora(LocalDateTime.now().plusDays(30));
+        evento.setPreco(PRECO);
+        evento.setTotalTickets(total);
+        evento.setTicketsAvailable(total);
+        return evento;
+    }
+
+    // Email único a cada chamada
+    public static Usuario usuario() {
+        Usuario usuario = new Usuario();
+        usuario.setNome("Comprador");
+        usuario.setEmail("comprador-" + UUID.randomUUID() + "@teste.com");
+        usuario.setSenha("senha-de-teste");
+        return usuario;
+    }
+}
@@ -0,0 +1,136 @@
+package com.encenape.service;
+
+import com.encenape.service.CheckInService.IndicePortaria;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicePortariaTest {
+
+    @Test
+    void localizaCodigosCarregadosEIgnoraOsDemais() {
+        IndicePortaria indice = new IndicePortaria(100);
+        List<String> codigos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String codigo = i % 2 == 0 ? UUID.randomUUID().toString() : "ING-" + i;
+            codigos.add(codigo);
+            indice.adicionar(CheckInService.chave(codigo), i + 1, 2, 0);
+        }
+
+        assertEquals(100, indice.tamanho());
+        for (int i = 0; i < codigos.size(); i++) {
+            int posicao = indice.localizar(CheckInService.chave(codigos.get(i)));
+            assertTrue(posicao >= 0);
+            assertEquals(i + 1, indice.id(posicao));
+        }
+        assertEquals(-1, indice.localizar(CheckInService.chave(UUID.randomUUID().toString())));
+        assertEquals(-1, indice.localizar(new long[]{0, 0}));
+    }
+
+    @Test
+    void utilizaAteAQuantidadeDoIngresso() {
+        IndicePortaria indice = new IndicePortaria(1);
+        indice.adicionar(CheckInService.chave("ING-1"), 1, 3, 1);
+        int posicao = indice.localizar(CheckInService.chave("ING-1"));
+
+        assertEquals(1, indice.utilizar(posicao, 1));
+        assertEquals(IndicePortaria.RECUSADO, indice.utilizar(posicao, 2));
+        assertEquals(1, indice.utilizar(posicao, 0));
+        assertEquals(3, indice.utilizados(posicao));
+        assertEquals(IndicePortaria.RECUSADO, indice.utilizar(posicao, 0));
+    }
+
+    @Test
+    void revogaSoIngressoNaoUtilizadoERestaura() {
+        IndicePortaria indice = new IndicePortaria(2);
+        indice.adicionar(CheckInService.chave("ING-1"), 1, 2, 0);
+        indice.adicionar(CheckInService.chave("ING-2"), 2, 2, 0);
+        int livre = indice.localizar(CheckInService.chave("ING-1"));
+        int usado = indice.localizar(CheckInService.chave("ING-2"));
+        indice.utilizar(usado, 1);
+
+        assertTrue(indice.revogar(livre));
+        assertTrue(indice.revogar(livre));
+        assertEquals(IndicePortaria.REVOGADO, indice.utilizados(livre));
+        assertEquals(IndicePortaria.RECUSADO, indice.utilizar(livre, 1));
+        assertFalse(indice.revogar(usado));
+        assertEquals(1, indice.utilizados(usado));
+
+        indice.restaurar(livre);
+        assertEquals(0, indice.utilizados(livre));
+        assertEquals(2, indice.utilizar(livre, 0));
+
+        // Restaurar um ingresso que não está revogado não apaga as entradas
+        indice.restaurar(usado);
+        assertEquals(1, indice.utilizados(usado));
+    }
+
+    @Test
+    void coletaCadaAlteracaoUmaVez() {
+        IndicePortaria indice = new IndicePortaria(200);
+        Set<Integer> esperadas = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            indice.adicionar(CheckInService.chave("ING-" + i), i, 1, 0);
+        }
+        for (int i = 0; i < 200; i += 3) {
+            int posicao = indice.localizar(CheckInService.chave("ING-" + i));
+            indice.utilizar(posicao, 1);
+            esperadas.add(posicao);
+        }
+
+        assertEquals(esperadas, new HashSet<>(indice.coletarAlterados()));
+        assertTrue(indice.coletarAlterados().isEmpty());
+
+        // Falha na gravação: as posições voltam a ser marcadas para a próxima rodada
+        esperadas.forEach(indice::marcarAlterado);
+        assertEquals(esperadas.size(), indice.coletarAlterados().size());
+    }
+
+    @Test
+    void leiturasConcorrentesNaoLiberamAlemDaQuantidade() throws InterruptedException {
+        int quantidade = 500;
+        int leitores = 8;
+        IndicePortaria indice = new IndicePortaria(1);
+        indice.adicionar(CheckInService.chave("ING-GRUPO"), 1, quantidade, 0);
+        int posicao = indice.localizar(CheckInService.chave("ING-GRUPO"));
+
+        AtomicInteger liberados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(leitores);
+        for (int t = 0; t < leitores; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                    for (int i = 0; i < quantidade; i++) {
+                        int liberado = indice.utilizar(posicao, 1);
+                        if (liberado != IndicePortaria.RECUSADO) {
+                            liberados.addAndGet(liberado);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(quantidade, liberados.get());
+        assertEquals(quantidade, indice.utilizados(posicao));
+        assertEquals(List.of(posicao), indice.coletarAlterados());
+    }
+}
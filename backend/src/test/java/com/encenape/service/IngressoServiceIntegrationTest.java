@@ -0,0 +1,90 @@
+package com.encenape.service;
+
+import com.encenape.dto.CompraIngressoRequest;
+import com.encenape.model.Evento;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IngressoServiceIntegrationTest {
+
+    @Autowired
+    private IngressoService ingressoService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private IngressoRepository ingressoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void comprasConcorrentesNuncaVendemAlemDoEstoque() throws InterruptedException {
+        // Centenas de compradores disputando um estoque bem menor que a procura
+        int total = 100;
+        int compradores = 300;
+        int comprasPorComprador = 2;
+        Evento evento = eventoRepository.save(Fixtures.evento(total));
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            usuarios.add(usuarioRepository.save(Fixtures.usuario()));
+        }
+
+        AtomicInteger compradas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(compradores);
+        for (Usuario usuario : usuarios) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                    for (int i = 0; i < comprasPorComprador; i++) {
+                        try {
+                            ingressoService.comprarIngresso(usuario, new CompraIngressoRequest(usuario.getId(), evento.getId(), 1, "mock"), null);
+                            compradas.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            recusadas.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(120, TimeUnit.SECONDS));
+        // No modo write-behind a coluna só é gravada pela sincronização periódica
+        inventarioService.sincronizar();
+
+        long vendidos = ingressoRepository.somarQuantidadeAtivaPorEvento(evento.getId());
+        int disponivel = eventoRepository.findById(evento.getId()).orElseThrow().getTicketsAvailable();
+        assertEquals(total, compradas.get());
+        assertEquals(compradores * comprasPorComprador - total, recusadas.get());
+        assertEquals(total, vendidos);
+        assertEquals(total, vendidos + disponivel);
+    }
+}
@@ -0,0 +1,75 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.repository.EventoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventarioServiceIntegrationTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reservasConcorrentesNuncaVendemAlemDoEstoque() throws InterruptedException {
+        // Centenas de compradores disputando um estoque bem menor que a procura
+        int total = 150;
+        int threads = 400;
+        int tentativasPorThread = 2;
+        Evento evento = eventoRepository.save(Fixtures.evento(total));
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger vendidos = new AtomicInteger();
+        AtomicInteger recusados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                    for (int i = 0; i < tentativasPorThread; i++) {
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> inventarioService.reservar(evento.getId(), 1));
+                            vendidos.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            recusados.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(120, TimeUnit.SECONDS));
+        // No modo write-behind a coluna só é gravada pela sincronização periódica
+        inventarioService.sincronizar();
+
+        int disponivel = eventoRepository.findById(evento.getId()).orElseThrow().getTicketsAvailable();
+        assertEquals(total, vendidos.get());
+        assertEquals(threads * tentativasPorThread - total, recusados.get());
+        assertEquals(total, vendidos.get() + disponivel);
+    }
+}
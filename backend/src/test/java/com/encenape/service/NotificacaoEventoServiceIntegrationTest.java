@@ -0,0 +1,239 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.model.Ingresso;
+import com.encenape.model.NotificacaoEvento;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.NotificacaoEventoRepository;
+import com.encenape.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// O envio roda direto pelo processar; as notificações são criadas com prazo no futuro, fora do alcance
+// do despachar agendado. Email e QR Code são trocados no próprio bean (um @MockBean subiria outro contexto
+// sobre o mesmo banco em memória) e restaurados ao fim de cada teste.
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificacaoEventoServiceIntegrationTest {
+
+    private static final int MAX_TENTATIVAS = 5;
+
+    @Autowired
+    private NotificacaoEventoService notificacaoEventoService;
+
+    @Autowired
+    private NotificacaoEventoRepository notificacaoEventoRepository;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private IngressoRepository ingressoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Object alvo;
+    private Object emailOriginal;
+    private Object qrCodeOriginal;
+    private final List<String> destinatarios = new CopyOnWriteArrayList<>();
+    // Gerações de QR Code que ainda funcionam antes de começar a lançar exceção; negativo = sem limite
+    private final AtomicInteger qrCodesAteFalhar = new AtomicInteger(-1);
+
+    @BeforeEach
+    void trocarDependencias() {
+        alvo = AopTestUtils.getTargetObject(notificacaoEventoService);
+        emailOriginal = ReflectionTestUtils.getField(alvo, "emailService");
+        qrCodeOriginal = ReflectionTestUtils.getField(alvo, "qrCodeService");
+
+        EmailService email = mock(EmailService.class);
+        when(email.renderizar(anyString(), any(), anyMap()))
+                .thenReturn("<p>" + NotificacaoEventoService.MARCADOR_NOME + "</p>" + NotificacaoEventoService.MARCADOR_INGRESSOS);
+        when(email.sendHtmlEmail(anyString(), anyString(), anyString(), anyMap())).thenAnswer(chamada -> {
+            destinatarios.add(chamada.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        QRCodeService qrCode = mock(QRCodeService.class);
+        when(qrCode.calcularExpiracao(any())).thenReturn(Instant.now().plusSeconds(86400));
+        when(qrCode.gerarPng(anyString(), anyLong(), anyInt(), any())).thenAnswer(chamada -> {
+            if (qrCodesAteFalhar.getAndDecrement() == 0) {
+                throw new IllegalStateException("QR Code indisponível");
+            }
+            return new byte[]{1};
+        });
+        ReflectionTestUtils.setField(alvo, "emailService", email);
+        ReflectionTestUtils.setField(alvo, "qrCodeService", qrCode);
+        ReflectionTestUtils.setField(alvo, "tamanhoPagina", 2);
+    }
+
+    @AfterEach
+    void restaurarDependencias() {
+        ReflectionTestUtils.setField(alvo, "emailService", emailOriginal);
+        ReflectionTestUtils.setField(alvo, "qrCodeService", qrCodeOriginal);
+        ReflectionTestUtils.setField(alvo, "tamanhoPagina", 200);
+    }
+
+    @Test
+    void falhaNoMeioRetomaDoCheckpointSemRepetirNemPular() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        List<String> compradores = comprar(evento, 5);
+        Long id = notificacaoEventoRepository.save(lembrete(evento)).getId();
+
+        // Primeira página (2 compradores) enviada; a segunda falha no primeiro QR Code
+        qrCodesAteFalhar.set(2);
+        notificacaoEventoService.processar(id);
+
+        NotificacaoEvento interrompida = notificacaoEventoRepository.findById(id).orElseThrow();
+        assertEquals(NotificacaoEvento.StatusNotificacao.PENDING, interrompida.getStatus());
+        assertEquals(1, interrompida.getTentativas());
+        assertEquals(2, interrompida.getEnviados());
+        assertEquals(usuarioId(compradores.get(1)), interrompida.getUltimoUsuarioId());
+        assertEquals("QR Code indisponível", interrompida.getUltimoErro());
+        assertTrue(interrompida.getPrazo().isAfter(LocalDateTime.now()));
+        assertEquals(compradores.subList(0, 2), destinatarios);
+
+        qrCodesAteFalhar.set(-1);
+        notificacaoEventoService.processar(id);
+
+        NotificacaoEvento concluida = notificacaoEventoRepository.findById(id).orElseThrow();
+        assertEquals(NotificacaoEvento.StatusNotificacao.COMPLETED, concluida.getStatus());
+        assertEquals(5, concluida.getEnviados());
+        assertEquals(0, concluida.getTentativas());
+        assertEquals(compradores, destinatarios);
+    }
+
+    @Test
+    void falhaSemProgressoParaComoFailed() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        comprar(evento, 1);
+        Long id = notificacaoEventoRepository.save(lembrete(evento)).getId();
+
+        qrCodesAteFalhar.set(0);
+        for (int i = 1; i < MAX_TENTATIVAS; i++) {
+            notificacaoEventoService.processar(id);
+            NotificacaoEvento reagendada = notificacaoEventoRepository.findById(id).orElseThrow();
+            assertEquals(NotificacaoEvento.StatusNotificacao.PENDING, reagendada.getStatus());
+            assertEquals(i, reagendada.getTentativas());
+            qrCodesAteFalhar.set(0);
+        }
+        notificacaoEventoService.processar(id);
+
+        NotificacaoEvento parada = notificacaoEventoRepository.findById(id).orElseThrow();
+        assertEquals(NotificacaoEvento.StatusNotificacao.FAILED, parada.getStatus());
+        assertEquals(MAX_TENTATIVAS, parada.getTentativas());
+        assertTrue(destinatarios.isEmpty());
+        assertFalse(notificacaoEventoRepository.findIdsProntos(LocalDateTime.now().plusYears(1),
+                PageRequest.of(0, 1000)).contains(id));
+    }
+
+    @Test
+    void posseVencidaContaComoTentativaAteAbandonar() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        NotificacaoEvento notificacao = lembrete(evento);
+        notificacao.setStatus(NotificacaoEvento.StatusNotificacao.PROCESSING);
+        notificacao.setTentativas(MAX_TENTATIVAS - 1);
+        Long id = notificacaoEventoRepository.save(notificacao).getId();
+
+        // O worker que tinha a posse caiu: a retomada depois do prazo conta a tentativa
+        LocalDateTime agora = notificacao.getPrazo().plusMinutes(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertEquals(1, notificacaoEventoRepository.reivindicar(id, agora, agora.plusHours(1))));
+        assertEquals(MAX_TENTATIVAS, notificacaoEventoRepository.findById(id).orElseThrow().getTentativas());
+
+        notificacaoEventoService.processar(id);
+
+        NotificacaoEvento parada = notificacaoEventoRepository.findById(id).orElseThrow();
+        assertEquals(NotificacaoEvento.StatusNotificacao.FAILED, parada.getStatus());
+        assertTrue(destinatarios.isEmpty());
+    }
+
+    @Test
+    void lembreteDuplicadoBarradoPelaChaveUnica() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        // Data no passado da chave: se o despachar agendado pegar o lembrete, ele só é encerrado
+        LocalDateTime data = LocalDateTime.now().minusDays(1);
+
+        assertTrue(notificacaoEventoService.agendarLembrete(evento.getId(), data));
+        assertFalse(notificacaoEventoService.agendarLembrete(evento.getId(), data));
+        assertTrue(notificacaoEventoService.agendarLembrete(evento.getId(), data.plusHours(1)));
+
+        // Sem a verificação prévia, quem barra é o índice único (evento, tipo, chave)
+        NotificacaoEvento duplicada = new NotificacaoEvento();
+        duplicada.setEventoId(evento.getId());
+        duplicada.setTipo(NotificacaoEvento.TipoNotificacao.LEMBRETE_EVENTO);
+        duplicada.setChave(data.toString());
+        assertThrows(DataIntegrityViolationException.class, () -> notificacaoEventoRepository.saveAndFlush(duplicada));
+
+        // Alterações de evento não têm chave e podem se repetir
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificacaoEventoService.agendarAlteracaoEvento(evento.getId(), List.of("Novo horário"));
+            notificacaoEventoService.agendarAlteracaoEvento(evento.getId(), List.of("Novo local"));
+        });
+    }
+
+    // Compradores em ordem de id, um ingresso cada; devolve os emails
+    private List<String> comprar(Evento evento, int quantidade) {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Usuario usuario = usuarioRepository.save(Fixtures.usuario());
+            Ingresso ingresso = new Ingresso();
+            ingresso.setUsuario(usuario);
+            ingresso.setEvento(evento);
+            ingresso.setValorTotal(Fixtures.PRECO);
+            ingresso.setMetodoPagamento("mock");
+            ingressoRepository.save(ingresso);
+            emails.add(usuario.getEmail());
+        }
+        return emails;
+    }
+
+    private Long usuarioId(String email) {
+        return usuarioRepository.findByEmail(email).orElseThrow().getId();
+    }
+
+    // A chave vem da data como gravada no banco, que é com quem o processar compara
+    private NotificacaoEvento lembrete(Evento evento) {
+        NotificacaoEvento notificacao = new NotificacaoEvento();
+        notificacao.setEventoId(evento.getId());
+        notificacao.setTipo(NotificacaoEvento.TipoNotificacao.LEMBRETE_EVENTO);
+        notificacao.setChave(eventoRepository.findById(evento.getId()).orElseThrow().getDataHora().toString());
+        notificacao.setStatus(NotificacaoEvento.StatusNotificacao.PENDING);
+        notificacao.setPrazo(LocalDateTime.now().plusHours(1));
+        return notificacao;
+    }
+}
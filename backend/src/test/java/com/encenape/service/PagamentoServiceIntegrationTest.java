@@ -0,0 +1,91 @@
+package com.encenape.service;
+
+import com.encenape.model.OutboxEvento;
+import com.encenape.repository.OutboxEventoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PagamentoServiceIntegrationTest {
+
+    @Autowired
+    private PagamentoService pagamentoService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reembolsoSoExisteSeOCancelamentoCommitarEDepoisEEnviado() throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String desfeito = "teste-" + UUID.randomUUID();
+        String confirmado = "teste-" + UUID.randomUUID();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            pagamentoService.reembolsar(desfeito, new BigDecimal("30.00"), 1L);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                pagamentoService.reembolsar(confirmado, new BigDecimal("30.00"), 1L));
+
+        assertTrue(buscarReembolso(desfeito).isEmpty());
+        assertTrue(buscarReembolso(confirmado).isPresent());
+
+        long limite = System.currentTimeMillis() + 10_000;
+        while (buscarReembolso(confirmado).orElseThrow().getStatus() != OutboxEvento.StatusOutbox.SENT
+                && System.currentTimeMillis() < limite) {
+            pagamentoService.enviarReembolsos();
+            Thread.sleep(50);
+        }
+        assertEquals(OutboxEvento.StatusOutbox.SENT, buscarReembolso(confirmado).orElseThrow().getStatus());
+    }
+
+    @Test
+    void reembolsoQueEsgotaAsTentativasFicaParadoComoFailed() {
+        OutboxEvento reembolso = new OutboxEvento();
+        reembolso.setTipo(OutboxEvento.TipoOutbox.REEMBOLSO);
+        reembolso.setTransacaoPagamento("teste-" + UUID.randomUUID());
+        reembolso.setValor(new BigDecimal("45.00"));
+        reembolso.setStatus(OutboxEvento.StatusOutbox.PROCESSING);
+        reembolso.setTentativas(2);
+        // Prazo no futuro, fora do alcance do envio agendado
+        reembolso.setProximaTentativa(LocalDateTime.now().plusHours(1));
+        OutboxEvento salvo = outboxEventoRepository.save(reembolso);
+
+        outboxService.registrarFalhaReembolso(salvo, 5, "recusado");
+        OutboxEvento reagendado = outboxEventoRepository.findById(salvo.getId()).orElseThrow();
+        assertEquals(OutboxEvento.StatusOutbox.PENDING, reagendado.getStatus());
+        assertEquals(3, reagendado.getTentativas());
+
+        reagendado.setTentativas(4);
+        outboxService.registrarFalhaReembolso(reagendado, 5, "recusado");
+        OutboxEvento parado = outboxEventoRepository.findById(salvo.getId()).orElseThrow();
+        assertEquals(OutboxEvento.StatusOutbox.FAILED, parado.getStatus());
+        assertEquals(0, new BigDecimal("45.00").compareTo(parado.getValor()));
+        assertEquals("recusado", parado.getUltimoErro());
+    }
+
+    private Optional<OutboxEvento> buscarReembolso(String transacaoPagamento) {
+        return outboxEventoRepository.findAll().stream()
+                .filter(evento -> transacaoPagamento.equals(evento.getTransacaoPagamento()))
+                .findFirst();
+    }
+}
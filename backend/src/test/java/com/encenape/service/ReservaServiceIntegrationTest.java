@@ -0,0 +1,85 @@
+package com.encenape.service;
+
+import com.encenape.dto.IngressoResponse;
+import com.encenape.dto.ReservaIngressoRequest;
+import com.encenape.dto.ReservaResponse;
+import com.encenape.model.Evento;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.ReservaRepository;
+import com.encenape.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Sem open-in-view: a confirmação e as consultas rodam sem sessão aberta e não podem depender de lazy loading
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservaServiceIntegrationTest {
+
+    @Autowired
+    private ReservaService reservaService;
+
+    @Autowired
+    private IngressoService ingressoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Test
+    void confirmaReservaForaDeTransacao() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        Usuario usuario = usuarioRepository.save(Fixtures.usuario());
+        ReservaIngressoRequest request = new ReservaIngressoRequest();
+        request.setEventoId(evento.getId());
+        request.setQuantidade(2);
+
+        ReservaResponse reserva = reservaService.criarReserva(usuario, request);
+        assertEquals(new BigDecimal("100.00"), reservaService.getReserva(reserva.getCodigo(), usuario).getValorTotal());
+
+        IngressoResponse ingresso = reservaService.confirmarReserva(reserva.getCodigo(), usuario, "mock");
+        assertEquals(2, ingresso.getQuantidade());
+        assertEquals(evento.getTitulo(), ingresso.getEvento().getTitulo());
+
+        List<IngressoResponse> ingressos = ingressoService.getIngressosByUsuario(usuario);
+        assertEquals(1, ingressos.size());
+        assertEquals(usuario.getEmail(), ingressos.get(0).getUsuario().getEmail());
+        assertEquals(evento.getTitulo(), ingressoService.getIngressoByCodigo(ingresso.getCodigo()).getEvento().getTitulo());
+    }
+
+    @Test
+    void prazoVencidoExpiraSemDeixarTimeoutNoMapa() {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        Usuario usuario = usuarioRepository.save(Fixtures.usuario());
+        ReservaIngressoRequest request = new ReservaIngressoRequest();
+        request.setEventoId(evento.getId());
+        request.setQuantidade(3);
+        ReservaResponse reserva = reservaService.criarReserva(usuario, request);
+        Long reservaId = reservaRepository.findByCodigoComEvento(reserva.getCodigo()).orElseThrow().getId();
+
+        // Como no reagendamento após um restart, com a reserva já vencida
+        reservaService.agendarExpiracao(reservaId, LocalDateTime.now().minusMinutes(1));
+
+        assertFalse(reservaService.isExpiracaoAgendada(reservaId));
+        assertEquals("EXPIRED", reservaService.getReserva(reserva.getCodigo(), usuario).getStatus());
+        inventarioService.sincronizar();
+        assertEquals(10, eventoRepository.findById(evento.getId()).orElseThrow().getTicketsAvailable());
+    }
+}
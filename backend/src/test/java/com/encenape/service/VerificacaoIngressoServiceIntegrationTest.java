@@ -0,0 +1,114 @@
+package com.encenape.service;
+
+import com.encenape.model.Evento;
+import com.encenape.model.Ingresso;
+import com.encenape.model.Usuario;
+import com.encenape.repository.EventoRepository;
+import com.encenape.repository.IngressoRepository;
+import com.encenape.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class VerificacaoIngressoServiceIntegrationTest {
+
+    @Autowired
+    private VerificacaoIngressoService verificacaoIngressoService;
+
+    @Autowired
+    private EventoRepository eventoRepository;
+
+    @Autowired
+    private IngressoRepository ingressoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Test
+    void exportaImpressoesOrdenadasDosCancelados() throws Exception {
+        Evento evento = eventoRepository.save(Fixtures.evento(10));
+        Usuario usuario = usuarioRepository.save(Fixtures.usuario());
+        LocalDateTime corte = LocalDateTime.now().minusHours(1);
+        List<String> antigos = List.of(cancelado(evento, usuario, corte.minusDays(1)), cancelado(evento, usuario, corte.minusMinutes(5)));
+        List<String> recentes = List.of(cancelado(evento, usuario, corte.plusMinutes(5)), cancelado(evento, usuario, corte.plusMinutes(30)));
+        ingressoRepository.save(ingresso(evento, usuario));
+
+        long antes = System.currentTimeMillis();
+        ByteBuffer completa = ByteBuffer.wrap(verificacaoIngressoService.exportarRevogados(evento.getId(), null));
+        assertCabecalho(completa, evento, antes, true, 4);
+        assertArrayEquals(impressoesOrdenadas(antigos, recentes), lerImpressoes(completa, 4));
+
+        long desdeMs = corte.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        ByteBuffer incremental = ByteBuffer.wrap(verificacaoIngressoService.exportarRevogados(evento.getId(), desdeMs));
+        assertCabecalho(incremental, evento, antes, false, 2);
+        assertArrayEquals(impressoesOrdenadas(recentes), lerImpressoes(incremental, 2));
+
+        assertThrows(RuntimeException.class, () -> verificacaoIngressoService.exportarRevogados(Long.MAX_VALUE, null));
+    }
+
+    private static void assertCabecalho(ByteBuffer lista, Evento evento, long antes, boolean completa, int quantidade) {
+        byte[] magico = new byte[4];
+        lista.get(magico);
+        assertEquals("ENRV", new String(magico, StandardCharsets.US_ASCII));
+        assertEquals(1, lista.get());
+        assertEquals(evento.getId(), lista.getLong());
+        // Recuado pela margem de 300 s do application.yml
+        long geradoEm = lista.getLong();
+        assertTrue(geradoEm >= antes - 300_000 && geradoEm <= System.currentTimeMillis() - 300_000, "geradoEm " + geradoEm);
+        assertEquals(completa ? 1 : 0, lista.get());
+        assertEquals(quantidade, lista.getInt());
+        assertEquals(quantidade * 8, lista.remaining());
+    }
+
+    private static long[] lerImpressoes(ByteBuffer lista, int quantidade) {
+        long[] impressoes = new long[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            impressoes[i] = lista.getLong();
+        }
+        assertFalse(lista.hasRemaining());
+        return impressoes;
+    }
+
+    @SafeVarargs
+    private static long[] impressoesOrdenadas(List<String>... grupos) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        long[] impressoes = Arrays.stream(grupos).flatMap(List::stream)
+                .mapToLong(codigo -> ByteBuffer.wrap(sha256.digest(codigo.getBytes(StandardCharsets.UTF_8))).getLong())
+                .toArray();
+        Arrays.sort(impressoes);
+        return impressoes;
+    }
+
+    private String cancelado(Evento evento, Usuario usuario, LocalDateTime canceladoEm) {
+        Ingresso ingresso = ingresso(evento, usuario);
+        ingresso.cancelar("teste");
+        ingresso.setCanceledAt(canceladoEm);
+        return ingressoRepository.save(ingresso).getCodigo();
+    }
+
+    private static Ingresso ingresso(Evento evento, Usuario usuario) {
+        Ingresso ingresso = new Ingresso();
+        ingresso.setUsuario(usuario);
+        ingresso.setEvento(evento);
+        ingresso.setValorTotal(Fixtures.PRECO);
+        ingresso.setMetodoPagamento("mock");
+        return ingresso;
+    }
+}
@@ -0,0 +1,254 @@
+package com.encenape.service.email;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Contra um servidor SMTP mínimo no próprio processo, que conta conexões e mensagens e injeta respostas 4xx e 5xx
+class FilaEmailServiceIntegrationTest {
+
+    private static final long BACKOFF_MS = 200;
+
+    private ServidorSmtp servidor;
+    private JavaMailSenderImpl mailSender;
+    private FilaEmailService filaEmailService;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = new ServidorSmtp();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(servidor.getPorta());
+    }
+
+    @AfterEach
+    void parar() throws Exception {
+        if (filaEmailService != null) {
+            filaEmailService.parar();
+        }
+        servidor.parar();
+    }
+
+    @Test
+    void variasMensagensNaMesmaConexao() throws Exception {
+        iniciarFila(1, 100);
+        List<CompletableFuture<Void>> resultados = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            resultados.add(filaEmailService.enfileirar(mensagem("comprador" + i + "@teste.com"), "mensagem " + i));
+        }
+        aguardar(resultados);
+
+        assertEquals(10, servidor.mensagens.size());
+        assertEquals(1, servidor.conexoes.get());
+        assertEquals(1, filaEmailService.getConexoesAbertas());
+        assertEquals(10, filaEmailService.getEnviados());
+        assertEquals(0, filaEmailService.getFalhas());
+        assertEquals(0, filaEmailService.getRetentativas());
+    }
+
+    @Test
+    void resposta4xxEReenviadaComBackoff() throws Exception {
+        iniciarFila(1, 100);
+        servidor.recusasTemporarias.set(2);
+
+        long inicio = System.nanoTime();
+        aguardar(List.of(filaEmailService.enfileirar(mensagem("comprador@teste.com"), "greylisting")));
+        long decorridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        assertEquals(1, servidor.mensagens.size());
+        assertEquals(2, filaEmailService.getRetentativas());
+        assertEquals(1, filaEmailService.getEnviados());
+        assertEquals(0, filaEmailService.getFalhas());
+        assertEquals(0, filaEmailService.getAguardandoRetentativa());
+        // Exponencial: BACKOFF_MS e depois o dobro
+        assertTrue(decorridoMs >= BACKOFF_MS * 3, decorridoMs + " ms");
+    }
+
+    @Test
+    void destinatarioRecusadoCom5xxFalhaSemRetentativa() throws Exception {
+        iniciarFila(1, 100);
+        CompletableFuture<Void> recusado = filaEmailService.enfileirar(mensagem("recusado@teste.com"), "recusado");
+        CompletableFuture<Void> aceito = filaEmailService.enfileirar(mensagem("comprador@teste.com"), "aceito");
+
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> recusado.get(10, TimeUnit.SECONDS));
+        assertTrue(erro.getCause().getCause() instanceof MessagingException);
+        aguardar(List.of(aceito));
+        assertEquals(1, filaEmailService.getFalhas());
+        assertEquals(1, filaEmailService.getEnviados());
+        assertEquals(0, filaEmailService.getRetentativas());
+    }
+
+    @Test
+    void filaCheiaRecusaNaHora() throws Exception {
+        // Um worker que leva uma mensagem por vez e fica preso no DATA: as duas seguintes ocupam a fila
+        iniciarFila(1, 2);
+        ReflectionTestUtils.setField(filaEmailService, "mensagensPorConexao", 1);
+        servidor.segurarData = new CountDownLatch(1);
+
+        List<CompletableFuture<Void>> resultados = new ArrayList<>();
+        resultados.add(filaEmailService.enfileirar(mensagem("comprador0@teste.com"), "mensagem 0"));
+        assertTrue(servidor.dataRecebido.await(10, TimeUnit.SECONDS));
+        resultados.add(filaEmailService.enfileirar(mensagem("comprador1@teste.com"), "mensagem 1"));
+        resultados.add(filaEmailService.enfileirar(mensagem("comprador2@teste.com"), "mensagem 2"));
+        assertEquals(2, filaEmailService.getTamanhoFila());
+
+        assertThrows(FilaEmailCheiaException.class,
+                () -> filaEmailService.enfileirar(mensagem("comprador3@teste.com"), "mensagem 3"));
+
+        servidor.segurarData.countDown();
+        aguardar(resultados);
+        assertEquals(3, filaEmailService.getEnviados());
+        assertEquals(3, servidor.mensagens.size());
+    }
+
+    private void iniciarFila(int workers, int capacidade) {
+        filaEmailService = new FilaEmailService(mailSender);
+        ReflectionTestUtils.setField(filaEmailService, "workers", workers);
+        ReflectionTestUtils.setField(filaEmailService, "capacidadeFila", capacidade);
+        ReflectionTestUtils.setField(filaEmailService, "mensagensPorConexao", 50);
+        ReflectionTestUtils.setField(filaEmailService, "conexaoOciosaMs", 10_000L);
+        ReflectionTestUtils.setField(filaEmailService, "maxTentativas", 5);
+        ReflectionTestUtils.setField(filaEmailService, "backoffInicialMs", BACKOFF_MS);
+        filaEmailService.iniciar();
+    }
+
+    private MimeMessage mensagem(String destinatario) throws MessagingException {
+        MimeMessage mensagem = mailSender.createMimeMessage();
+        mensagem.setFrom("noreply@encenape.com");
+        mensagem.setRecipients(MimeMessage.RecipientType.TO, destinatario);
+        mensagem.setSubject("Seu ingresso");
+        mensagem.setText("Olá");
+        return mensagem;
+    }
+
+    private static void aguardar(List<CompletableFuture<Void>> resultados) throws Exception {
+        CompletableFuture.allOf(resultados.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+    }
+
+    // Só o necessário do SMTP para o Jakarta Mail sem autenticação nem STARTTLS
+    private static final class ServidorSmtp {
+
+        private final ServerSocket socket;
+        private final Thread aceitador;
+        private final List<Socket> clientes = new CopyOnWriteArrayList<>();
+        private final List<String> mensagens = new CopyOnWriteArrayList<>();
+        private final AtomicInteger conexoes = new AtomicInteger();
+        // Próximos MAIL FROM respondidos com 451
+        private final AtomicInteger recusasTemporarias = new AtomicInteger();
+        private final CountDownLatch dataRecebido = new CountDownLatch(1);
+        private volatile CountDownLatch segurarData;
+
+        ServidorSmtp() throws IOException {
+            socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            aceitador = new Thread(this::aceitar, "smtp-teste");
+            aceitador.setDaemon(true);
+            aceitador.start();
+        }
+
+        int getPorta() {
+            return socket.getLocalPort();
+        }
+
+        void parar() throws IOException {
+            socket.close();
+            for (Socket cliente : clientes) {
+                cliente.close();
+            }
+        }
+
+        private void aceitar() {
+            try {
+                while (true) {
+                    Socket cliente = socket.accept();
+                    clientes.add(cliente);
+                    conexoes.incrementAndGet();
+                    Thread sessao = new Thread(() -> atender(cliente), "smtp-teste-sessao");
+                    sessao.setDaemon(true);
+                    sessao.start();
+                }
+            } catch (IOException e) {
+                // Servidor encerrado
+            }
+        }
+
+        private void atender(Socket cliente) {
+            try (cliente;
+                 BufferedReader entrada = new BufferedReader(new InputStreamReader(cliente.getInputStream(), StandardCharsets.US_ASCII));
+                 OutputStream saida = cliente.getOutputStream()) {
+                responder(saida, "220 teste ESMTP");
+                String linha;
+                while ((linha = entrada.readLine()) != null) {
+                    String comando = linha.toUpperCase();
+                    if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                        responder(saida, "250 teste");
+                    } else if (comando.startsWith("MAIL FROM")) {
+                        if (recusasTemporarias.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                            responder(saida, "451 4.7.1 Tente novamente mais tarde");
+                        } else {
+                            responder(saida, "250 OK");
+                        }
+                    } else if (comando.startsWith("RCPT TO")) {
+                        responder(saida, comando.contains("RECUSADO@") ? "550 5.1.1 Caixa inexistente" : "250 OK");
+                    } else if (comando.equals("DATA")) {
+                        responder(saida, "354 Fim com <CRLF>.<CRLF>");
+                        StringBuilder corpo = new StringBuilder();
+                        while (!(linha = entrada.readLine()).equals(".")) {
+                            corpo.append(linha).append('\n');
+                        }
+                        dataRecebido.countDown();
+                        CountDownLatch segurar = segurarData;
+                        if (segurar != null) {
+                            segurar.await(10, TimeUnit.SECONDS);
+                        }
+                        mensagens.add(corpo.toString());
+                        responder(saida, "250 OK");
+                    } else if (comando.equals("QUIT")) {
+                        responder(saida, "221 Tchau");
+                        return;
+                    } else {
+                        // RSET, NOOP
+                        responder(saida, "250 OK");
+                    }
+                }
+            } catch (SocketException e) {
+                // Conexão fechada pelo cliente ou no encerramento
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void responder(OutputStream saida, String resposta) throws IOException {
+            saida.write((resposta + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            saida.flush();
+        }
+    }
+}
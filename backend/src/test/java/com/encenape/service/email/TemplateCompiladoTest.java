@@ -0,0 +1,95 @@
+package com.encenape.service.email;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cada template compilado precisa sair igual ao que o Thymeleaf geraria com os mesmos valores
+class TemplateCompiladoTest {
+
+    private static final String[] VALORES_HOSTIS = {
+            "<script>alert('x')</script>",
+            "Tom & Jerry",
+            "\"aspas\" e 'apóstrofos'",
+            "100%% garantido",
+            "%%nome%%",
+            "Ação, coração & cia. <b>"
+    };
+
+    private static TemplateEngine templateEngine;
+
+    @BeforeAll
+    static void criarTemplateEngine() {
+        // Mesmo motor (SpEL) e resolvedor que o Spring Boot configura para classpath:/templates/
+        ClassLoaderTemplateResolver resolvedor = new ClassLoaderTemplateResolver();
+        resolvedor.setPrefix("templates/");
+        resolvedor.setSuffix(".html");
+        resolvedor.setTemplateMode(TemplateMode.HTML);
+        resolvedor.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolvedor);
+    }
+
+    @Test
+    void passwordResetIgualAoThymeleaf() {
+        String[] variaveis = {"nome", "resetUrl"};
+        TemplateCompilado template = compilar("password-reset", variaveis);
+        for (String valor : VALORES_HOSTIS) {
+            String url = "https://encenape.com/reset-password?token=" + valor + "&email=a@b.com";
+            comparar("password-reset", template, variaveis, valor, url);
+        }
+    }
+
+    @Test
+    void purchaseConfirmationIgualAoThymeleaf() {
+        String[] variaveis = {"nome", "evento", "codigo"};
+        TemplateCompilado template = compilar("purchase-confirmation", variaveis);
+        for (String valor : VALORES_HOSTIS) {
+            comparar("purchase-confirmation", template, variaveis, valor, "Hamlet " + valor, "ING-" + valor);
+        }
+    }
+
+    @Test
+    void valoresEscapadosSemMarcadoresSobrando() {
+        TemplateCompilado template = compilar("purchase-confirmation", "nome", "evento", "codigo");
+        String html = template.renderizar("<b>Ana</b>", "Tom & Jerry \"ao vivo\" 'hoje'", "%%codigo%%");
+
+        assertTrue(html.contains("&lt;b&gt;Ana&lt;/b&gt;"));
+        assertTrue(html.contains("Tom &amp; Jerry &quot;ao vivo&quot; &#39;hoje&#39;"));
+        assertFalse(html.contains("<b>Ana</b>"));
+        // Um %% vindo do valor é texto: não é lido como marcador nem some
+        assertTrue(html.contains(">%%codigo%%<"));
+        assertFalse(html.contains("%%nome%%"));
+        assertFalse(html.contains("%%evento%%"));
+    }
+
+    @Test
+    void valorNuloViraVazio() {
+        TemplateCompilado template = TemplateCompilado.compilar("<p>" + TemplateCompilado.marcador("nome") + "</p>", "nome");
+        assertEquals("<p></p>", template.renderizar((String) null));
+    }
+
+    private static TemplateCompilado compilar(String nome, String... variaveis) {
+        Context context = new Context();
+        for (String variavel : variaveis) {
+            context.setVariable(variavel, TemplateCompilado.marcador(variavel));
+        }
+        return TemplateCompilado.compilar(templateEngine.process(nome, context), variaveis);
+    }
+
+    private static void comparar(String nome, TemplateCompilado template, String[] variaveis, String... valores) {
+        Context context = new Context();
+        for (int i = 0; i < variaveis.length; i++) {
+            context.setVariable(variaveis[i], valores[i]);
+        }
+        assertEquals(templateEngine.process(nome, context), template.renderizar(valores), nome + " com " + valores[0]);
+    }
+}
@@ -0,0 +1,83 @@
+package com.encenape.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnalisadorTextoTest {
+
+    @Test
+    void acentosEPalavrasVaziasNaoImportam() {
+        assertEquals(List.of("hamlet"), AnalisadorTexto.palavras("Hámlet"));
+        assertEquals(AnalisadorTexto.radicais("hamlet"), AnalisadorTexto.radicais("HÁMLET"));
+        assertEquals(List.of("romeu", "julieta"), AnalisadorTexto.palavras("Romeu e Julieta"));
+        assertEquals(AnalisadorTexto.radicais("romeu julieta"), AnalisadorTexto.radicais("Roméu & a Julieta!"));
+        assertEquals("coracao", AnalisadorTexto.normalizar("Coração"));
+    }
+
+    @Test
+    void pluralFemininoEDiminutivoCaemNoMesmoRadical() {
+        String[][] grupos = {
+                {"menino", "menina", "meninos", "meninas", "menininho", "menininha"},
+                {"teatro", "teatros", "teatrinho"},
+                {"cantor", "cantora", "cantores", "cantoras"},
+                {"palhaço", "palhaça", "palhaços", "palhaças"},
+                {"canção", "canções"},
+                {"leão", "leões"},
+                {"pão", "pães"},
+                {"rei", "reis"},
+                {"lei", "leis"},
+                {"pai", "pais"},
+                {"papel", "papéis"},
+                {"musical", "musicais"},
+                {"festival", "festivais"},
+                {"jovem", "jovens"},
+                {"atriz", "atrizes"},
+                {"ator", "atores"},
+                {"café", "cafezinho"},
+                {"bonito", "bonita", "bonitinho", "bonitíssimo"}
+        };
+        for (String[] grupo : grupos) {
+            String esperado = radical(grupo[0]);
+            for (String palavra : grupo) {
+                assertEquals(esperado, radical(palavra), palavra + " e " + grupo[0]);
+            }
+        }
+    }
+
+    @Test
+    void radicaisCurtosOuDeAoNaoSaoMutilados() {
+        assertEquals("rei", radical("reis"));
+        assertEquals("cancao", radical("canções"));
+        assertEquals("cancao", radical("canção"));
+        assertEquals("papel", radical("papéis"));
+        assertEquals("musical", radical("musicais"));
+        assertEquals("bis", radical("bis"));
+        assertEquals("onibus", radical("ônibus"));
+        // Palavras diferentes continuam separadas
+        assertNotEquals(radical("cantor"), radical("canto"));
+        assertNotEquals(radical("canção"), radical("canto"));
+    }
+
+    @Test
+    void consultaBooleanaSoComPalavrasEPrefixos() {
+        assertEquals("+hamlet* +shakespeare*", AnalisadorTexto.consultaBooleana("Hámlet de Shakespeare"));
+        // Os operadores do modo booleano não passam
+        assertEquals("+romeu* +julieta* +teatro*",
+                AnalisadorTexto.consultaBooleana("+romeu -julieta* \"teatro\" (a) ~<>@3"));
+        // Tokens abaixo do innodb_ft_min_token_size saem; sem nenhum termo, não há consulta
+        assertEquals("+rei* +lear*", AnalisadorTexto.consultaBooleana("O rei Lear em SP"));
+        assertNull(AnalisadorTexto.consultaBooleana("de a o SP RJ"));
+        assertNull(AnalisadorTexto.consultaBooleana("+-*\"()~<>@"));
+        assertNull(AnalisadorTexto.consultaBooleana(""));
+        assertNull(AnalisadorTexto.consultaBooleana(null));
+    }
+
+    private static String radical(String palavra) {
+        return AnalisadorTexto.radical(AnalisadorTexto.normalizar(palavra));
+    }
+}
@@ -0,0 +1,80 @@
+package com.encenape.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorEventosTest {
+
+    @Test
+    void idaEVoltaPreservaNanosEId() {
+        LocalDateTime[] datas = {
+                LocalDateTime.of(2026, 10, 17, 20, 30, 15, 123_456_789),
+                LocalDateTime.of(2026, 10, 17, 20, 30, 15, 999_999_999),
+                LocalDateTime.of(2026, 10, 17, 20, 30),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1),
+                CursorEventos.INICIO.getDataHora()
+        };
+        long[] ids = {0L, 1L, Integer.MAX_VALUE + 1L, Long.MAX_VALUE};
+        for (LocalDateTime data : datas) {
+            for (long id : ids) {
+                String cursor = new CursorEventos(data, id).codificar();
+                // Seguro para a query string: base64url sem '=', '+' nem '/'
+                assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+
+                CursorEventos lido = CursorEventos.decodificar(cursor);
+                assertEquals(data, lido.getDataHora());
+                assertEquals(id, lido.getId());
+            }
+        }
+    }
+
+    @Test
+    void semCursorComecaDoInicio() {
+        assertSame(CursorEventos.INICIO, CursorEventos.decodificar(null));
+        assertSame(CursorEventos.INICIO, CursorEventos.decodificar(""));
+        assertSame(CursorEventos.INICIO, CursorEventos.decodificar("  "));
+    }
+
+    @Test
+    void cursorMalformadoEInvalido() {
+        byte[] valido = Base64.getUrlDecoder().decode(new CursorEventos(LocalDateTime.of(2026, 10, 17, 20, 30, 0, 5), 42L).codificar());
+
+        byte[] outraVersao = valido.clone();
+        outraVersao[0] = 2;
+        byte[] nanosForaDoIntervalo = valido.clone();
+        ByteBuffer.wrap(nanosForaDoIntervalo).putInt(9, 1_000_000_000);
+        byte[] segundosForaDoIntervalo = valido.clone();
+        ByteBuffer.wrap(segundosForaDoIntervalo).putLong(1, Long.MAX_VALUE);
+
+        String[] invalidos = {
+                codificar(outraVersao),
+                codificar(nanosForaDoIntervalo),
+                codificar(segundosForaDoIntervalo),
+                codificar(Arrays.copyOf(valido, valido.length - 1)),
+                codificar(Arrays.copyOf(valido, valido.length + 1)),
+                codificar(new byte[]{1}),
+                "A",
+                // Alfabeto do base64 comum e caracteres fora de qualquer base64
+                Base64.getEncoder().encodeToString(new byte[]{1, (byte) 0xFB, (byte) 0xFF}).repeat(7),
+                "cursor inválido!",
+                "%00"
+        };
+        for (String cursor : invalidos) {
+            RuntimeException erro = assertThrows(RuntimeException.class, () -> CursorEventos.decodificar(cursor), cursor);
+            assertEquals("Cursor inválido", erro.getMessage(), cursor);
+        }
+    }
+
+    private static String codificar(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,102 @@
+package com.encenape.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLongHashMapTest {
+
+    @Test
+    void putIfAbsentMantemOValorOriginal() {
+        LongLongHashMap mapa = new LongLongHashMap(16);
+
+        assertEquals(10, mapa.putIfAbsent(1, 10));
+        assertEquals(10, mapa.putIfAbsent(1, 20));
+        assertEquals(10, mapa.get(1, -1));
+        assertEquals(1, mapa.size());
+    }
+
+    @Test
+    void chaveZeroEReservada() {
+        LongLongHashMap mapa = new LongLongHashMap(16);
+
+        assertThrows(IllegalArgumentException.class, () -> mapa.putIfAbsent(0, 1));
+        assertFalse(mapa.contains(0));
+    }
+
+    @Test
+    void remocaoNoMeioDeUmaSequenciaMantemAsChavesSeguintesAlcancaveis() {
+        // Tabela mínima (16 posições) com 9 chaves: as sequências de sondagem se sobrepõem
+        LongLongHashMap mapa = new LongLongHashMap(1);
+        for (long chave = 1; chave <= 9; chave++) {
+            mapa.putIfAbsent(chave, chave * 100);
+        }
+
+        for (long removida = 1; removida <= 9; removida++) {
+            assertTrue(mapa.remove(removida));
+            assertFalse(mapa.contains(removida));
+            assertFalse(mapa.remove(removida));
+            for (long chave = removida + 1; chave <= 9; chave++) {
+                assertEquals(chave * 100, mapa.get(chave, -1), "Chave " + chave + " perdida após remover " + removida);
+            }
+            mapa.putIfAbsent(removida + 100, removida);
+            assertEquals(removida, mapa.get(removida + 100, -1));
+            assertTrue(mapa.remove(removida + 100));
+        }
+        assertEquals(0, mapa.size());
+    }
+
+    @Test
+    void operacoesAleatoriasBatemComHashMap() {
+        Random random = new Random(42);
+        LongLongHashMap mapa = new LongLongHashMap(16);
+        Map<Long, Long> referencia = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // Poucas chaves distintas para forçar colisões, remoções e reinserções nas mesmas sequências
+            long chave = 1 + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(referencia.remove(chave) != null, mapa.remove(chave));
+            } else {
+                long valor = random.nextLong();
+                Long anterior = referencia.putIfAbsent(chave, valor);
+                assertEquals(anterior != null ? anterior : valor, mapa.putIfAbsent(chave, valor));
+            }
+            assertEquals(referencia.size(), mapa.size());
+        }
+        for (long chave = 1; chave <= 300; chave++) {
+            assertEquals(referencia.containsKey(chave), mapa.contains(chave));
+            assertEquals(referencia.getOrDefault(chave, Long.MIN_VALUE), mapa.get(chave, Long.MIN_VALUE));
+        }
+    }
+
+    @Test
+    void redimensionaSemPerderChaves() {
+        LongLongHashMap mapa = new LongLongHashMap(16);
+        for (long chave = 1; chave <= 10_000; chave++) {
+            mapa.putIfAbsent(chave * 31, chave);
+        }
+
+        assertEquals(10_000, mapa.size());
+        for (long chave = 1; chave <= 10_000; chave++) {
+            assertEquals(chave, mapa.get(chave * 31, -1));
+        }
+    }
+
+    @Test
+    void clearEsvaziaOMapa() {
+        LongLongHashMap mapa = new LongLongHashMap(16);
+        mapa.putIfAbsent(7, 1);
+        mapa.clear();
+
+        assertEquals(0, mapa.size());
+        assertFalse(mapa.contains(7));
+    }
+}
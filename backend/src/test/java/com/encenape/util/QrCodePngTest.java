@@ -0,0 +1,87 @@
+package com.encenape.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class QrCodePngTest {
+
+    private static final String[] CONTEUDOS = {
+            "ING-1",
+            UUID.randomUUID().toString(),
+            "https://encenape.com.br/ingressos/validar?token=" + "AbCdEfGh0123456789-_".repeat(8)
+    };
+
+    // 29 e 33 ficam abaixo do tamanho mínimo do código; 250 e 301 não são múltiplos de 8 e passam por
+    // limparBitsExcedentes
+    private static final int[] TAMANHOS = {29, 33, 64, 200, 250, 301};
+
+    @Test
+    void imagemIgualPixelAPixelAoQrCodeWriter() throws Exception {
+        for (String conteudo : CONTEUDOS) {
+            for (int tamanho : TAMANHOS) {
+                BitMatrix esperado = new QRCodeWriter().encode(conteudo, BarcodeFormat.QR_CODE, tamanho, tamanho);
+                BufferedImage imagem = ImageIO.read(new ByteArrayInputStream(QrCodePng.renderizar(conteudo, tamanho)));
+                String caso = conteudo.length() + " caracteres em " + tamanho + "px";
+
+                assertNotNull(imagem, caso);
+                assertEquals(esperado.getWidth(), imagem.getWidth(), caso);
+                assertEquals(esperado.getHeight(), imagem.getHeight(), caso);
+                for (int y = 0; y < imagem.getHeight(); y++) {
+                    for (int x = 0; x < imagem.getWidth(); x++) {
+                        boolean preto = (imagem.getRGB(x, y) & 0xFFFFFF) == 0;
+                        assertEquals(esperado.get(x, y), preto, caso + ", pixel (" + x + ", " + y + ")");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void chunksComCrcValidoENaOrdemDaEspecificacao() throws Exception {
+        for (int tamanho : TAMANHOS) {
+            byte[] png = QrCodePng.renderizar(CONTEUDOS[1], tamanho);
+            assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, Arrays.copyOf(png, 8));
+
+            List<String> tipos = new ArrayList<>();
+            ByteBuffer buffer = ByteBuffer.wrap(png, 8, png.length - 8);
+            CRC32 crc = new CRC32();
+            while (buffer.hasRemaining()) {
+                int tamanhoDados = buffer.getInt();
+                int inicioTipo = buffer.position();
+                String tipo = new String(png, inicioTipo, 4, StandardCharsets.US_ASCII);
+                buffer.position(inicioTipo + 4 + tamanhoDados);
+                crc.reset();
+                crc.update(png, inicioTipo, 4 + tamanhoDados);
+                assertEquals((int) crc.getValue(), buffer.getInt(), "CRC do chunk " + tipo + " em " + tamanho + "px");
+                tipos.add(tipo);
+            }
+            assertEquals(List.of("IHDR", "IDAT", "IEND"), tipos);
+        }
+    }
+
+    @Test
+    void buffersDaThreadNaoVazamEntreChamadas() throws Exception {
+        // Uma imagem maior no meio deixa os buffers da thread com sobra; a menor precisa sair igual à primeira
+        byte[] primeira = QrCodePng.renderizar(CONTEUDOS[0], 250);
+        QrCodePng.renderizar(CONTEUDOS[2], 301);
+        byte[] repetida = QrCodePng.renderizar(CONTEUDOS[0], 250);
+        assertArrayEquals(primeira, repetida);
+    }
+}
@@ -0,0 +1,100 @@
+package com.encenape.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    // 4 slots e 3 níveis de 2 ms: o nível 0 cobre 8 ms, o 1 cobre 32 ms e o 2 cobre 128 ms
+    private static final long TICK_MS = 2;
+
+    private TimingWheel roda;
+
+    @BeforeEach
+    void iniciar() {
+        roda = new TimingWheel("teste", TICK_MS, 4, 3);
+        roda.iniciar();
+    }
+
+    @AfterEach
+    void parar() {
+        roda.parar();
+    }
+
+    @Test
+    void prazoVencidoRodaNaHora() {
+        AtomicBoolean executada = new AtomicBoolean();
+
+        roda.agendar(System.currentTimeMillis() - 1000, () -> executada.set(true));
+
+        assertTrue(executada.get());
+        assertEquals(0, roda.getPendentes());
+    }
+
+    @Test
+    void tarefasDeTodosOsNiveisRodamNoPrazoEmCascata() throws InterruptedException {
+        // Prazos no nível 0, que descem do nível 1, do nível 2 e além do alcance da roda
+        long[] atrasos = {5, 20, 30, 70, 120, 300};
+        long agora = System.currentTimeMillis();
+        CountDownLatch concluidas = new CountDownLatch(atrasos.length);
+        ConcurrentHashMap<Integer, Long> executadasEm = new ConcurrentHashMap<>();
+        List<Long> prazos = new ArrayList<>();
+        for (int i = 0; i < atrasos.length; i++) {
+            int tarefa = i;
+            long prazo = agora + atrasos[i];
+            prazos.add(prazo);
+            roda.agendar(prazo, () -> {
+                executadasEm.put(tarefa, System.currentTimeMillis());
+                concluidas.countDown();
+            });
+        }
+
+        assertTrue(concluidas.await(5, TimeUnit.SECONDS), "Tarefas não executadas: " + concluidas.getCount());
+        for (int i = 0; i < atrasos.length; i++) {
+            assertTrue(executadasEm.get(i) >= prazos.get(i),
+                    "Tarefa de " + atrasos[i] + " ms rodou " + (prazos.get(i) - executadasEm.get(i)) + " ms antes do prazo");
+        }
+        assertEquals(0, roda.getPendentes());
+    }
+
+    @Test
+    void tarefaCanceladaNaoRoda() throws InterruptedException {
+        AtomicBoolean cancelada = new AtomicBoolean();
+        CountDownLatch controle = new CountDownLatch(1);
+        long agora = System.currentTimeMillis();
+
+        TimingWheel.Timeout timeout = roda.agendar(agora + 40, () -> cancelada.set(true));
+        roda.agendar(agora + 80, controle::countDown);
+        timeout.cancelar();
+
+        assertTrue(controle.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isCancelado());
+        assertFalse(cancelada.get());
+        assertEquals(0, roda.getPendentes());
+    }
+
+    @Test
+    void muitasTarefasComPrazosEspalhadosRodamTodas() throws InterruptedException {
+        int total = 2000;
+        long agora = System.currentTimeMillis();
+        CountDownLatch concluidas = new CountDownLatch(total);
+        for (int i = 0; i < total; i++) {
+            roda.agendar(agora + (i * 7L) % 400, concluidas::countDown);
+        }
+
+        assertTrue(concluidas.await(5, TimeUnit.SECONDS), "Tarefas não executadas: " + concluidas.getCount());
+        assertEquals(0, roda.getPendentes());
+    }
+}
@@ -8,6 +8,7 @@ export interface Event {
   id: number;
   titulo: string;
   descricao?: string;
+  trechoDescricao?: string;
   categoria?: string;
   cidade?: string;
   local?: string;
@@ -63,6 +64,7 @@ const EventCard: React.FC<EventCardProps> = ({
   const isAvailable = event.ticketsAvailable > 0 && event.ativo;
   const isSoldOut = event.ticketsAvailable === 0;
   const isUpcoming = new Date(event.dataHora) > new Date();
+  const descricao = event.trechoDescricao ?? event.descricao;
 
   const handleBuyClick = (e: React.MouseEvent) => {
     e.preventDefault();
@@ -207,11 +209,11 @@ const EventCard: React.FC<EventCardProps> = ({
           </div>
 
           {/* Description */}
-          {event.descricao && (
+          {descricao && (
             <p className={styles.description}>
-              {event.descricao.length > 100
-                ? `${event.descricao.substring(0, 100)}...`
-                : event.descricao}
+              {descricao.length > 100
+                ? `${descricao.substring(0, 100)}...`
+                : descricao}
             </p>
           )}
         </div>
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useSearchParams, useNavigate } from 'react-router-dom';
 import { useQuery, useMutation } from 'react-query';
 import { EventService, TicketService } from '../../services/api';
@@ -13,6 +13,12 @@ const Checkout: React.FC = () => {
   
   const [quantity, setQuantity] = useState(1);
   const [isProcessing, setIsProcessing] = useState(false);
+  // Reenvios da mesma compra usam a mesma chave; trocar a quantidade inicia uma compra nova
+  const idempotencyKey = useRef(crypto.randomUUID());
+
+  useEffect(() => {
+    idempotencyKey.current = crypto.randomUUID();
+  }, [quantity]);
 
   // Buscar evento
   const { data: event, isLoading: eventLoading, error: eventError } = useQuery(
@@ -26,7 +32,7 @@ const Checkout: React.FC = () => {
   // Mutation para comprar ingresso
   const purchaseMutation = useMutation(
     (data: { eventId: number; quantity: number }) =>
-      TicketService.purchaseTicket({ eventoId: data.eventId, quantidade: data.quantity }),
+      TicketService.purchaseTicket({ eventoId: data.eventId, quantidade: data.quantity }, idempotencyKey.current),
     {
       onSuccess: (data) => {
         navigate(`/compras/${data.id}`, { 
@@ -7,7 +7,6 @@ import styles from './Purchases.module.css';
 interface Purchase {
   id: number;
   codigo: string;
-  qrCode: string;
   status: string;
   dataCompra: string;
   valorTotal: number;
@@ -296,11 +295,11 @@ const Purchases: React.FC = () => {
                     </div>
                   </div>
 
-                  {selectedPurchase.qrCode && (
+                  {selectedPurchase.codigo && (
                     <div className={styles.qrCodeSection}>
                       <h4 className={styles.qrCodeTitle}>QR Code</h4>
                       <div className={styles.qrCodeContainer}>
-                        <img src={selectedPurchase.qrCode} alt="QR Code" className={styles.qrCode} />
+                        <img src={TicketService.getQrCodeUrl(selectedPurchase.codigo)} alt="QR Code" className={styles.qrCode} />
                       </div>
                       <p className={styles.qrCodeText}>
                         Apresente este QR Code na entrada do evento
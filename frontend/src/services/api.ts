@@ -221,15 +221,23 @@ export class EventService {
 }
 
 export class TicketService {
+  // idempotencyKey deve ser a mesma em todas as tentativas da mesma compra
   static async purchaseTicket(data: {
     eventoId: number;
     quantidade: number;
     paymentMethod?: string;
-  }) {
-    const response = await api.post('/ingressos', data);
+  }, idempotencyKey?: string) {
+    const response = await api.post('/ingressos', data, {
+      headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : undefined,
+    });
     return response.data;
   }
 
+  // Imagem pública e imutável: pode ir direto num <img>, sem token
+  static getQrCodeUrl(codigo: string) {
+    return `${api.defaults.baseURL}/ingressos/codigo/${codigo}/qr.png`;
+  }
+
   static async getMyTickets() {
     const response = await api.get('/ingressos/me');
     return response.data;